@@ -0,0 +1,136 @@
+package com.nicolas.chatapp.config;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.broker.AbstractSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Subscription registry for the simple broker that indexes subscriptions by their exact
+ * destination. Every topic the app publishes to, {@code /topic/{userId}} and its
+ * {@code /typing}, {@code /online} and {@code /call} siblings, is a literal destination, so a
+ * lookup is a single hash get of an immutable snapshot with no locking and no pattern matching.
+ * Subscriptions with a pattern or a selector header are handed to a {@link DefaultSubscriptionRegistry}.
+ */
+public class ExactMatchSubscriptionRegistry extends AbstractSubscriptionRegistry {
+
+    private static final String SELECTOR_HEADER = "selector";
+    private static final MultiValueMap<String, String> NO_SUBSCRIPTIONS =
+            CollectionUtils.unmodifiableMultiValueMap(new LinkedMultiValueMap<>());
+
+    // destination -> immutable (sessionId -> subscriptionIds), replaced on every change
+    private final Map<String, MultiValueMap<String, String>> destinations = new ConcurrentHashMap<>();
+    // sessionId -> (subscriptionId -> destination), to unsubscribe without scanning destinations
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final DefaultSubscriptionRegistry patternRegistry = new DefaultSubscriptionRegistry();
+    private volatile boolean hasPatternSubscriptions;
+
+    @Override
+    protected void addSubscriptionInternal(String sessionId, String subscriptionId, String destination, Message<?> message) {
+
+        if (isPattern(destination) || hasSelector(message)) {
+            hasPatternSubscriptions = true;
+            patternRegistry.registerSubscription(message);
+            return;
+        }
+
+        sessions.computeIfAbsent(sessionId, id -> new ConcurrentHashMap<>()).put(subscriptionId, destination);
+        destinations.compute(destination, (key, current) -> with(current, sessionId, subscriptionId));
+    }
+
+    @Override
+    protected void removeSubscriptionInternal(String sessionId, String subscriptionId, Message<?> message) {
+
+        Map<String, String> subscriptions = sessions.get(sessionId);
+        String destination = subscriptions != null ? subscriptions.remove(subscriptionId) : null;
+
+        if (destination == null) {
+            if (hasPatternSubscriptions) {
+                patternRegistry.unregisterSubscription(message);
+            }
+            return;
+        }
+
+        destinations.computeIfPresent(destination, (key, current) -> without(current, sessionId, subscriptionId));
+    }
+
+    @Override
+    public void unregisterAllSubscriptions(String sessionId) {
+
+        Map<String, String> subscriptions = sessions.remove(sessionId);
+        if (subscriptions != null) {
+            subscriptions.forEach((subscriptionId, destination) ->
+                    destinations.computeIfPresent(destination, (key, current) -> without(current, sessionId, subscriptionId)));
+        }
+
+        if (hasPatternSubscriptions) {
+            patternRegistry.unregisterAllSubscriptions(sessionId);
+        }
+    }
+
+    @Override
+    protected MultiValueMap<String, String> findSubscriptionsInternal(String destination, Message<?> message) {
+
+        MultiValueMap<String, String> exact = destinations.getOrDefault(destination, NO_SUBSCRIPTIONS);
+        if (!hasPatternSubscriptions) {
+            return exact;
+        }
+
+        MultiValueMap<String, String> matched = patternRegistry.findSubscriptions(message);
+        if (matched.isEmpty()) {
+            return exact;
+        }
+
+        LinkedMultiValueMap<String, String> merged = new LinkedMultiValueMap<>(exact);
+        matched.forEach((sessionId, subscriptionIds) -> merged.addAll(sessionId, subscriptionIds));
+        return merged;
+    }
+
+    private static MultiValueMap<String, String> with(MultiValueMap<String, String> current, String sessionId, String subscriptionId) {
+
+        LinkedMultiValueMap<String, String> next = current == null ? new LinkedMultiValueMap<>(2) : new LinkedMultiValueMap<>(current);
+        List<String> subscriptionIds = new ArrayList<>(next.getOrDefault(sessionId, List.of()));
+        if (!subscriptionIds.contains(subscriptionId)) {
+            subscriptionIds.add(subscriptionId);
+        }
+        next.put(sessionId, List.copyOf(subscriptionIds));
+        return CollectionUtils.unmodifiableMultiValueMap(next);
+    }
+
+    private static MultiValueMap<String, String> without(MultiValueMap<String, String> current, String sessionId, String subscriptionId) {
+
+        List<String> subscriptionIds = current.get(sessionId);
+        if (subscriptionIds == null || !subscriptionIds.contains(subscriptionId)) {
+            return current;
+        }
+
+        LinkedMultiValueMap<String, String> next = new LinkedMultiValueMap<>(current);
+        List<String> remaining = new ArrayList<>(subscriptionIds);
+        remaining.remove(subscriptionId);
+        if (remaining.isEmpty()) {
+            next.remove(sessionId);
+        } else {
+            next.put(sessionId, List.copyOf(remaining));
+        }
+
+        // Returning null drops the destination key once nobody is subscribed
+        return next.isEmpty() ? null : CollectionUtils.unmodifiableMultiValueMap(next);
+    }
+
+    private static boolean isPattern(String destination) {
+        return destination.indexOf('*') >= 0 || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0;
+    }
+
+    private static boolean hasSelector(Message<?> message) {
+        return SimpMessageHeaderAccessor.getFirstNativeHeader(SELECTOR_HEADER, message.getHeaders()) != null;
+    }
+
+}
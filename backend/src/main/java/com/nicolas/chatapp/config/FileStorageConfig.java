@@ -1,19 +1,68 @@
 package com.nicolas.chatapp.config;
 
+import com.nicolas.chatapp.service.AvatarService;
+import com.nicolas.chatapp.service.FileDownloadService;
+import com.nicolas.chatapp.service.FileStorageService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
-import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.servlet.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.util.UrlPathHelper;
 
-import java.nio.file.Paths;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
 
+/**
+ * Serves the public part of {@code /uploads/**}, profile and group pictures, through {@link FileDownloadService}
+ * rather than a resource handler, so they get ranges, ETags and sendfile too. Content-addressed pictures never
+ * change content and are cached for good, by browsers and shared caches alike; older per-upload paths are
+ * revalidated. Avatar sizes are answered by
+ * {@link AvatarService}, which keeps the most requested ones in memory. Message attachments are not served here:
+ * their paths follow from their hash, so they go out only through the membership-checked download endpoint.
+ */
 @Configuration
-public class FileStorageConfig implements WebMvcConfigurer {
+public class FileStorageConfig {
 
-    @Override
-    public void addResourceHandlers(ResourceHandlerRegistry registry) {
-        String uploadDir = Paths.get("uploads").toAbsolutePath().toString();
-        registry.addResourceHandler("/uploads/**")
-                .addResourceLocations("file:" + uploadDir + "/");
+    private static final String PREFIX = "/uploads/";
+    private static final CacheControl PUBLIC_IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    @Bean
+    public SimpleUrlHandlerMapping uploadsHandlerMapping(FileStorageService fileStorageService,
+                                                         FileDownloadService fileDownloadService,
+                                                         AvatarService avatarService) {
+
+        HttpRequestHandler handler = (request, response) -> {
+            String filePath = UrlPathHelper.defaultInstance.getPathWithinApplication(request).substring(PREFIX.length());
+            Path root = fileStorageService.loadFile("").toAbsolutePath().normalize();
+            if (!fileStorageService.loadFile(filePath).toAbsolutePath().normalize().startsWith(root)) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            if (avatarService.isAvatar(filePath)) {
+                avatarService.serve(request, response, filePath);
+                return;
+            }
+            // Attachments are only served by /api/messages/download, after the membership check
+            if (!fileStorageService.isPublicPicture(filePath)) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+
+            String contentType = MediaTypeFactory.getMediaType(filePath).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+            // Only pictures get this far, so public caching can't hand an attachment to someone else
+            CacheControl cacheControl = filePath.startsWith("content/") ? PUBLIC_IMMUTABLE : CacheControl.noCache().cachePublic();
+            fileDownloadService.serve(request, response, filePath, contentType, null, cacheControl);
+        };
+
+        SimpleUrlHandlerMapping mapping = new SimpleUrlHandlerMapping(Map.of(PREFIX + "**", handler));
+        // Ahead of the catch-all static resource mapping
+        mapping.setOrder(0);
+        return mapping;
     }
 }
-
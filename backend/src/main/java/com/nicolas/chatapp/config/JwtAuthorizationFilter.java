@@ -1,7 +1,6 @@
 package com.nicolas.chatapp.config;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -48,11 +47,9 @@ public class JwtAuthorizationFilter extends OncePerRequestFilter {
                 return;
             }
 
-            Claims claims = tokenProvider.getClaimsFromToken(jwt);
-            String email = String.valueOf(claims.get(JwtConstants.EMAIL));
-            String authorities = String.valueOf(claims.get(JwtConstants.AUTHORITIES));
-            List<GrantedAuthority> auths = AuthorityUtils.commaSeparatedStringToAuthorityList(authorities);
-            Authentication authentication = new UsernamePasswordAuthenticationToken(email, null, auths);
+            PrincipalCache.CachedPrincipal principal = tokenProvider.resolvePrincipal(jwt);
+            List<GrantedAuthority> auths = AuthorityUtils.commaSeparatedStringToAuthorityList(principal.authorities());
+            Authentication authentication = new UsernamePasswordAuthenticationToken(principal.principalName(), null, auths);
             SecurityContextHolder.getContext().setAuthentication(authentication);
         } catch (Exception e) {
             // Don't block static resources if JWT is invalid
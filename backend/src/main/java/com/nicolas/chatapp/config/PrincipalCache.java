@@ -0,0 +1,145 @@
+package com.nicolas.chatapp.config;
+
+import com.nicolas.chatapp.model.User;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Remembers what a verified token resolved to, keyed by a SHA-256 digest of the token, so repeat
+ * requests with the same token skip signature verification and the user lookup. Entries live
+ * for at most the configured TTL and never past the token's own expiry, the cache is bounded
+ * in size with LRU eviction, and every entry for a user is dropped when that user row changes.
+ * Guarded by a {@link ReentrantLock}; hashing and copying stay outside it.
+ */
+@Component
+public class PrincipalCache {
+
+    private final long ttlMillis;
+    private final Map<String, CachedPrincipal> entries;
+    private final Map<UUID, Set<String>> digestsByUser = new HashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public PrincipalCache(@Value("${chat.auth.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                          @Value("${chat.auth.principal-cache.max-size:10000}") int maxSize) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedPrincipal> eldest) {
+                if (size() > maxSize) {
+                    unindex(eldest.getKey(), eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public Optional<CachedPrincipal> get(String jwt) {
+
+        String digest = digest(jwt);
+        lock.lock();
+        try {
+            CachedPrincipal principal = entries.get(digest);
+
+            if (principal != null && principal.expiresAt() <= System.currentTimeMillis()) {
+                entries.remove(digest);
+                unindex(digest, principal);
+                return Optional.empty();
+            }
+
+            return Optional.ofNullable(principal);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public CachedPrincipal put(String jwt, String identifier, String principalName, String authorities,
+                                            Date tokenExpiresAt) {
+        long expiresAt = System.currentTimeMillis() + ttlMillis;
+        if (tokenExpiresAt != null) {
+            expiresAt = Math.min(expiresAt, tokenExpiresAt.getTime());
+        }
+
+        CachedPrincipal principal = new CachedPrincipal(identifier, principalName, authorities, null, expiresAt);
+        String digest = digest(jwt);
+        lock.lock();
+        try {
+            entries.put(digest, principal);
+        } finally {
+            lock.unlock();
+        }
+        return principal;
+    }
+
+    public void attachUser(String jwt, CachedPrincipal principal, User user) {
+        String digest = digest(jwt);
+        CachedPrincipal withUser = principal.withUser(copy(user));
+        lock.lock();
+        try {
+            entries.put(digest, withUser);
+            digestsByUser.computeIfAbsent(user.getId(), id -> new HashSet<>()).add(digest);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void invalidate(UUID userId) {
+        lock.lock();
+        try {
+            Set<String> digests = digestsByUser.remove(userId);
+            if (digests != null) {
+                digests.forEach(entries::remove);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Callers get their own detached copy so a request mutating its user can't leak into other requests.
+     */
+    public static User copy(User user) {
+        User copy = new User();
+        BeanUtils.copyProperties(user, copy);
+        return copy;
+    }
+
+    private void unindex(String digest, CachedPrincipal principal) {
+        if (principal.user() == null) {
+            return;
+        }
+        Set<String> digests = digestsByUser.get(principal.user().getId());
+        if (digests != null) {
+            digests.remove(digest);
+            if (digests.isEmpty()) {
+                digestsByUser.remove(principal.user().getId());
+            }
+        }
+    }
+
+    private static String digest(String jwt) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(jwt.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public record CachedPrincipal(String identifier, String principalName, String authorities, User user,
+                                  long expiresAt) {
+
+        CachedPrincipal withUser(User user) {
+            return new CachedPrincipal(identifier, principalName, authorities, user, expiresAt);
+        }
+
+    }
+
+}
@@ -0,0 +1,31 @@
+package com.nicolas.chatapp.config;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskSchedulerBuilder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.TaskScheduler;
+
+/**
+ * Scheduler for {@code @Scheduled} methods. Without it they would share the STOMP broker's
+ * heartbeat scheduler, the only other {@link TaskScheduler} bean, and their JDBC writes would
+ * delay heartbeats. With {@code spring.threads.virtual.enabled} on Java 21 every run gets its own
+ * virtual thread; otherwise it is a pool sized by {@code spring.task.scheduling.pool.size}.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    @Bean(name = "taskScheduler")
+    public TaskScheduler taskScheduler(Environment environment,
+                                       ThreadPoolTaskSchedulerBuilder threadPoolTaskSchedulerBuilder,
+                                       SimpleAsyncTaskSchedulerBuilder simpleAsyncTaskSchedulerBuilder) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            // Boot configures this builder for virtual threads when the mode is active
+            return simpleAsyncTaskSchedulerBuilder.build();
+        }
+        return threadPoolTaskSchedulerBuilder.build();
+    }
+
+}
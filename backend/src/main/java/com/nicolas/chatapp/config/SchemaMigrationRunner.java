@@ -0,0 +1,52 @@
+package com.nicolas.chatapp.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Applies the schema changes that {@code ddl-auto=update} can't express (dropping tables, backfills).
+ * Every statement must be idempotent since it runs on each startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchemaMigrationRunner implements ApplicationRunner {
+
+    private static final List<String> MIGRATIONS = List.of(
+            // Messages are owned by MESSAGE.CHAT_ID, the old unidirectional join table is no longer mapped
+            "DROP TABLE IF EXISTS chat_messages",
+            // Backfill the chat activity summary for chats that predate it, previews as ChatServiceImpl.preview builds them
+            "UPDATE chat SET " +
+                    "message_count = (SELECT COUNT(*) FROM message m WHERE m.chat_id = chat.id), " +
+                    "last_message_at = (SELECT MAX(m.time_stamp) FROM message m WHERE m.chat_id = chat.id), " +
+                    "last_message_preview = (SELECT LEFT(CASE WHEN TRIM(m.content) <> '' THEN m.content " +
+                    "ELSE COALESCE(m.file_name, '') END, 120) FROM message m WHERE m.chat_id = chat.id " +
+                    "ORDER BY m.time_stamp DESC, m.id DESC LIMIT 1), " +
+                    "last_message_sender_id = (SELECT m.user_id FROM message m WHERE m.chat_id = chat.id " +
+                    "ORDER BY m.time_stamp DESC, m.id DESC LIMIT 1) " +
+                    "WHERE message_count IS NULL",
+            // Change log ids used to be allocated in pooled blocks of 50, they are now drawn one at a time
+            "ALTER SEQUENCE IF EXISTS change_log_seq INCREMENT BY 1"
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        for (String migration : MIGRATIONS) {
+            try {
+                jdbcTemplate.execute(migration);
+            } catch (DataAccessException e) {
+                log.warn("Schema migration failed: {}", migration, e);
+            }
+        }
+    }
+
+}
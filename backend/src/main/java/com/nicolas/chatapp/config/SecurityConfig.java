@@ -1,8 +1,10 @@
 package com.nicolas.chatapp.config;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authorization.AuthorizationDecision;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -15,6 +17,7 @@ import org.springframework.web.cors.CorsConfiguration;
 
 import java.util.Collections;
 import java.util.List;
+import java.util.Set;
 
 @Configuration
 @EnableWebSecurity
@@ -25,11 +28,18 @@ public class SecurityConfig {
 
     private final JwtAuthorizationFilter jwtAuthorizationFilter;
 
+    // Users allowed to read metrics and change log levels; health stays public for the platform's probes
+    @Value("${chat.admin.emails:}")
+    private Set<String> adminEmails;
+
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
         return http.sessionManagement(management -> management.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(request -> {
                     request.requestMatchers(WHITE_LIST_URL).permitAll();
+                    request.requestMatchers("/actuator/health", "/actuator/health/**").permitAll();
+                    request.requestMatchers("/actuator/**").access((authentication, context) ->
+                            new AuthorizationDecision(adminEmails.contains(authentication.get().getName())));
                     request.anyRequest().authenticated();
                 })
                 .addFilterBefore(jwtAuthorizationFilter, BasicAuthenticationFilter.class)
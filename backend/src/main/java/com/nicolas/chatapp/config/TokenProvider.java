@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.util.Date;
+import java.util.Optional;
 
 @Slf4j
 @Service
@@ -18,8 +19,10 @@ public class TokenProvider {
 
     private final SecretKey key = Keys.hmacShaKeyFor(Decoders.BASE64.decode(JwtConstants.SECRET_KEY));
     private final JwtParser jwtParser;
+    private final PrincipalCache principalCache;
 
-    public TokenProvider() {
+    public TokenProvider(PrincipalCache principalCache) {
+        this.principalCache = principalCache;
         this.jwtParser = Jwts.parser()
                 .verifyWith(key)
                 .build();
@@ -81,6 +84,24 @@ public class TokenProvider {
         return builder.signWith(key, Jwts.SIG.HS256).compact();
     }
 
+    /**
+     * Resolves the token from the principal cache, verifying and parsing it only on a miss.
+     */
+    public PrincipalCache.CachedPrincipal resolvePrincipal(String jwt) {
+
+        Optional<PrincipalCache.CachedPrincipal> cached = principalCache.get(jwt);
+        if (cached.isPresent()) {
+            return cached.get();
+        }
+
+        Claims claims = getClaimsFromToken(jwt);
+        String email = String.valueOf(claims.get(JwtConstants.EMAIL));
+        String identifier = "null".equals(email) ? String.valueOf(claims.get(JwtConstants.PHONE_NUMBER)) : email;
+
+        return principalCache.put(jwt, identifier, email, String.valueOf(claims.get(JwtConstants.AUTHORITIES)),
+                claims.getExpiration());
+    }
+
     public Claims getClaimsFromToken(String jwt) {
         jwt = jwt.substring(JwtConstants.TOKEN_PREFIX.length());
         return jwtParser.parseSignedClaims(jwt).getPayload();
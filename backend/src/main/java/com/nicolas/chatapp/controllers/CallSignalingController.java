@@ -2,13 +2,13 @@ package com.nicolas.chatapp.controllers;
 
 import com.nicolas.chatapp.model.CallHistory;
 import com.nicolas.chatapp.service.CallHistoryService;
+import com.nicolas.chatapp.service.WebSocketFanoutService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
 import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.*;
 
@@ -27,7 +27,7 @@ import java.util.UUID;
 @CrossOrigin
 public class CallSignalingController {
     
-    private final SimpMessagingTemplate messagingTemplate;
+    private final WebSocketFanoutService fanoutService;
     private final CallHistoryService callHistoryService;
 
     /**
@@ -45,7 +45,7 @@ public class CallSignalingController {
             // Forward the offer to the recipient using topic (same as messages)
             final String destination = "/topic/" + to + "/call";
             log.info("Forwarding offer to destination: {}", destination);
-            messagingTemplate.convertAndSend(destination, message);
+            fanoutService.send(destination, message);
             log.info("Offer forwarded successfully");
         } catch (Exception e) {
             log.error("Error handling call offer", e);
@@ -66,7 +66,7 @@ public class CallSignalingController {
             
             // Forward the answer to the caller using topic
             final String destination = "/topic/" + to + "/call";
-            messagingTemplate.convertAndSend(destination, message);
+            fanoutService.send(destination, message);
         } catch (Exception e) {
             log.error("Error handling call answer", e);
         }
@@ -86,7 +86,7 @@ public class CallSignalingController {
             
             // Forward ICE candidate to the other peer using topic
             final String destination = "/topic/" + to + "/call";
-            messagingTemplate.convertAndSend(destination, message);
+            fanoutService.send(destination, message);
         } catch (Exception e) {
             log.error("Error handling ICE candidate", e);
         }
@@ -106,7 +106,7 @@ public class CallSignalingController {
             
             // Notify caller about rejection using topic
             final String destination = "/topic/" + to + "/call";
-            messagingTemplate.convertAndSend(destination, message);
+            fanoutService.send(destination, message);
         } catch (Exception e) {
             log.error("Error handling call rejection", e);
         }
@@ -126,7 +126,7 @@ public class CallSignalingController {
             
             // Notify caller that call was accepted using topic
             final String destination = "/topic/" + to + "/call";
-            messagingTemplate.convertAndSend(destination, message);
+            fanoutService.send(destination, message);
         } catch (Exception e) {
             log.error("Error handling call acceptance", e);
         }
@@ -146,7 +146,7 @@ public class CallSignalingController {
             
             // Notify other user that call ended using topic
             final String destination = "/topic/" + to + "/call";
-            messagingTemplate.convertAndSend(destination, message);
+            fanoutService.send(destination, message);
         } catch (Exception e) {
             log.error("Error handling call end", e);
         }
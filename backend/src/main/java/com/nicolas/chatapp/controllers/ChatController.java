@@ -4,12 +4,16 @@ import com.nicolas.chatapp.config.JwtConstants;
 import com.nicolas.chatapp.dto.request.GroupChatRequestDTO;
 import com.nicolas.chatapp.dto.response.ApiResponseDTO;
 import com.nicolas.chatapp.dto.response.ChatDTO;
+import com.nicolas.chatapp.dto.response.ChatSummaryDTO;
 import com.nicolas.chatapp.exception.ChatException;
 import com.nicolas.chatapp.exception.UserException;
 import com.nicolas.chatapp.model.Chat;
 import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.service.AvatarService;
+import com.nicolas.chatapp.service.ChatMembershipIndex;
 import com.nicolas.chatapp.service.ChatService;
-import com.nicolas.chatapp.service.FileStorageService;
+import com.nicolas.chatapp.service.ReadStateService;
+import com.nicolas.chatapp.service.UnreadCounterService;
 import com.nicolas.chatapp.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -19,7 +23,9 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 @Slf4j
@@ -30,10 +36,13 @@ public class ChatController {
 
     private final UserService userService;
     private final ChatService chatService;
-    private final FileStorageService fileStorageService;
+    private final AvatarService avatarService;
+    private final ReadStateService readStateService;
+    private final UnreadCounterService unreadCounterService;
+    private final ChatMembershipIndex membershipIndex;
 
     @PostMapping("/single")
-    public ResponseEntity<ChatDTO> createSingleChat(@RequestBody UUID userId,
+    public ResponseEntity<ChatSummaryDTO> createSingleChat(@RequestBody UUID userId,
                                                     @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
             throws UserException {
 
@@ -41,11 +50,11 @@ public class ChatController {
         Chat chat = chatService.createChat(user, userId);
         log.info("User {} created single chat: {}", user.getEmail(), chat.getId());
 
-        return new ResponseEntity<>(ChatDTO.fromChat(chat), HttpStatus.OK);
+        return new ResponseEntity<>(ChatSummaryDTO.fromChat(chat), HttpStatus.OK);
     }
 
     @PostMapping("/group")
-    public ResponseEntity<ChatDTO> createGroupChat(@RequestBody GroupChatRequestDTO req,
+    public ResponseEntity<ChatSummaryDTO> createGroupChat(@RequestBody GroupChatRequestDTO req,
                                                    @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
             throws UserException {
 
@@ -53,7 +62,7 @@ public class ChatController {
         Chat chat = chatService.createGroup(req, user);
         log.info("User {} created group chat: {}", user.getEmail(), chat.getId());
 
-        return new ResponseEntity<>(ChatDTO.fromChat(chat), HttpStatus.OK);
+        return new ResponseEntity<>(ChatSummaryDTO.fromChat(chat), HttpStatus.OK);
     }
 
     @GetMapping("/{id}")
@@ -62,21 +71,57 @@ public class ChatController {
 
         Chat chat = chatService.findChatById(id);
 
-        return new ResponseEntity<>(ChatDTO.fromChat(chat), HttpStatus.OK);
+        return new ResponseEntity<>(ChatDTO.fromChat(chat, readStateService.findWatermarks(chat.getId())), HttpStatus.OK);
     }
 
+    @GetMapping(value = "/{id}", params = ChatSummaryDTO.VIEW_PARAM)
+    public ResponseEntity<ChatSummaryDTO> findChatSummaryById(@PathVariable("id") UUID id,
+                                                              @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
+            throws UserException, ChatException {
+
+        User user = userService.findUserByProfile(jwt);
+        Chat chat = chatService.findChatById(id);
+        long unreadCount = unreadCounterService.getUnreadCount(chat.getId(), user.getId());
+
+        return new ResponseEntity<>(ChatSummaryDTO.fromChat(chat, unreadCount), HttpStatus.OK);
+    }
+
+    // Unpaged unless a size is given, the chat list clients still load every chat at once
     @GetMapping("/user")
-    public ResponseEntity<List<ChatDTO>> findAllChatsByUserId(@RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
+    public ResponseEntity<List<ChatDTO>> findAllChatsByUserId(@RequestHeader(JwtConstants.TOKEN_HEADER) String jwt,
+                                                              @RequestParam(defaultValue = "0") int page,
+                                                              @RequestParam(required = false) Integer size)
             throws UserException {
 
         User user = userService.findUserByProfile(jwt);
-        List<Chat> chats = chatService.findAllByUserId(user.getId());
+        List<Chat> chats = size == null
+                ? chatService.findAllByUserId(user.getId())
+                : chatService.findAllByUserId(user.getId(), page, size);
+
+        List<UUID> chatIds = chats.stream().map(Chat::getId).toList();
+        Map<UUID, Map<UUID, LocalDateTime>> readWatermarks = readStateService.findWatermarks(chatIds);
+        Map<UUID, Long> unreadCounts = unreadCounterService.getUnreadCounts(chatIds, user.getId());
 
-        return new ResponseEntity<>(ChatDTO.fromChats(chats), HttpStatus.OK);
+        return new ResponseEntity<>(ChatDTO.fromChats(chats, readWatermarks, unreadCounts), HttpStatus.OK);
+    }
+
+    @GetMapping(value = "/user", params = ChatSummaryDTO.VIEW_PARAM)
+    public ResponseEntity<List<ChatSummaryDTO>> findAllChatSummariesByUserId(@RequestHeader(JwtConstants.TOKEN_HEADER) String jwt,
+                                                                             @RequestParam(defaultValue = "0") int page,
+                                                                             @RequestParam(required = false) Integer size)
+            throws UserException {
+
+        User user = userService.findUserByProfile(jwt);
+        List<Chat> chats = size == null
+                ? chatService.findAllByUserId(user.getId())
+                : chatService.findAllByUserId(user.getId(), page, size);
+        Map<UUID, Long> unreadCounts = unreadCounterService.getUnreadCounts(chats.stream().map(Chat::getId).toList(), user.getId());
+
+        return new ResponseEntity<>(ChatSummaryDTO.fromChats(chats, unreadCounts), HttpStatus.OK);
     }
 
     @PutMapping("/{chatId}/add/{userId}")
-    public ResponseEntity<ChatDTO> addUserToGroup(@PathVariable UUID chatId, @PathVariable UUID userId,
+    public ResponseEntity<ChatSummaryDTO> addUserToGroup(@PathVariable UUID chatId, @PathVariable UUID userId,
                                                   @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
             throws UserException, ChatException {
 
@@ -84,11 +129,11 @@ public class ChatController {
         Chat chat = chatService.addUserToGroup(userId, chatId, user);
         log.info("User {} added user {} to group chat: {}", user.getEmail(), userId, chat.getId());
 
-        return new ResponseEntity<>(ChatDTO.fromChat(chat), HttpStatus.OK);
+        return new ResponseEntity<>(ChatSummaryDTO.fromChat(chat), HttpStatus.OK);
     }
 
     @PutMapping("/{chatId}/remove/{userId}")
-    public ResponseEntity<ChatDTO> removeUserFromGroup(@PathVariable UUID chatId, @PathVariable UUID userId,
+    public ResponseEntity<ChatSummaryDTO> removeUserFromGroup(@PathVariable UUID chatId, @PathVariable UUID userId,
                                                        @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
             throws UserException, ChatException {
 
@@ -96,11 +141,11 @@ public class ChatController {
         Chat chat = chatService.removeFromGroup(chatId, userId, user);
         log.info("User {} removed user {} from group chat: {}", user.getEmail(), userId, chat.getId());
 
-        return new ResponseEntity<>(ChatDTO.fromChat(chat), HttpStatus.OK);
+        return new ResponseEntity<>(ChatSummaryDTO.fromChat(chat), HttpStatus.OK);
     }
 
     @PutMapping("/{chatId}/markAsRead")
-    public ResponseEntity<ChatDTO> markAsRead(@PathVariable UUID chatId,
+    public ResponseEntity<ChatSummaryDTO> markAsRead(@PathVariable UUID chatId,
                                               @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
             throws UserException, ChatException {
 
@@ -108,7 +153,7 @@ public class ChatController {
         Chat chat = chatService.markAsRead(chatId, user);
         log.info("Chat {} marked as read for user: {}", chatId, user.getEmail());
 
-        return new ResponseEntity<>(ChatDTO.fromChat(chat), HttpStatus.OK);
+        return new ResponseEntity<>(ChatSummaryDTO.fromChat(chat, 0L), HttpStatus.OK);
     }
 
     @PostMapping("/{chatId}/picture")
@@ -121,19 +166,25 @@ public class ChatController {
         Chat chat = chatService.findChatById(chatId);
 
         // Check if user is admin
-        if (!chat.getAdmins().contains(user)) {
+        if (!membershipIndex.isAdmin(chat.getId(), user.getId())) {
             throw new UserException("Only group admins can upload group picture");
         }
 
-        // Delete old picture if exists
-        if (chat.getGroupProfilePicture() != null && !chat.getGroupProfilePicture().isEmpty()) {
-            fileStorageService.deleteFile(chat.getGroupProfilePicture());
-        }
+        String oldPicture = chat.getGroupProfilePicture();
 
         // Save new picture
-        String filePath = fileStorageService.storeFile(file, "groups");
+        String filePath = avatarService.store(file);
         chat.setGroupProfilePicture(filePath);
-        chatService.updateChat(chat);
+        try {
+            chatService.updateChat(chat);
+        } catch (ChatException | RuntimeException e) {
+            // The chat never got to point at the new picture
+            avatarService.release(filePath);
+            throw e;
+        }
+
+        // Release the old picture only once nothing points at it any more
+        avatarService.release(oldPicture);
 
         log.info("Group picture uploaded for chat: {}", chatId);
 
@@ -154,14 +205,15 @@ public class ChatController {
         Chat chat = chatService.findChatById(chatId);
 
         // Check if user is admin
-        if (!chat.getAdmins().contains(user)) {
+        if (!membershipIndex.isAdmin(chat.getId(), user.getId())) {
             throw new UserException("Only group admins can delete group picture");
         }
 
         if (chat.getGroupProfilePicture() != null && !chat.getGroupProfilePicture().isEmpty()) {
-            fileStorageService.deleteFile(chat.getGroupProfilePicture());
+            String oldPicture = chat.getGroupProfilePicture();
             chat.setGroupProfilePicture(null);
             chatService.updateChat(chat);
+            avatarService.release(oldPicture);
         }
 
         ApiResponseDTO response = ApiResponseDTO.builder()
@@ -1,31 +1,40 @@
 package com.nicolas.chatapp.controllers;
 
 import com.nicolas.chatapp.config.JwtConstants;
+import com.nicolas.chatapp.dto.request.MessageCursorDTO;
 import com.nicolas.chatapp.dto.request.SendMessageRequestDTO;
 import com.nicolas.chatapp.dto.response.ApiResponseDTO;
 import com.nicolas.chatapp.dto.response.MessageDTO;
+import com.nicolas.chatapp.dto.response.MessagePageDTO;
 import com.nicolas.chatapp.exception.ChatException;
 import com.nicolas.chatapp.exception.MessageException;
 import com.nicolas.chatapp.exception.UserException;
 import com.nicolas.chatapp.model.Message;
 import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.service.ChatMembershipIndex;
+import com.nicolas.chatapp.service.FileDownloadService;
+import com.nicolas.chatapp.service.FileStorageService;
 import com.nicolas.chatapp.service.MessageService;
+import com.nicolas.chatapp.service.ReadStateService;
+import com.nicolas.chatapp.service.StoredFile;
 import com.nicolas.chatapp.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Path;
 import java.util.List;
+import java.util.Objects;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Slf4j
 @RestController
@@ -35,7 +44,10 @@ public class MessageController {
 
     private final UserService userService;
     private final MessageService messageService;
-    private final com.nicolas.chatapp.service.FileStorageService fileStorageService;
+    private final ReadStateService readStateService;
+    private final ChatMembershipIndex membershipIndex;
+    private final FileStorageService fileStorageService;
+    private final FileDownloadService fileDownloadService;
 
     @PostMapping("/create")
     public ResponseEntity<MessageDTO> sendMessage(@RequestBody SendMessageRequestDTO req,
@@ -57,7 +69,35 @@ public class MessageController {
         User user = userService.findUserByProfile(jwt);
         List<Message> messages = messageService.getChatMessages(chatId, user);
 
-        return new ResponseEntity<>(MessageDTO.fromMessages(messages), HttpStatus.OK);
+        return new ResponseEntity<>(MessageDTO.fromMessages(messages, readStateService.findWatermarks(chatId)), HttpStatus.OK);
+    }
+
+    @GetMapping("/chat/{chatId}/page")
+    public ResponseEntity<MessagePageDTO> getChatMessagePage(@PathVariable UUID chatId,
+                                                             @RequestParam(required = false) String before,
+                                                             @RequestParam(required = false) String after,
+                                                             @RequestParam(required = false) UUID around,
+                                                             @RequestParam(defaultValue = "50") int limit,
+                                                             @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
+            throws ChatException, UserException, MessageException {
+
+        long anchors = Stream.of(before, after, around).filter(Objects::nonNull).count();
+        if (anchors > 1) {
+            throw new MessageException("Only one of before, after or around can be used");
+        }
+
+        User user = userService.findUserByProfile(jwt);
+        MessagePageDTO page;
+        if (around != null) {
+            page = messageService.getChatMessagesAround(chatId, around, limit, user);
+        } else if (after != null) {
+            page = messageService.getChatMessagesAfter(chatId, MessageCursorDTO.decode(after), limit, user);
+        } else {
+            MessageCursorDTO cursor = before != null ? MessageCursorDTO.decode(before) : null;
+            page = messageService.getChatMessagesBefore(chatId, cursor, limit, user);
+        }
+
+        return new ResponseEntity<>(page, HttpStatus.OK);
     }
 
     @DeleteMapping("/{id}")
@@ -86,63 +126,123 @@ public class MessageController {
             throws ChatException, UserException, IOException {
 
         User user = userService.findUserByProfile(jwt);
-        
-        // Validate file size (max 50MB)
-        if (file.getSize() > 50 * 1024 * 1024) {
-            throw new RuntimeException("File size exceeds 50MB limit");
+
+        if (file.isEmpty()) {
+            throw new IOException("File is empty");
         }
 
         // Save file
-        String filePath = fileStorageService.storeFile(file, "messages");
+        StoredFile storedFile = fileStorageService.storeStream(file.getInputStream(), file.getOriginalFilename(),
+                file.getContentType());
         
         // Create message with file attachment
-        com.nicolas.chatapp.dto.request.SendMessageRequestDTO request = 
-            new com.nicolas.chatapp.dto.request.SendMessageRequestDTO(chatId, content != null ? content : "");
+        SendMessageRequestDTO request = new SendMessageRequestDTO(chatId, content != null ? content : "");
         
-        Message message = messageService.sendMessageWithFile(request, user.getId(), filePath, 
-                file.getOriginalFilename(), file.getContentType(), file.getSize());
+        Message message;
+        try {
+            message = messageService.sendMessageWithFile(request, user.getId(), storedFile, file.getOriginalFilename());
+        } catch (ChatException | UserException | RuntimeException e) {
+            // No message holds the reference the upload took
+            fileStorageService.release(storedFile.path());
+            throw e;
+        }
         
         log.info("User {} sent file message: {}", user.getEmail(), message.getId());
 
         return new ResponseEntity<>(MessageDTO.fromMessage(message), HttpStatus.OK);
     }
 
-    @GetMapping("/download/{messageId}")
-    public ResponseEntity<Resource> downloadFile(@PathVariable UUID messageId,
-                                                 @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
-            throws UserException, MessageException, IOException {
+    /**
+     * Streaming variant of {@link #uploadFileMessage}: the request body is the raw file, not a multipart
+     * form, so it is written straight to its final location instead of being spooled to a temp file first.
+     */
+    @PostMapping("/upload/stream")
+    public ResponseEntity<MessageDTO> streamFileMessage(
+            HttpServletRequest servletRequest,
+            @RequestParam("chatId") UUID chatId,
+            @RequestParam("fileName") String fileName,
+            @RequestParam(value = "content", required = false) String content,
+            @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
+            throws ChatException, UserException, IOException {
 
         User user = userService.findUserByProfile(jwt);
-        Message message = messageService.findMessageById(messageId);
-        
-        // Check if user has access to this message (is part of the chat)
-        if (!message.getChat().getUsers().contains(user)) {
-            throw new RuntimeException("Access denied to this file");
-        }
 
-        if (message.getFilePath() == null || message.getFilePath().isEmpty()) {
-            throw new RuntimeException("File not found for this message");
+        // Reject before reading the body rather than after it's on disk
+        if (!membershipIndex.isMember(chatId, user.getId())) {
+            throw new UserException("User is not related to chat");
         }
 
-        // Load file
-        Path filePath = fileStorageService.loadFile(message.getFilePath());
-        Resource resource = new UrlResource(filePath.toUri());
+        StoredFile storedFile = fileStorageService.storeStream(servletRequest.getInputStream(), fileName,
+                servletRequest.getContentType());
 
-        if (!resource.exists() || !resource.isReadable()) {
-            throw new RuntimeException("File not found or not readable");
+        SendMessageRequestDTO request = new SendMessageRequestDTO(chatId, content != null ? content : "");
+        Message message;
+        try {
+            message = messageService.sendMessageWithFile(request, user.getId(), storedFile, fileName);
+        } catch (ChatException | UserException | RuntimeException e) {
+            fileStorageService.release(storedFile.path());
+            throw e;
         }
 
+        log.info("User {} streamed file message: {} ({} bytes)", user.getEmail(), message.getId(), storedFile.size());
+
+        return new ResponseEntity<>(MessageDTO.fromMessage(message), HttpStatus.OK);
+    }
+
+    @GetMapping("/download/{messageId}")
+    public void downloadFile(@PathVariable UUID messageId,
+                             @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt,
+                             HttpServletRequest servletRequest,
+                             HttpServletResponse servletResponse)
+            throws UserException, MessageException, IOException {
+
+        Message message = findFileMessage(messageId, jwt);
+
         // Determine content type
         String contentType = message.getFileType();
         if (contentType == null || contentType.isEmpty()) {
             contentType = "application/octet-stream";
         }
 
-        return ResponseEntity.ok()
-                .contentType(MediaType.parseMediaType(contentType))
-                .header(HttpHeaders.CONTENT_DISPOSITION, 
-                        "attachment; filename=\"" + (message.getFileName() != null ? message.getFileName() : "file") + "\"")
-                .body(resource);
+        // Access is checked per request, so clients keep a private copy and revalidate it with the ETag
+        fileDownloadService.serve(servletRequest, servletResponse, message.getFilePath(), contentType,
+                "attachment; filename=\"" + (message.getFileName() != null ? message.getFileName() : "file") + "\"",
+                CacheControl.noCache().cachePrivate());
+    }
+
+    /**
+     * The thumbnail of an image attachment, for showing it inline; the original until the thumbnail has been
+     * rendered or when the image is small enough already.
+     */
+    @GetMapping("/download/{messageId}/thumbnail")
+    public void downloadThumbnail(@PathVariable UUID messageId,
+                                  @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt,
+                                  HttpServletRequest servletRequest,
+                                  HttpServletResponse servletResponse)
+            throws UserException, MessageException, IOException {
+
+        Message message = findFileMessage(messageId, jwt);
+        String filePath = message.getThumbnailPath() != null ? message.getThumbnailPath() : message.getFilePath();
+        String contentType = MediaTypeFactory.getMediaType(filePath).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+
+        fileDownloadService.serve(servletRequest, servletResponse, filePath, contentType, null,
+                CacheControl.noCache().cachePrivate());
+    }
+
+    private Message findFileMessage(UUID messageId, String jwt) throws UserException, MessageException {
+
+        User user = userService.findUserByProfile(jwt);
+        Message message = messageService.findMessageById(messageId);
+
+        // Check if user has access to this message (is part of the chat)
+        if (!membershipIndex.isMember(message.getChat().getId(), user.getId())) {
+            throw new RuntimeException("Access denied to this file");
+        }
+
+        if (message.getFilePath() == null || message.getFilePath().isEmpty()) {
+            throw new RuntimeException("File not found for this message");
+        }
+        return message;
     }
 
 }
@@ -6,7 +6,7 @@ import com.nicolas.chatapp.dto.response.ApiResponseDTO;
 import com.nicolas.chatapp.dto.response.UserDTO;
 import com.nicolas.chatapp.exception.UserException;
 import com.nicolas.chatapp.model.User;
-import com.nicolas.chatapp.service.FileStorageService;
+import com.nicolas.chatapp.service.AvatarService;
 import com.nicolas.chatapp.service.UserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,7 +25,7 @@ import java.io.IOException;
 public class ProfileController {
 
     private final UserService userService;
-    private final FileStorageService fileStorageService;
+    private final AvatarService avatarService;
 
     @GetMapping
     public ResponseEntity<UserDTO> getProfile(@RequestHeader(JwtConstants.TOKEN_HEADER) String jwt) throws UserException {
@@ -37,7 +37,8 @@ public class ProfileController {
     public ResponseEntity<UserDTO> updateProfile(
             @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt,
             @RequestBody UpdateProfileRequestDTO request) throws UserException {
-        User user = userService.findUserByProfile(jwt);
+        // Saved back below, so loaded fresh rather than from the principal cache
+        User user = userService.findUserById(userService.findUserByProfile(jwt).getId());
         
         if (request.fullName() != null && !request.fullName().isEmpty()) {
             user.setFullName(request.fullName());
@@ -57,17 +58,23 @@ public class ProfileController {
             @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt,
             @RequestParam("file") MultipartFile file) throws UserException, IOException {
         
-        User user = userService.findUserByProfile(jwt);
+        User user = userService.findUserById(userService.findUserByProfile(jwt).getId());
         
-        // Delete old profile picture if exists
-        if (user.getProfilePicture() != null && !user.getProfilePicture().isEmpty()) {
-            fileStorageService.deleteFile(user.getProfilePicture());
-        }
+        String oldPicture = user.getProfilePicture();
         
         // Save new profile picture
-        String filePath = fileStorageService.storeFile(file, "profiles");
+        String filePath = avatarService.store(file);
         user.setProfilePicture(filePath);
-        userService.updateUser(user);
+        try {
+            userService.updateUser(user);
+        } catch (UserException | RuntimeException e) {
+            // The user never got to point at the new picture
+            avatarService.release(filePath);
+            throw e;
+        }
+
+        // Release the old picture only once nothing points at it any more
+        avatarService.release(oldPicture);
         
         log.info("Profile picture uploaded for user: {}", user.getId());
         
@@ -83,12 +90,13 @@ public class ProfileController {
     public ResponseEntity<ApiResponseDTO> deleteProfilePicture(
             @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt) throws UserException {
         
-        User user = userService.findUserByProfile(jwt);
+        User user = userService.findUserById(userService.findUserByProfile(jwt).getId());
         
         if (user.getProfilePicture() != null && !user.getProfilePicture().isEmpty()) {
-            fileStorageService.deleteFile(user.getProfilePicture());
+            String oldPicture = user.getProfilePicture();
             user.setProfilePicture(null);
             userService.updateUser(user);
+            avatarService.release(oldPicture);
         }
         
         ApiResponseDTO response = ApiResponseDTO.builder()
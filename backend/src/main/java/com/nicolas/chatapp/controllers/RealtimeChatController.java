@@ -1,71 +1,52 @@
 package com.nicolas.chatapp.controllers;
 
 import com.nicolas.chatapp.dto.request.OnlineStatusDTO;
+import com.nicolas.chatapp.dto.request.ReplayRequestDTO;
 import com.nicolas.chatapp.dto.request.TypingIndicatorDTO;
-import com.nicolas.chatapp.model.Message;
-import com.nicolas.chatapp.model.User;
-import com.nicolas.chatapp.repository.ChatRepository;
-import com.nicolas.chatapp.repository.UserRepository;
+import com.nicolas.chatapp.service.PresenceService;
+import com.nicolas.chatapp.service.TypingService;
+import com.nicolas.chatapp.service.WebSocketFanoutService;
+import com.nicolas.chatapp.service.WebSocketSessionRegistry;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.handler.annotation.MessageMapping;
 import org.springframework.messaging.handler.annotation.Payload;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.stereotype.Controller;
 
-import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.Objects;
 
 @Slf4j
 @Controller
 @RequiredArgsConstructor
 public class RealtimeChatController {
 
-    private final SimpMessagingTemplate messagingTemplate;
-    private final ChatRepository chatRepository;
-    private final UserRepository userRepository;
+    private final WebSocketFanoutService fanoutService;
+    private final PresenceService presenceService;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final TypingService typingService;
 
-    @MessageMapping("/messages")
-    public void receiveMessage(@Payload Message message) {
-        for (User user : message.getChat().getUsers()) {
-            final String destination = "/topic/" + user.getId();
-            messagingTemplate.convertAndSend(destination, message);
-        }
+    @MessageMapping("/typing")
+    public void handleTyping(@Payload TypingIndicatorDTO typingIndicator, SimpMessageHeaderAccessor headers) {
+        // Coalesced per chat and sent as rate-capped summaries by the typing service
+        sessionRegistry.userId(headers.getSessionId())
+                .filter(userId -> userId.equals(typingIndicator.userId()))
+                .ifPresent(userId -> typingService.update(typingIndicator));
     }
 
-    @MessageMapping("/typing")
-    public void handleTyping(@Payload TypingIndicatorDTO typingIndicator) {
-        // Broadcast typing indicator to all users in the chat
-        chatRepository.findById(typingIndicator.chatId()).ifPresent(chat -> {
-            for (User user : chat.getUsers()) {
-                if (!user.getId().equals(typingIndicator.userId())) {
-                    final String destination = "/topic/" + user.getId() + "/typing";
-                    messagingTemplate.convertAndSend(destination, typingIndicator);
-                }
-            }
-        });
+    @MessageMapping("/replay")
+    public void handleReplay(@Payload ReplayRequestDTO request, SimpMessageHeaderAccessor headers) {
+        // Every session of the user gets the replay; clients drop sequences they have already seen
+        sessionRegistry.userId(headers.getSessionId())
+                .ifPresent(userId -> fanoutService.replay(userId, Objects.requireNonNullElse(request.lastSeq(), -1L)));
     }
 
     @MessageMapping("/online")
-    public void handleOnlineStatus(@Payload OnlineStatusDTO onlineStatus) {
-        // Update user online status in database
-        Optional<User> userOptional = userRepository.findById(onlineStatus.userId());
-        if (userOptional.isPresent()) {
-            User user = userOptional.get();
-            user.setIsOnline(onlineStatus.isOnline());
-            user.setLastSeen(LocalDateTime.now());
-            userRepository.save(user);
-
-            // Broadcast online status to all chats where this user is a member
-            chatRepository.findChatByUserId(user.getId()).forEach(chat -> {
-                for (User chatUser : chat.getUsers()) {
-                    if (!chatUser.getId().equals(user.getId())) {
-                        final String destination = "/topic/" + chatUser.getId() + "/online";
-                        messagingTemplate.convertAndSend(destination, onlineStatus);
-                    }
-                }
-            });
-        }
+    public void handleOnlineStatus(@Payload OnlineStatusDTO onlineStatus, SimpMessageHeaderAccessor headers) {
+        // Connect/disconnect already drive presence; this only lets a session report for its own user, e.g. idle tabs
+        sessionRegistry.userId(headers.getSessionId())
+                .filter(userId -> userId.equals(onlineStatus.userId()))
+                .ifPresent(userId -> presenceService.update(userId, Boolean.TRUE.equals(onlineStatus.isOnline())));
     }
 
 }
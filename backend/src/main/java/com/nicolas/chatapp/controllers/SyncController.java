@@ -0,0 +1,38 @@
+package com.nicolas.chatapp.controllers;
+
+import com.nicolas.chatapp.config.JwtConstants;
+import com.nicolas.chatapp.dto.request.SyncCursorDTO;
+import com.nicolas.chatapp.dto.response.SyncDTO;
+import com.nicolas.chatapp.exception.ChatException;
+import com.nicolas.chatapp.exception.UserException;
+import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.service.SyncService;
+import com.nicolas.chatapp.service.UserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    private final UserService userService;
+    private final SyncService syncService;
+
+    @GetMapping
+    public ResponseEntity<SyncDTO> sync(@RequestParam(required = false) String cursor,
+                                        @RequestParam(defaultValue = "500") int limit,
+                                        @RequestHeader(JwtConstants.TOKEN_HEADER) String jwt)
+            throws UserException, ChatException {
+
+        User user = userService.findUserByProfile(jwt);
+        SyncCursorDTO syncCursor = cursor != null ? SyncCursorDTO.decode(cursor) : null;
+
+        return new ResponseEntity<>(syncService.sync(user, syncCursor, limit), HttpStatus.OK);
+    }
+
+}
@@ -0,0 +1,41 @@
+package com.nicolas.chatapp.dto.request;
+
+import com.nicolas.chatapp.exception.MessageException;
+import com.nicolas.chatapp.model.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Keyset position of a message inside a chat, ordered by (timeStamp, id).
+ * Clients only ever see the opaque encoded form.
+ */
+public record MessageCursorDTO(LocalDateTime timeStamp, UUID id) {
+
+    private static final String SEPARATOR = "|";
+
+    public static MessageCursorDTO fromMessage(Message message) {
+        if (Objects.isNull(message)) return null;
+        return new MessageCursorDTO(message.getTimeStamp(), message.getId());
+    }
+
+    public static MessageCursorDTO decode(String cursor) throws MessageException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new MessageCursorDTO(LocalDateTime.parse(raw.substring(0, separator)),
+                    UUID.fromString(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new MessageException("Invalid message cursor " + cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = timeStamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
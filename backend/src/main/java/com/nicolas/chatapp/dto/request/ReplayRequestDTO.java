@@ -0,0 +1,7 @@
+package com.nicolas.chatapp.dto.request;
+
+/**
+ * Sent on {@code /app/replay} after reconnecting, with the highest {@code seq} header the client has seen.
+ */
+public record ReplayRequestDTO(Long lastSeq) {
+}
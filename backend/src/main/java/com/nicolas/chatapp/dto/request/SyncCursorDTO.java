@@ -0,0 +1,32 @@
+package com.nicolas.chatapp.dto.request;
+
+import com.nicolas.chatapp.exception.ChatException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the change log plus the time it was handed out, which tells whether the log
+ * may have been pruned past it. Clients only ever see the opaque encoded form.
+ */
+public record SyncCursorDTO(long changeId, long issuedAt) {
+
+    private static final String SEPARATOR = "|";
+
+    public static SyncCursorDTO decode(String cursor) throws ChatException {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            return new SyncCursorDTO(Long.parseLong(raw.substring(0, separator)),
+                    Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new ChatException("Invalid sync cursor " + cursor);
+        }
+    }
+
+    public String encode() {
+        String raw = changeId + SEPARATOR + issuedAt;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+}
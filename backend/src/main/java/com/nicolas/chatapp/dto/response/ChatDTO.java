@@ -1,8 +1,10 @@
 package com.nicolas.chatapp.dto.response;
 
 import com.nicolas.chatapp.model.Chat;
+import com.nicolas.chatapp.service.AvatarService;
 import lombok.Builder;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Builder
@@ -11,31 +13,63 @@ public record ChatDTO(
         String chatName,
         Boolean isGroup,
         String groupProfilePicture,
+        Map<Integer, String> groupProfilePictureSizes,
         String groupDescription,
         Set<UserDTO> admins,
         Set<UserDTO> users,
         UserDTO createdBy,
+        LocalDateTime lastMessageAt,
+        String lastMessagePreview,
+        UUID lastMessageSenderId,
+        Long messageCount,
+        Long unreadCount,
         List<MessageDTO> messages) {
 
     public static ChatDTO fromChat(Chat chat) {
+        return fromChat(chat, Map.of());
+    }
+
+    public static ChatDTO fromChat(Chat chat, Map<UUID, LocalDateTime> readWatermarks) {
+        return fromChat(chat, readWatermarks, null);
+    }
+
+    public static ChatDTO fromChat(Chat chat, Map<UUID, LocalDateTime> readWatermarks, Long unreadCount) {
         if (Objects.isNull(chat)) return null;
         return ChatDTO.builder()
                 .id(chat.getId())
                 .chatName(chat.getChatName())
                 .isGroup(chat.getIsGroup())
                 .groupProfilePicture(chat.getGroupProfilePicture())
+                .groupProfilePictureSizes(AvatarService.variantPaths(chat.getGroupProfilePicture()))
                 .groupDescription(chat.getGroupDescription())
                 .admins(UserDTO.fromUsers(chat.getAdmins()))
                 .users(UserDTO.fromUsers(chat.getUsers()))
                 .createdBy(UserDTO.fromUser(chat.getCreatedBy()))
-                .messages(MessageDTO.fromMessages(chat.getMessages()))
+                .lastMessageAt(chat.getLastMessageAt())
+                .lastMessagePreview(chat.getLastMessagePreview())
+                .lastMessageSenderId(chat.getLastMessageSender() != null ? chat.getLastMessageSender().getId() : null)
+                .messageCount(Objects.requireNonNullElse(chat.getMessageCount(), 0L))
+                .unreadCount(unreadCount)
+                .messages(MessageDTO.fromMessages(chat.getMessages(), readWatermarks))
                 .build();
     }
 
     public static List<ChatDTO> fromChats(Collection<Chat> chats) {
+        return fromChats(chats, Map.of());
+    }
+
+    public static List<ChatDTO> fromChats(Collection<Chat> chats, Map<UUID, Map<UUID, LocalDateTime>> readWatermarks) {
+        return fromChats(chats, readWatermarks, Map.of());
+    }
+
+    /**
+     * With the requesting user's unread count of each chat, so clients don't derive it from the message list.
+     */
+    public static List<ChatDTO> fromChats(Collection<Chat> chats, Map<UUID, Map<UUID, LocalDateTime>> readWatermarks,
+                                          Map<UUID, Long> unreadCounts) {
         if (Objects.isNull(chats)) return List.of();
         return chats.stream()
-                .map(ChatDTO::fromChat)
+                .map(chat -> fromChat(chat, readWatermarks.getOrDefault(chat.getId(), Map.of()), unreadCounts.get(chat.getId())))
                 .toList();
     }
 
@@ -0,0 +1,66 @@
+package com.nicolas.chatapp.dto.response;
+
+import com.nicolas.chatapp.model.Chat;
+import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.service.AvatarService;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Chat metadata without message history. History is only served through the message endpoints.
+ */
+@Builder
+public record ChatSummaryDTO(
+        UUID id,
+        String chatName,
+        Boolean isGroup,
+        String groupProfilePicture,
+        Map<Integer, String> groupProfilePictureSizes,
+        String groupDescription,
+        Set<UUID> adminIds,
+        Set<UserDTO> users,
+        UUID createdById,
+        LocalDateTime lastMessageAt,
+        String lastMessagePreview,
+        UUID lastMessageSenderId,
+        Long messageCount,
+        Long unreadCount) {
+
+    /** Request parameter that selects this representation on endpoints that default to {@link ChatDTO}. */
+    public static final String VIEW_PARAM = "view=summary";
+
+    public static ChatSummaryDTO fromChat(Chat chat) {
+        return fromChat(chat, null);
+    }
+
+    public static ChatSummaryDTO fromChat(Chat chat, Long unreadCount) {
+        if (Objects.isNull(chat)) return null;
+        return ChatSummaryDTO.builder()
+                .id(chat.getId())
+                .chatName(chat.getChatName())
+                .isGroup(chat.getIsGroup())
+                .groupProfilePicture(chat.getGroupProfilePicture())
+                .groupProfilePictureSizes(AvatarService.variantPaths(chat.getGroupProfilePicture()))
+                .groupDescription(chat.getGroupDescription())
+                .adminIds(chat.getAdmins().stream().map(User::getId).collect(Collectors.toSet()))
+                .users(UserDTO.fromUsers(chat.getUsers()))
+                .createdById(chat.getCreatedBy() != null ? chat.getCreatedBy().getId() : null)
+                .lastMessageAt(chat.getLastMessageAt())
+                .lastMessagePreview(chat.getLastMessagePreview())
+                .lastMessageSenderId(chat.getLastMessageSender() != null ? chat.getLastMessageSender().getId() : null)
+                .messageCount(Objects.requireNonNullElse(chat.getMessageCount(), 0L))
+                .unreadCount(unreadCount)
+                .build();
+    }
+
+    public static List<ChatSummaryDTO> fromChats(Collection<Chat> chats, Map<UUID, Long> unreadCounts) {
+        if (Objects.isNull(chats)) return List.of();
+        return chats.stream()
+                .map(chat -> fromChat(chat, unreadCounts.getOrDefault(chat.getId(), 0L)))
+                .toList();
+    }
+
+}
@@ -8,28 +8,60 @@ import java.util.*;
 
 @Builder
 public record MessageDTO(UUID id, String content, LocalDateTime timeStamp, UserDTO user, Set<UUID> readBy,
-                         String filePath, String fileName, String fileType, Long fileSize) {
+                         String filePath, String fileName, String fileType, Long fileSize, String fileChecksum,
+                         Integer imageWidth, Integer imageHeight, String thumbnailPath, String previewPath) {
 
     public static MessageDTO fromMessage(Message message) {
+        return fromMessage(message, Map.of());
+    }
+
+    /**
+     * @param readWatermarks last read timestamp per member of the message's chat, used to derive {@code readBy}
+     */
+    public static MessageDTO fromMessage(Message message, Map<UUID, LocalDateTime> readWatermarks) {
         if (Objects.isNull(message)) return null;
         return MessageDTO.builder()
                 .id(message.getId())
                 .content(message.getContent())
                 .timeStamp(message.getTimeStamp())
                 .user(UserDTO.fromUser(message.getUser()))
-                .readBy(new HashSet<>(message.getReadBy()))
+                .readBy(seenBy(message, readWatermarks))
                 .filePath(message.getFilePath())
                 .fileName(message.getFileName())
                 .fileType(message.getFileType())
                 .fileSize(message.getFileSize())
+                .fileChecksum(message.getFileChecksum())
+                .imageWidth(message.getImageWidth())
+                .imageHeight(message.getImageHeight())
+                .thumbnailPath(message.getThumbnailPath())
+                .previewPath(message.getPreviewPath())
                 .build();
     }
 
     public static List<MessageDTO> fromMessages(Collection<Message> messages) {
+        return fromMessages(messages, Map.of());
+    }
+
+    public static List<MessageDTO> fromMessages(Collection<Message> messages, Map<UUID, LocalDateTime> readWatermarks) {
         if (Objects.isNull(messages)) return List.of();
         return messages.stream()
-                .map(MessageDTO::fromMessage)
+                .map(message -> fromMessage(message, readWatermarks))
                 .toList();
     }
 
+    private static Set<UUID> seenBy(Message message, Map<UUID, LocalDateTime> readWatermarks) {
+        Set<UUID> seenBy = new HashSet<>();
+        if (Objects.nonNull(message.getUser())) {
+            seenBy.add(message.getUser().getId());
+        }
+        if (Objects.nonNull(message.getTimeStamp())) {
+            readWatermarks.forEach((userId, lastReadAt) -> {
+                if (!message.getTimeStamp().isAfter(lastReadAt)) {
+                    seenBy.add(userId);
+                }
+            });
+        }
+        return seenBy;
+    }
+
 }
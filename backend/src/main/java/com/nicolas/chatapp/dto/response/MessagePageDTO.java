@@ -0,0 +1,38 @@
+package com.nicolas.chatapp.dto.response;
+
+import com.nicolas.chatapp.dto.request.MessageCursorDTO;
+import com.nicolas.chatapp.model.Message;
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One slice of a chat history in chronological order. {@code olderCursor} and {@code newerCursor}
+ * point at the first and last message of the slice and are passed back as {@code before}/{@code after}.
+ */
+@Builder
+public record MessagePageDTO(List<MessageDTO> messages, String olderCursor, String newerCursor,
+                             boolean hasOlder, boolean hasNewer) {
+
+    public static MessagePageDTO fromMessages(List<Message> messages, Map<UUID, LocalDateTime> readWatermarks,
+                                              boolean hasOlder, boolean hasNewer) {
+        if (messages.isEmpty()) {
+            return MessagePageDTO.builder()
+                    .messages(List.of())
+                    .hasOlder(hasOlder)
+                    .hasNewer(hasNewer)
+                    .build();
+        }
+        return MessagePageDTO.builder()
+                .messages(MessageDTO.fromMessages(messages, readWatermarks))
+                .olderCursor(MessageCursorDTO.fromMessage(messages.get(0)).encode())
+                .newerCursor(MessageCursorDTO.fromMessage(messages.get(messages.size() - 1)).encode())
+                .hasOlder(hasOlder)
+                .hasNewer(hasNewer)
+                .build();
+    }
+
+}
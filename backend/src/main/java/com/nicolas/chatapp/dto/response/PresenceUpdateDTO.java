@@ -0,0 +1,11 @@
+package com.nicolas.chatapp.dto.response;
+
+import com.nicolas.chatapp.dto.request.OnlineStatusDTO;
+
+import java.util.List;
+
+/**
+ * All presence changes of a user's contacts since the previous update, sent on {@code /topic/{userId}/online}.
+ */
+public record PresenceUpdateDTO(List<OnlineStatusDTO> statuses) {
+}
@@ -0,0 +1,14 @@
+package com.nicolas.chatapp.dto.response;
+
+/**
+ * Tells a reconnecting client its missed events are no longer buffered and it should catch up over REST.
+ */
+public record ResyncDTO(String event, long lastSeq) {
+
+    public static final String EVENT = "resync";
+
+    public static ResyncDTO of(long lastSeq) {
+        return new ResyncDTO(EVENT, lastSeq);
+    }
+
+}
@@ -0,0 +1,36 @@
+package com.nicolas.chatapp.dto.response;
+
+import lombok.Builder;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Everything that changed in the user's chats since a sync cursor. {@code messages} are grouped by chat id,
+ * {@code chats} holds the current summary of every chat that changed, and {@code removedChatIds} the chats
+ * the user is no longer part of. When {@code reset} is set the client has to reload its chats and messages
+ * and continue from {@code cursor}.
+ */
+@Builder
+public record SyncDTO(Map<UUID, List<MessageDTO>> messages, List<UUID> deletedMessageIds,
+                      List<ChatSummaryDTO> chats, List<UUID> removedChatIds, List<ReadState> readStates,
+                      String cursor, boolean hasMore, boolean reset) {
+
+    public record ReadState(UUID chatId, UUID userId, LocalDateTime lastReadAt) {
+    }
+
+    public static SyncDTO reset(String cursor) {
+        return SyncDTO.builder()
+                .messages(Map.of())
+                .deletedMessageIds(List.of())
+                .chats(List.of())
+                .removedChatIds(List.of())
+                .readStates(List.of())
+                .cursor(cursor)
+                .reset(true)
+                .build();
+    }
+
+}
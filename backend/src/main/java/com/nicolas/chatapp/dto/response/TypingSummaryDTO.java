@@ -0,0 +1,11 @@
+package com.nicolas.chatapp.dto.response;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Who is typing in a chat, sent on {@code /topic/{userId}/typing}. Large groups only get the count,
+ * e.g. "5 people are typing"; an empty summary means everyone stopped.
+ */
+public record TypingSummaryDTO(UUID chatId, List<UUID> userIds, List<String> userNames, int count) {
+}
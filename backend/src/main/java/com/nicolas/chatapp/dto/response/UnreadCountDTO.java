@@ -0,0 +1,16 @@
+package com.nicolas.chatapp.dto.response;
+
+import java.util.UUID;
+
+/**
+ * Badge update pushed on the user's personal topic. The {@code event} field tells it apart from message frames.
+ */
+public record UnreadCountDTO(String event, UUID chatId, long unreadCount) {
+
+    public static final String EVENT = "unread";
+
+    public static UnreadCountDTO of(UUID chatId, long unreadCount) {
+        return new UnreadCountDTO(EVENT, chatId, unreadCount);
+    }
+
+}
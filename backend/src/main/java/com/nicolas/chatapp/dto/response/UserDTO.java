@@ -1,6 +1,7 @@
 package com.nicolas.chatapp.dto.response;
 
 import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.service.AvatarService;
 import lombok.Builder;
 
 import java.util.*;
@@ -8,7 +9,7 @@ import java.util.stream.Collectors;
 
 @Builder
 public record UserDTO(UUID id, String email, String phoneNumber, String fullName, String bio, 
-                      String profilePicture, Boolean isOnline, java.time.LocalDateTime lastSeen, Boolean otpVerified) {
+                      String profilePicture, Map<Integer, String> profilePictureSizes, Boolean isOnline, java.time.LocalDateTime lastSeen, Boolean otpVerified) {
 
     public static UserDTO fromUser(User user) {
         if (Objects.isNull(user)) return null;
@@ -19,6 +20,7 @@ public record UserDTO(UUID id, String email, String phoneNumber, String fullName
                 .fullName(user.getFullName())
                 .bio(user.getBio())
                 .profilePicture(user.getProfilePicture())
+                .profilePictureSizes(AvatarService.variantPaths(user.getProfilePicture()))
                 .isOnline(user.getIsOnline())
                 .lastSeen(user.getLastSeen())
                 .otpVerified(user.getOtpVerified())
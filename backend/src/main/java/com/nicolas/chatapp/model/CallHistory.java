@@ -19,7 +19,7 @@ import java.util.UUID;
 public class CallHistory {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.UUID)
+    @TimeOrderedUuid
     private UUID id;
 
     @ManyToOne
@@ -0,0 +1,68 @@
+package com.nicolas.chatapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * One change to a chat, its members, messages or read state, in commit order of {@code id}.
+ * Clients sync from a position in this log instead of re-reading every chat.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "change_log", indexes = {
+        @Index(name = "idx_change_log_chat_id", columnList = "chat_id, id"),
+        @Index(name = "idx_change_log_user_id", columnList = "user_id, id"),
+        @Index(name = "idx_change_log_created_at", columnList = "created_at")
+})
+public class ChangeLogEntry {
+
+    public enum Type {
+        MESSAGE_CREATED,
+        MESSAGE_DELETED,
+        MEMBER_ADDED,
+        MEMBER_REMOVED,
+        CHAT_UPDATED,
+        CHAT_DELETED,
+        CHAT_READ
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_log_seq")
+    // One id per insert: pooled blocks would let each instance write ids from its own block, out of commit order
+    @SequenceGenerator(name = "change_log_seq", sequenceName = "change_log_seq", allocationSize = 1)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 32)
+    private Type type;
+
+    @Column(name = "chat_id", nullable = false)
+    private UUID chatId;
+
+    // The member a membership, deletion or read change is about; null for message and chat changes
+    @Column(name = "user_id")
+    private UUID userId;
+
+    // The message for message changes
+    private UUID entityId;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Override
+    public String toString() {
+        return "ChangeLogEntry{" +
+                "id=" + id +
+                ", type=" + type +
+                ", chatId=" + chatId +
+                '}';
+    }
+
+}
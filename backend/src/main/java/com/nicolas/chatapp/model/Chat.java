@@ -2,8 +2,9 @@ package com.nicolas.chatapp.model;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.UuidGenerator;
+import org.hibernate.annotations.DynamicUpdate;
 
+import java.time.LocalDateTime;
 import java.util.*;
 
 @Getter
@@ -12,11 +13,12 @@ import java.util.*;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@DynamicUpdate
+@Table(indexes = @Index(name = "idx_chat_last_message_at", columnList = "last_message_at"))
 public class Chat {
 
     @Id
-    @GeneratedValue
-    @UuidGenerator
+    @TimeOrderedUuid
     private UUID id;
 
     private String chatName;
@@ -33,7 +35,16 @@ public class Chat {
     @ManyToOne
     private User createdBy;
 
-    @OneToMany(cascade = CascadeType.ALL)
+    // Activity summary, maintained with atomic updates on send and delete
+    private LocalDateTime lastMessageAt;
+    private String lastMessagePreview;
+    private Long messageCount;
+
+    @ManyToOne
+    private User lastMessageSender;
+
+    @OneToMany(mappedBy = "chat", cascade = CascadeType.ALL)
+    @OrderBy("timeStamp ASC, id ASC")
     private List<Message> messages = new ArrayList<>();
 
     @Override
@@ -0,0 +1,47 @@
+package com.nicolas.chatapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Read watermark of one member in one chat: every message up to {@code lastReadAt} counts as read.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_chat_read_state_chat_user", columnNames = {"chat_id", "user_id"}))
+public class ChatReadState {
+
+    @Id
+    @TimeOrderedUuid
+    private UUID id;
+
+    @Column(name = "chat_id", nullable = false)
+    private UUID chatId;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    private LocalDateTime lastReadAt;
+    private UUID lastReadMessageId;
+
+    // Last checkpoint of the in-memory unread counter and the time it was taken
+    private Long unreadCount;
+    private LocalDateTime unreadCountAt;
+
+    @Override
+    public String toString() {
+        return "ChatReadState{" +
+                "chatId=" + chatId +
+                ", userId=" + userId +
+                ", lastReadAt=" + lastReadAt +
+                '}';
+    }
+
+}
@@ -2,25 +2,22 @@ package com.nicolas.chatapp.model;
 
 import jakarta.persistence.*;
 import lombok.*;
-import org.hibernate.annotations.UuidGenerator;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
 import java.util.Objects;
-import java.util.Set;
 import java.util.UUID;
 
 @Getter
 @Setter
 @Entity
 @Builder
+@Table(indexes = @Index(name = "idx_message_chat_time_id", columnList = "chat_id, time_stamp, id"))
 @NoArgsConstructor
 @AllArgsConstructor
 public class Message {
 
     @Id
-    @GeneratedValue
-    @UuidGenerator
+    @TimeOrderedUuid
     private UUID id;
 
     private String content;
@@ -31,6 +28,14 @@ public class Message {
     private String fileName;
     private String fileType; // MIME type (e.g., "image/jpeg", "application/pdf")
     private Long fileSize; // Size in bytes
+    @Column(length = 64)
+    private String fileChecksum; // Hex SHA-256 of the content
+
+    // Image attachments, filled in by ThumbnailService after the message is sent
+    private Integer imageWidth;
+    private Integer imageHeight;
+    private String thumbnailPath;
+    private String previewPath;
 
     @ManyToOne
     private User user;
@@ -38,9 +43,6 @@ public class Message {
     @ManyToOne
     private Chat chat;
 
-    @ElementCollection
-    private Set<UUID> readBy = new HashSet<>();
-
     @Override
     public boolean equals(Object obj) {
         if (this == obj) {
@@ -0,0 +1,36 @@
+package com.nicolas.chatapp.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * An uploaded file stored once under its SHA-256, however many messages, profile pictures and group
+ * pictures point at it. {@code refCount} is the number of those columns holding {@code path}.
+ */
+@Getter
+@Setter
+@Entity
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stored_object")
+public class StoredObject {
+
+    @Id
+    @Column(length = 64)
+    private String sha256;
+
+    @Column(nullable = false, unique = true)
+    private String path;
+
+    private Long size;
+    private String contentType;
+
+    @Column(nullable = false)
+    private Long refCount;
+
+    private LocalDateTime createdAt;
+
+}
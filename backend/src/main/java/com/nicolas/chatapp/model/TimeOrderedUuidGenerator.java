@@ -0,0 +1,45 @@
+package com.nicolas.chatapp.model;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUIDv7 ids: 48 bits of Unix milliseconds, then a 12 bit sequence in the rand_a field and
+ * 62 random bits. The millisecond and sequence are advanced together, so ids from one node
+ * are strictly increasing even within the same millisecond, and new rows land at the right
+ * edge of the primary key index instead of a random page.
+ */
+public class TimeOrderedUuidGenerator implements IdentifierGenerator {
+
+    private static final int SEQUENCE_BITS = 12;
+    private static final AtomicLong LAST_TICK = new AtomicLong();
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return next();
+    }
+
+    public static UUID next() {
+
+        long now = System.currentTimeMillis() << SEQUENCE_BITS;
+        // When the sequence runs out within a millisecond it carries into the next one, keeping order
+        long tick = LAST_TICK.updateAndGet(last -> Math.max(now, last + 1));
+
+        long mostSigBits = (tick >>> SEQUENCE_BITS) << 16
+                | 0x7000L
+                | (tick & ((1L << SEQUENCE_BITS) - 1));
+        long leastSigBits = ThreadLocalRandom.current().nextLong() >>> 2 | 0x8000000000000000L;
+
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    public static Instant timestampOf(UUID id) {
+        return Instant.ofEpochMilli(id.getMostSignificantBits() >>> 16);
+    }
+
+}
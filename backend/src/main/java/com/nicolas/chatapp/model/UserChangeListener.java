@@ -0,0 +1,24 @@
+package com.nicolas.chatapp.model;
+
+import com.nicolas.chatapp.config.PrincipalCache;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops cached principals whenever a user row is updated or deleted, whichever code path saved it.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserChangeListener {
+
+    private final PrincipalCache principalCache;
+
+    @PostUpdate
+    @PostRemove
+    public void userChanged(User user) {
+        principalCache.invalidate(user.getId());
+    }
+
+}
@@ -0,0 +1,34 @@
+package com.nicolas.chatapp.repository;
+
+import com.nicolas.chatapp.model.ChangeLogEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ChangeLogRepository extends JpaRepository<ChangeLogEntry, Long> {
+
+    @Query("SELECT e FROM ChangeLogEntry e WHERE e.id > :afterId AND (e.chatId IN :chatIds OR e.userId = :userId) " +
+            "ORDER BY e.id ASC")
+    List<ChangeLogEntry> findChangesAfter(@Param("afterId") long afterId, @Param("chatIds") Collection<UUID> chatIds,
+                                          @Param("userId") UUID userId, Pageable pageable);
+
+    @Query("SELECT e FROM ChangeLogEntry e WHERE e.id > :afterId AND e.userId = :userId ORDER BY e.id ASC")
+    List<ChangeLogEntry> findChangesAfter(@Param("afterId") long afterId, @Param("userId") UUID userId, Pageable pageable);
+
+    @Query("SELECT MAX(e.id) FROM ChangeLogEntry e WHERE e.createdAt <= :createdAt")
+    Long findLastIdCreatedBefore(@Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("DELETE FROM ChangeLogEntry e WHERE e.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+}
@@ -0,0 +1,58 @@
+package com.nicolas.chatapp.repository;
+
+import com.nicolas.chatapp.model.ChatReadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ChatReadStateRepository extends JpaRepository<ChatReadState, UUID> {
+
+    // Scalar projection so watermarks advanced by bulk updates are never shadowed by managed entities
+    @Query("SELECT s.chatId, s.userId, s.lastReadAt FROM ChatReadState s WHERE s.chatId IN :chatIds AND s.lastReadAt IS NOT NULL")
+    List<Object[]> findWatermarksByChatIds(@Param("chatIds") Collection<UUID> chatIds);
+
+    // Upserts on the (chat, user) constraint so concurrent first reads can't both insert; never moves a watermark back
+    @Modifying
+    @Query(value = "INSERT INTO chat_read_state (id, chat_id, user_id, last_read_at, last_read_message_id) " +
+            "VALUES (:id, :chatId, :userId, :readAt, :messageId) " +
+            "ON CONFLICT (chat_id, user_id) DO UPDATE SET last_read_at = EXCLUDED.last_read_at, " +
+            "last_read_message_id = EXCLUDED.last_read_message_id " +
+            "WHERE chat_read_state.last_read_at IS NULL OR chat_read_state.last_read_at < EXCLUDED.last_read_at",
+            nativeQuery = true)
+    int advance(@Param("id") UUID id, @Param("chatId") UUID chatId, @Param("userId") UUID userId,
+                @Param("readAt") LocalDateTime readAt, @Param("messageId") UUID messageId);
+
+    // Leaves an existing read state alone, a member who rejoins keeps their old watermark
+    @Modifying
+    @Query(value = "INSERT INTO chat_read_state (id, chat_id, user_id, last_read_at) VALUES (:id, :chatId, :userId, :readAt) " +
+            "ON CONFLICT (chat_id, user_id) DO NOTHING",
+            nativeQuery = true)
+    int seed(@Param("id") UUID id, @Param("chatId") UUID chatId, @Param("userId") UUID userId,
+             @Param("readAt") LocalDateTime readAt);
+
+    @Query("SELECT s.chatId, s.userId, s.unreadCount, s.unreadCountAt, s.lastReadAt FROM ChatReadState s " +
+            "WHERE s.chatId IN :chatIds AND s.userId IN :userIds AND (s.unreadCountAt IS NOT NULL OR s.lastReadAt IS NOT NULL)")
+    List<Object[]> findUnreadCheckpoints(@Param("chatIds") Collection<UUID> chatIds, @Param("userIds") Collection<UUID> userIds);
+
+    @Modifying
+    @Query(value = "INSERT INTO chat_read_state (id, chat_id, user_id, unread_count, unread_count_at) " +
+            "VALUES (:id, :chatId, :userId, :unreadCount, :checkpointAt) " +
+            "ON CONFLICT (chat_id, user_id) DO UPDATE SET unread_count = EXCLUDED.unread_count, " +
+            "unread_count_at = EXCLUDED.unread_count_at",
+            nativeQuery = true)
+    int checkpointUnreadCount(@Param("id") UUID id, @Param("chatId") UUID chatId, @Param("userId") UUID userId,
+                              @Param("unreadCount") Long unreadCount, @Param("checkpointAt") LocalDateTime checkpointAt);
+
+    @Modifying
+    @Query("DELETE FROM ChatReadState s WHERE s.chatId = :chatId")
+    void deleteByChatId(@Param("chatId") UUID chatId);
+
+}
@@ -2,11 +2,14 @@ package com.nicolas.chatapp.repository;
 
 import com.nicolas.chatapp.model.Chat;
 import com.nicolas.chatapp.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -17,6 +20,40 @@ public interface ChatRepository extends JpaRepository<Chat, UUID> {
     @Query("select c from Chat c join c.users u where u.id = :userId")
     List<Chat> findChatByUserId(@Param("userId") UUID userId);
 
+    @Query("select u.id from Chat c join c.users u where c.id = :chatId")
+    List<UUID> findMemberIds(@Param("chatId") UUID chatId);
+
+    @Query("select a.id from Chat c join c.admins a where c.id = :chatId")
+    List<UUID> findAdminIds(@Param("chatId") UUID chatId);
+
+    @Query("select c.id from Chat c join c.users u where u.id = :userId")
+    List<UUID> findChatIdsByMemberId(@Param("userId") UUID userId);
+
+    long countByGroupProfilePicture(String groupProfilePicture);
+
+    @Query("select c from Chat c join c.users u where u.id = :userId order by c.lastMessageAt desc nulls last, c.id")
+    List<Chat> findChatsByUserIdOrderByActivity(@Param("userId") UUID userId, Pageable pageable);
+
+    @Modifying
+    @Query("update Chat c set c.messageCount = coalesce(c.messageCount, 0) + :count where c.id = :chatId")
+    int incrementMessageCount(@Param("chatId") UUID chatId, @Param("count") long count);
+
+    /**
+     * Moves the chat's preview to the given message unless a newer one got there first; concurrent sends
+     * commit in any order.
+     */
+    @Modifying
+    @Query("update Chat c set c.lastMessageAt = :timeStamp, c.lastMessagePreview = :preview, c.lastMessageSender = :sender " +
+            "where c.id = :chatId and (c.lastMessageAt is null or c.lastMessageAt <= :timeStamp)")
+    int recordMessageSent(@Param("chatId") UUID chatId, @Param("timeStamp") LocalDateTime timeStamp,
+                          @Param("preview") String preview, @Param("sender") User sender);
+
+    @Modifying
+    @Query("update Chat c set c.lastMessageAt = :timeStamp, c.lastMessagePreview = :preview, c.lastMessageSender = :sender, " +
+            "c.messageCount = case when c.messageCount > 0 then c.messageCount - 1 else 0 end where c.id = :chatId")
+    int recordMessageDeleted(@Param("chatId") UUID chatId, @Param("timeStamp") LocalDateTime timeStamp,
+                             @Param("preview") String preview, @Param("sender") User sender);
+
     @Query("SELECT c FROM Chat c WHERE c.isGroup = false AND :user2 MEMBER OF c.users AND :reqUser MEMBER OF c.users")
     Optional<Chat> findSingleChatByUsers(@Param("user2") User user2, @Param("reqUser") User reqUser);
 
@@ -1,9 +1,15 @@
 package com.nicolas.chatapp.repository;
 
 import com.nicolas.chatapp.model.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -12,4 +18,42 @@ public interface MessageRepository extends JpaRepository<Message, UUID> {
 
     List<Message> findByChat_Id(UUID chatId);
 
+    @Query("SELECT m.filePath FROM Message m WHERE m.chat.id = :chatId AND m.filePath IS NOT NULL")
+    List<String> findFilePathsByChatId(@Param("chatId") UUID chatId);
+
+    long countByFilePath(String filePath);
+
+    @Modifying
+    @Query("UPDATE Message m SET m.imageWidth = :width, m.imageHeight = :height, " +
+            "m.thumbnailPath = :thumbnailPath, m.previewPath = :previewPath WHERE m.filePath = :filePath")
+    int updateImageVariants(@Param("filePath") String filePath, @Param("width") int width, @Param("height") int height,
+                            @Param("thumbnailPath") String thumbnailPath, @Param("previewPath") String previewPath);
+
+    @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId ORDER BY m.timeStamp DESC, m.id DESC")
+    List<Message> findLatestByChatId(@Param("chatId") UUID chatId, Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId " +
+            "AND (m.timeStamp < :timeStamp OR (m.timeStamp = :timeStamp AND m.id < :id)) " +
+            "ORDER BY m.timeStamp DESC, m.id DESC")
+    List<Message> findBeforeCursor(@Param("chatId") UUID chatId, @Param("timeStamp") LocalDateTime timeStamp,
+                                   @Param("id") UUID id, Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.chat.id = :chatId " +
+            "AND (m.timeStamp > :timeStamp OR (m.timeStamp = :timeStamp AND m.id > :id)) " +
+            "ORDER BY m.timeStamp ASC, m.id ASC")
+    List<Message> findAfterCursor(@Param("chatId") UUID chatId, @Param("timeStamp") LocalDateTime timeStamp,
+                                  @Param("id") UUID id, Pageable pageable);
+
+    /**
+     * Per (chat, user) with a read state, the messages from others after its unread checkpoint or, when the
+     * user read the chat after that checkpoint, after the read watermark.
+     */
+    @Query("SELECT s.chatId, s.userId, COUNT(m) FROM ChatReadState s, Message m " +
+            "WHERE s.chatId IN :chatIds AND s.userId IN :userIds AND m.chat.id = s.chatId AND m.user.id <> s.userId " +
+            "AND m.timeStamp > CASE WHEN s.unreadCountAt IS NULL OR s.lastReadAt > s.unreadCountAt " +
+            "THEN s.lastReadAt ELSE s.unreadCountAt END " +
+            "GROUP BY s.chatId, s.userId")
+    List<Object[]> countFromOthersSinceReadStates(@Param("chatIds") Collection<UUID> chatIds,
+                                                  @Param("userIds") Collection<UUID> userIds);
+
 }
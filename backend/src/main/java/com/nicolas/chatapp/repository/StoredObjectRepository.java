@@ -0,0 +1,9 @@
+package com.nicolas.chatapp.repository;
+
+import com.nicolas.chatapp.model.StoredObject;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface StoredObjectRepository extends JpaRepository<StoredObject, String> {
+}
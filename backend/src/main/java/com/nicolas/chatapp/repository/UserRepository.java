@@ -18,6 +18,8 @@ public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByPhoneNumber(String phoneNumber);
 
+    long countByProfilePicture(String profilePicture);
+
     @Query("SELECT u FROM APP_USER u WHERE u.fullName LIKE %:fullName%")
     List<User> findByFullName(@Param("fullName") String fullName);
 
@@ -0,0 +1,259 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.exception.UserException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Profile and group pictures. On upload the picture is cropped to a square and rendered at each of
+ * {@link #SIZES} as {@code <sha256>-avatar-<size>.jpg} next to the original, so a chat list asks for a few
+ * kilobytes per avatar instead of the original photo. The variants' URLs carry the content hash and are
+ * cached by clients for good.
+ * <p>
+ * The same few avatars are requested over and over by every chat list render, so the encoded variants are
+ * kept in a least-recently-used cache bounded by {@code chat.avatars.cache-size} and hits are written
+ * straight from the heap, without touching the file system. Variants are only rendered on upload; a size
+ * missing on disk is answered with 404 rather than rendered on request, so a request can't make the server
+ * decode arbitrary stored files.
+ */
+@Slf4j
+@Service
+public class AvatarService {
+
+    public static final List<Integer> SIZES = List.of(64, 128, 256);
+
+    private static final Pattern VARIANT = Pattern.compile("content/[0-9a-f]{2}/([0-9a-f]{64})-avatar-(\\d+)\\.jpg");
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+
+    private final FileStorageService fileStorageService;
+    private final long maxCachedBytes;
+    private final Counter hits;
+    private final Counter misses;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Guarded by lock; in access order, so the eldest entry is the least recently served
+    private final LinkedHashMap<String, Avatar> cache = new LinkedHashMap<>(64, 0.75f, true);
+    private long cachedBytes;
+
+    public AvatarService(FileStorageService fileStorageService,
+                         MeterRegistry meterRegistry,
+                         @Value("${chat.avatars.cache-size:16MB}") DataSize cacheSize) {
+        this.fileStorageService = fileStorageService;
+        this.maxCachedBytes = cacheSize.toBytes();
+        this.hits = meterRegistry.counter("chat.avatars.cache.hits");
+        this.misses = meterRegistry.counter("chat.avatars.cache.misses");
+    }
+
+    /**
+     * Stores an uploaded picture and renders its avatar sizes. The returned path holds one reference for the
+     * user or chat it's assigned to, to be given back with {@link #release(String)}.
+     */
+    public String store(MultipartFile file) throws IOException, UserException {
+
+        if (file.isEmpty()) {
+            throw new IOException("File is empty");
+        }
+
+        StoredFile stored = fileStorageService.storeStream(file.getInputStream(), file.getOriginalFilename(),
+                file.getContentType());
+        try {
+            if (stored.contentType().startsWith("image/") && render(stored.path())) {
+                return stored.path();
+            }
+        } catch (IOException | RuntimeException e) {
+            // The reference taken for the caller would never be given back otherwise
+            fileStorageService.release(stored.path());
+            throw e;
+        }
+        fileStorageService.release(stored.path());
+        throw new UserException("Picture must be an image");
+    }
+
+    /**
+     * Releases a picture no longer assigned to anything and, once the file is gone, drops its cached variants.
+     */
+    public void release(String filePath) {
+
+        fileStorageService.release(filePath);
+
+        if (filePath != null && !filePath.isEmpty() && !Files.exists(fileStorageService.loadFile(filePath))) {
+            lock.lock();
+            try {
+                for (String variant : variantPaths(filePath).values()) {
+                    Avatar removed = cache.remove(variant);
+                    if (removed != null) {
+                        cachedBytes -= removed.bytes().length;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Paths of the avatar sizes of the picture at {@code filePath}, by size. Empty for pictures from before
+     * content addressing, which are only available at their original size.
+     */
+    public static Map<Integer, String> variantPaths(String filePath) {
+
+        if (filePath == null || FileStorageService.derivedPath(filePath, "", "") == null) {
+            return Map.of();
+        }
+
+        Map<Integer, String> paths = new LinkedHashMap<>();
+        for (int size : SIZES) {
+            paths.put(size, variantPath(filePath, size));
+        }
+        return paths;
+    }
+
+    public boolean isAvatar(String filePath) {
+        return VARIANT.matcher(filePath).matches();
+    }
+
+    /**
+     * Writes the avatar at {@code filePath}, one of the paths from {@link #variantPaths(String)}.
+     */
+    public void serve(HttpServletRequest request, HttpServletResponse response, String filePath) throws IOException {
+
+        Avatar avatar;
+        lock.lock();
+        try {
+            avatar = cache.get(filePath);
+        } finally {
+            lock.unlock();
+        }
+
+        if (avatar != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            avatar = load(filePath);
+            if (avatar == null) {
+                response.sendError(HttpServletResponse.SC_NOT_FOUND);
+                return;
+            }
+        }
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(avatar.etag())) {
+            return;
+        }
+
+        response.setContentType(MediaType.IMAGE_JPEG_VALUE);
+        response.setContentLength(avatar.bytes().length);
+        if (!HttpMethod.HEAD.matches(request.getMethod())) {
+            response.getOutputStream().write(avatar.bytes());
+        }
+    }
+
+    /**
+     * Renders whichever avatar sizes of the picture at {@code filePath} aren't on disk yet. Returns false for
+     * files ImageIO can't read, images too large to decode and paths from before content addressing.
+     */
+    boolean render(String filePath) throws IOException {
+
+        if (FileStorageService.derivedPath(filePath, "", "") == null) {
+            return false;
+        }
+
+        Boolean rendered = ImageScaling.read(fileStorageService.loadFile(filePath), (reader, width, height) -> {
+            List<Integer> missing = SIZES.stream()
+                    .filter(size -> !Files.exists(fileStorageService.loadFile(variantPath(filePath, size))))
+                    .toList();
+            if (missing.isEmpty()) {
+                return true;
+            }
+
+            // Decoded and cropped once at the largest size, the smaller ones are scaled down from it
+            int largest = SIZES.get(SIZES.size() - 1);
+            int side = Math.min(width, height);
+            BufferedImage square = ImageScaling.squareCrop(ImageScaling.decode(reader, side, side, largest), largest);
+            for (int size : missing) {
+                storeVariant(filePath, ImageScaling.scale(square, size), size);
+            }
+            return true;
+        });
+        return Boolean.TRUE.equals(rendered);
+    }
+
+    private Avatar load(String filePath) throws IOException {
+
+        Matcher matcher = VARIANT.matcher(filePath);
+        if (!matcher.matches() || !SIZES.contains(Integer.parseInt(matcher.group(2)))) {
+            return null;
+        }
+
+        Path file = fileStorageService.loadFile(filePath);
+        if (!Files.exists(file)) {
+            return null;
+        }
+
+        Avatar avatar = new Avatar(Files.readAllBytes(file), "\"" + fileStorageService.contentHash(filePath) + "\"");
+        cache(filePath, avatar);
+        return avatar;
+    }
+
+    private void cache(String filePath, Avatar avatar) {
+
+        // A single variant taking up a large share of the cache would only push out many others
+        if (avatar.bytes().length > maxCachedBytes / 16) {
+            return;
+        }
+
+        lock.lock();
+        try {
+            Avatar previous = cache.put(filePath, avatar);
+            cachedBytes += avatar.bytes().length - (previous != null ? previous.bytes().length : 0);
+
+            Iterator<Avatar> eldest = cache.values().iterator();
+            while (cachedBytes > maxCachedBytes && eldest.hasNext()) {
+                cachedBytes -= eldest.next().bytes().length;
+                eldest.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void storeVariant(String filePath, BufferedImage image, int size) throws IOException {
+
+        Path rendered = fileStorageService.createTempFile(".avatar-");
+        try {
+            ImageScaling.writeJpeg(image, rendered);
+            fileStorageService.storeDerived(filePath, variantPath(filePath, size), rendered);
+        } finally {
+            Files.deleteIfExists(rendered);
+        }
+    }
+
+    private static String variantPath(String filePath, int size) {
+        return FileStorageService.derivedPath(filePath, "avatar-" + size, ".jpg");
+    }
+
+    private record Avatar(byte[] bytes, String etag) {
+    }
+
+}
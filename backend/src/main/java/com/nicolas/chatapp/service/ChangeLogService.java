@@ -0,0 +1,147 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.dto.request.SyncCursorDTO;
+import com.nicolas.chatapp.model.ChangeLogEntry;
+import com.nicolas.chatapp.model.Message;
+import com.nicolas.chatapp.repository.ChangeLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Appends chat changes to the change log and reads them back per user.
+ * <p>
+ * Log ids are drawn from the sequence one at a time, in order across instances, but before commit, so a
+ * transaction that commits late can land below an id a client has already synced past. Cursors therefore never move beyond entries younger than
+ * {@code chat.sync.settle-ms}; those are sent again on the next sync and must be applied idempotently.
+ */
+@Slf4j
+@Service
+public class ChangeLogService {
+
+    private final ChangeLogRepository changeLogRepository;
+    private final ChatMembershipIndex membershipIndex;
+    private final Duration settle;
+    private final Duration retention;
+
+    public ChangeLogService(ChangeLogRepository changeLogRepository,
+                            ChatMembershipIndex membershipIndex,
+                            @Value("${chat.sync.settle-ms:5000}") long settleMillis,
+                            @Value("${chat.sync.retention-days:30}") long retentionDays) {
+        this.changeLogRepository = changeLogRepository;
+        this.membershipIndex = membershipIndex;
+        this.settle = Duration.ofMillis(settleMillis);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Transactional
+    public void messagesCreated(Collection<Message> messages) {
+        changeLogRepository.saveAll(messages.stream()
+                .map(message -> entry(ChangeLogEntry.Type.MESSAGE_CREATED, message.getChat().getId(), null, message.getId()))
+                .toList());
+    }
+
+    @Transactional
+    public void messageDeleted(Message message) {
+        append(ChangeLogEntry.Type.MESSAGE_DELETED, message.getChat().getId(), null, message.getId());
+    }
+
+    @Transactional
+    public void membersAdded(UUID chatId, Collection<UUID> userIds) {
+        changeLogRepository.saveAll(userIds.stream()
+                .map(userId -> entry(ChangeLogEntry.Type.MEMBER_ADDED, chatId, userId, null))
+                .toList());
+    }
+
+    @Transactional
+    public void memberRemoved(UUID chatId, UUID userId) {
+        append(ChangeLogEntry.Type.MEMBER_REMOVED, chatId, userId, null);
+    }
+
+    @Transactional
+    public void chatUpdated(UUID chatId) {
+        append(ChangeLogEntry.Type.CHAT_UPDATED, chatId, null, null);
+    }
+
+    /**
+     * One entry per former member, since the deleted chat no longer shows up in their chat list.
+     */
+    @Transactional
+    public void chatDeleted(UUID chatId, Collection<UUID> memberIds) {
+        changeLogRepository.saveAll(memberIds.stream()
+                .map(userId -> entry(ChangeLogEntry.Type.CHAT_DELETED, chatId, userId, null))
+                .toList());
+    }
+
+    @Transactional
+    public void chatRead(UUID chatId, UUID userId) {
+        append(ChangeLogEntry.Type.CHAT_READ, chatId, userId, null);
+    }
+
+    /**
+     * Entries after {@code afterId} in the user's current chats, plus the ones addressed to the user
+     * directly (removal from a chat, deletion of a chat).
+     */
+    public List<ChangeLogEntry> changesSince(UUID userId, long afterId, int limit) {
+
+        List<UUID> chatIds = membershipIndex.chatIds(userId);
+        PageRequest page = PageRequest.of(0, limit);
+
+        return chatIds.isEmpty()
+                ? changeLogRepository.findChangesAfter(afterId, userId, page)
+                : changeLogRepository.findChangesAfter(afterId, chatIds, userId, page);
+    }
+
+    /**
+     * The newest position no still-running transaction can commit below.
+     */
+    public long settledHeadId() {
+        Long lastId = changeLogRepository.findLastIdCreatedBefore(LocalDateTime.now().minus(settle));
+        return Objects.requireNonNullElse(lastId, 0L);
+    }
+
+    public SyncCursorDTO cursorAt(long changeId) {
+        return new SyncCursorDTO(changeId, System.currentTimeMillis());
+    }
+
+    /**
+     * Whether entries after the cursor may already have been pruned, so the client has to reload instead.
+     */
+    public boolean isExpired(SyncCursorDTO cursor) {
+        return cursor.issuedAt() < System.currentTimeMillis() - retention.minus(settle).toMillis();
+    }
+
+    @Scheduled(fixedDelayString = "${chat.sync.prune-interval-ms:3600000}")
+    @Transactional
+    public void prune() {
+        int pruned = changeLogRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        if (pruned > 0) {
+            log.info("Pruned {} change log entries older than {}", pruned, retention);
+        }
+    }
+
+    private void append(ChangeLogEntry.Type type, UUID chatId, UUID userId, UUID entityId) {
+        changeLogRepository.save(entry(type, chatId, userId, entityId));
+    }
+
+    private static ChangeLogEntry entry(ChangeLogEntry.Type type, UUID chatId, UUID userId, UUID entityId) {
+        return ChangeLogEntry.builder()
+                .type(type)
+                .chatId(chatId)
+                .userId(userId)
+                .entityId(entityId)
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+}
@@ -0,0 +1,216 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.model.Chat;
+import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.repository.ChatRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Chat → member/admin ids and user → chat ids, so authorization checks and fanout don't hydrate
+ * {@code Chat.users}. Entries are loaded from the database on first use and replaced wholesale
+ * by the chat service whenever membership changes; sets are immutable open-addressing
+ * tables of raw UUID bits, so readers never lock.
+ */
+@Service
+@RequiredArgsConstructor
+public class ChatMembershipIndex {
+
+    private final ChatRepository chatRepository;
+
+    private final Map<UUID, Members> chats = new ConcurrentHashMap<>();
+    private final Map<UUID, UuidSet> chatsByUser = new ConcurrentHashMap<>();
+
+    public boolean isMember(UUID chatId, UUID userId) {
+        return members(chatId).users().contains(userId);
+    }
+
+    public boolean isAdmin(UUID chatId, UUID userId) {
+        return members(chatId).admins().contains(userId);
+    }
+
+    public List<UUID> memberIds(UUID chatId) {
+        return members(chatId).users().toList();
+    }
+
+    public List<UUID> chatIds(UUID userId) {
+        UuidSet chatIds = chatsByUser.get(userId);
+        if (chatIds == null) {
+            UuidSet loaded = UuidSet.of(chatRepository.findChatIdsByMemberId(userId));
+            chatIds = Objects.requireNonNullElse(chatsByUser.putIfAbsent(userId, loaded), loaded);
+        }
+        return chatIds.toList();
+    }
+
+    /**
+     * Replaces the entry for a chat that was just created or whose members or admins changed.
+     */
+    public void update(Chat chat) {
+
+        UuidSet users = UuidSet.of(chat.getUsers().stream().map(User::getId).toList());
+        UuidSet admins = UuidSet.of(chat.getAdmins().stream().map(User::getId).toList());
+        Members previous = chats.put(chat.getId(), new Members(users, admins));
+
+        Set<UUID> touched = new HashSet<>(users.toList());
+        if (previous != null) {
+            touched.addAll(previous.users().toList());
+        }
+        for (UUID userId : touched) {
+            boolean member = users.contains(userId);
+            chatsByUser.computeIfPresent(userId, (id, chatIds) -> member ? chatIds.with(chat.getId()) : chatIds.without(chat.getId()));
+        }
+
+        evictOnRollback(chat.getId(), touched);
+    }
+
+    public void remove(UUID chatId) {
+
+        Members previous = chats.remove(chatId);
+        List<UUID> members = previous != null ? previous.users().toList() : List.of();
+        for (UUID userId : members) {
+            chatsByUser.computeIfPresent(userId, (id, chatIds) -> chatIds.without(chatId));
+        }
+
+        evictOnRollback(chatId, members);
+    }
+
+    private Members members(UUID chatId) {
+
+        Members members = chats.get(chatId);
+        if (members != null) {
+            return members;
+        }
+
+        members = new Members(UuidSet.of(chatRepository.findMemberIds(chatId)), UuidSet.of(chatRepository.findAdminIds(chatId)));
+        // Unknown chats aren't cached, so a miss for a missing id keeps falling through to the database
+        if (members.users().size() > 0) {
+            chats.putIfAbsent(chatId, members);
+        }
+        return members;
+    }
+
+    /**
+     * Entries are updated as soon as the change is saved; if the surrounding transaction rolls back
+     * they are dropped and reloaded from the database on next use.
+     */
+    private void evictOnRollback(UUID chatId, Collection<UUID> userIds) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+
+        List<UUID> users = List.copyOf(userIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    chats.remove(chatId);
+                    users.forEach(chatsByUser::remove);
+                }
+            }
+        });
+    }
+
+    private record Members(UuidSet users, UuidSet admins) {
+    }
+
+    /**
+     * Immutable hash set of UUIDs stored as pairs of longs with linear probing, about 16 bytes per
+     * slot instead of a boxed UUID plus a hash map node per element.
+     */
+    static final class UuidSet {
+
+        private static final UuidSet EMPTY = new UuidSet(new long[2], 0);
+
+        private final long[] slots;
+        private final int size;
+
+        private UuidSet(long[] slots, int size) {
+            this.slots = slots;
+            this.size = size;
+        }
+
+        static UuidSet of(Collection<UUID> ids) {
+
+            if (ids.isEmpty()) {
+                return EMPTY;
+            }
+
+            int capacity = Integer.highestOneBit(Math.max(2, ids.size() * 2 - 1)) << 1;
+            long[] slots = new long[capacity * 2];
+            int size = 0;
+
+            for (UUID id : ids) {
+                int slot = slot(slots, id);
+                if (slots[slot] == 0 && slots[slot + 1] == 0) {
+                    slots[slot] = id.getMostSignificantBits();
+                    slots[slot + 1] = id.getLeastSignificantBits();
+                    size++;
+                }
+            }
+
+            return new UuidSet(slots, size);
+        }
+
+        boolean contains(UUID id) {
+            int slot = slot(slots, id);
+            return slots[slot] != 0 || slots[slot + 1] != 0;
+        }
+
+        int size() {
+            return size;
+        }
+
+        List<UUID> toList() {
+            List<UUID> ids = new ArrayList<>(size);
+            for (int i = 0; i < slots.length; i += 2) {
+                if (slots[i] != 0 || slots[i + 1] != 0) {
+                    ids.add(new UUID(slots[i], slots[i + 1]));
+                }
+            }
+            return ids;
+        }
+
+        UuidSet with(UUID id) {
+            if (contains(id)) {
+                return this;
+            }
+            List<UUID> ids = toList();
+            ids.add(id);
+            return of(ids);
+        }
+
+        UuidSet without(UUID id) {
+            if (!contains(id)) {
+                return this;
+            }
+            List<UUID> ids = toList();
+            ids.remove(id);
+            return of(ids);
+        }
+
+        /**
+         * Index of the pair holding the id, or of the empty pair where it would go.
+         */
+        private static int slot(long[] slots, UUID id) {
+            long msb = id.getMostSignificantBits();
+            long lsb = id.getLeastSignificantBits();
+            long hash = (msb ^ lsb) * 0x9E3779B97F4A7C15L;
+            int mask = slots.length / 2 - 1;
+
+            for (int i = (int) (hash >>> 32) & mask; ; i = (i + 1) & mask) {
+                int slot = i * 2;
+                if ((slots[slot] == msb && slots[slot + 1] == lsb) || (slots[slot] == 0 && slots[slot + 1] == 0)) {
+                    return slot;
+                }
+            }
+        }
+
+    }
+
+}
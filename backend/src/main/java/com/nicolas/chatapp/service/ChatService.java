@@ -4,6 +4,7 @@ import com.nicolas.chatapp.dto.request.GroupChatRequestDTO;
 import com.nicolas.chatapp.exception.ChatException;
 import com.nicolas.chatapp.exception.UserException;
 import com.nicolas.chatapp.model.Chat;
+import com.nicolas.chatapp.model.Message;
 import com.nicolas.chatapp.model.User;
 
 import java.util.List;
@@ -15,8 +16,13 @@ public interface ChatService {
 
     Chat findChatById(UUID id) throws ChatException;
 
+    /**
+     * Every chat of the user, most recently active first. Clients that page use the overload below.
+     */
     List<Chat> findAllByUserId(UUID userId) throws UserException;
 
+    List<Chat> findAllByUserId(UUID userId, int page, int size) throws UserException;
+
     Chat createGroup(GroupChatRequestDTO req, User reqUser) throws UserException;
 
     Chat addUserToGroup(UUID userId, UUID chatId, User reqUser) throws UserException, ChatException;
@@ -31,4 +37,14 @@ public interface ChatService {
 
     Chat updateChat(Chat chat) throws ChatException;
 
+
+    void recordMessageSent(Message message);
+
+    /**
+     * Same as {@link #recordMessageSent(Message)} for several messages, with one summary update per chat.
+     */
+    void recordMessagesSent(List<Message> messages);
+
+    void recordMessageDeleted(Message message);
+
 }
@@ -0,0 +1,104 @@
+package com.nicolas.chatapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Structured diagnostics for hot paths. Each category logs through its own logger,
+ * {@code chat.events.<category>}, so levels can be changed at runtime through
+ * {@code /actuator/loggers}. Disabled categories cost one level check. Enabled events are
+ * sampled, 1 in {@code chat.events.sample-every.<category>}, and formatted and written on a
+ * background thread; when that thread falls behind, events are dropped instead of blocking callers.
+ */
+@Slf4j
+@Service
+public class DiagnosticEventService {
+
+    private static final String LOGGER_PREFIX = "chat.events.";
+
+    private final Environment environment;
+    private final int defaultSampleEvery;
+    private final Map<String, Category> categories = new ConcurrentHashMap<>();
+    private final ExecutorService writer;
+    private final Counter dropped;
+
+    public DiagnosticEventService(Environment environment,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${chat.events.sample-every:1}") int defaultSampleEvery,
+                                  @Value("${chat.events.queue-capacity:10000}") int queueCapacity) {
+        this.environment = environment;
+        this.defaultSampleEvery = defaultSampleEvery;
+        this.dropped = meterRegistry.counter("chat.events.dropped");
+        this.writer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "diagnostic-events");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (runnable, executor) -> dropped.increment());
+    }
+
+    public void debug(String category, String event, Object... keyValues) {
+        emit(category, Level.DEBUG, event, keyValues);
+    }
+
+    public void info(String category, String event, Object... keyValues) {
+        emit(category, Level.INFO, event, keyValues);
+    }
+
+    public void warn(String category, String event, Object... keyValues) {
+        emit(category, Level.WARN, event, keyValues);
+    }
+
+    /**
+     * Key-value pairs are alternating names and values, e.g. {@code "chatId", chatId, "recipients", 12}.
+     */
+    public void emit(String category, Level level, String event, Object... keyValues) {
+
+        Category target = categories.computeIfAbsent(category, this::category);
+        if (!target.logger().isEnabledForLevel(level) || !target.sampled()) {
+            return;
+        }
+
+        writer.execute(() -> target.logger().atLevel(level).log(format(event, keyValues)));
+    }
+
+    @PreDestroy
+    void stop() {
+        writer.shutdown();
+    }
+
+    private Category category(String name) {
+        int sampleEvery = environment.getProperty("chat.events.sample-every." + name, Integer.class, defaultSampleEvery);
+        return new Category(LoggerFactory.getLogger(LOGGER_PREFIX + name), Math.max(1, sampleEvery), new AtomicLong());
+    }
+
+    private static String format(String event, Object[] keyValues) {
+        StringBuilder line = new StringBuilder("event=").append(event);
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            line.append(' ').append(keyValues[i]).append('=').append(keyValues[i + 1]);
+        }
+        return line.toString();
+    }
+
+    private record Category(Logger logger, int sampleEvery, AtomicLong seen) {
+
+        boolean sampled() {
+            return sampleEvery == 1 || seen.getAndIncrement() % sampleEvery == 0;
+        }
+
+    }
+
+}
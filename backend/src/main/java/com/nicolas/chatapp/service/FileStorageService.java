@@ -1,24 +1,96 @@
 package com.nicolas.chatapp.service;
 
+import com.nicolas.chatapp.model.StoredObject;
+import com.nicolas.chatapp.repository.ChatRepository;
+import com.nicolas.chatapp.repository.MessageRepository;
+import com.nicolas.chatapp.repository.StoredObjectRepository;
+import com.nicolas.chatapp.repository.UserRepository;
 import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.unit.DataSize;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
-import java.util.UUID;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
 
+/**
+ * Stores uploads content-addressed under {@code content/<first two hex digits>/<sha256><ext>}, so identical
+ * bytes are kept once however often they're sent. Every message, profile picture and group picture that
+ * points at a file holds one reference on its {@link StoredObject}; the file is deleted when the last one
+ * is released. Paths from before content addressing (profiles/, groups/, messages/) were never shared and
+ * are still deleted directly.
+ * <p>
+ * Registering and releasing a hash happen under a per-hash lock, so an upload that dedups against a file
+ * can't lose it to a concurrent release of the same content. Files rendered from stored content, such as
+ * thumbnails, live next to it as {@code <sha256>-<variant><ext>} and go away with it.
+ */
 @Slf4j
 @Service
 public class FileStorageService {
 
-    @Value("${file.upload-dir:uploads}")
-    private String uploadDir;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int SNIFF_LENGTH = 16;
+    private static final int LOCK_STRIPES = 64;
+    private static final int MAX_LEGACY_HASHES = 10_000;
+    private static final String CONTENT_DIRECTORY = "content";
+    private static final String LEGACY_PROFILES_DIRECTORY = "profiles";
+    private static final String LEGACY_GROUPS_DIRECTORY = "groups";
+    private static final String DEFAULT_CONTENT_TYPE = "application/octet-stream";
+    private static final Pattern EXTENSION = Pattern.compile("[A-Za-z0-9]{1,10}");
+
+    private final StoredObjectRepository storedObjectRepository;
+    private final MessageRepository messageRepository;
+    private final UserRepository userRepository;
+    private final ChatRepository chatRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final String uploadDir;
+    private final DataSize maxFileSize;
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+    private final Map<String, String> legacyHashes = new ConcurrentHashMap<>();
+
+    public FileStorageService(StoredObjectRepository storedObjectRepository,
+                              MessageRepository messageRepository,
+                              UserRepository userRepository,
+                              ChatRepository chatRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${file.upload-dir:uploads}") String uploadDir,
+                              @Value("${spring.servlet.multipart.max-file-size:50MB}") DataSize maxFileSize) {
+        this.storedObjectRepository = storedObjectRepository;
+        this.messageRepository = messageRepository;
+        this.userRepository = userRepository;
+        this.chatRepository = chatRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.uploadDir = uploadDir;
+        this.maxFileSize = maxFileSize;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
 
     @PostConstruct
     public void init() {
@@ -29,24 +101,11 @@ public class FileStorageService {
                 Files.createDirectories(uploadPath);
                 log.info("Created uploads directory: {}", uploadPath.toAbsolutePath());
             }
-            
-            // Create subdirectories
-            Path profilesPath = Paths.get(uploadDir, "profiles");
-            if (!Files.exists(profilesPath)) {
-                Files.createDirectories(profilesPath);
-                log.info("Created profiles directory: {}", profilesPath.toAbsolutePath());
-            }
-            
-            Path groupsPath = Paths.get(uploadDir, "groups");
-            if (!Files.exists(groupsPath)) {
-                Files.createDirectories(groupsPath);
-                log.info("Created groups directory: {}", groupsPath.toAbsolutePath());
-            }
-            
-            Path messagesPath = Paths.get(uploadDir, "messages");
-            if (!Files.exists(messagesPath)) {
-                Files.createDirectories(messagesPath);
-                log.info("Created messages directory: {}", messagesPath.toAbsolutePath());
+
+            Path contentPath = Paths.get(uploadDir, CONTENT_DIRECTORY);
+            if (!Files.exists(contentPath)) {
+                Files.createDirectories(contentPath);
+                log.info("Created content directory: {}", contentPath.toAbsolutePath());
             }
             
             log.info("File storage initialized successfully at: {}", Paths.get(uploadDir).toAbsolutePath());
@@ -56,34 +115,200 @@ public class FileStorageService {
         }
     }
 
-    public String storeFile(MultipartFile file, String subDirectory) throws IOException {
+    /**
+     * Stores {@code file} and returns its path, holding one reference for the entity it's assigned to.
+     */
+    public String storeFile(MultipartFile file) throws IOException {
         if (file.isEmpty()) {
             throw new IOException("File is empty");
         }
 
-        // Create directory if it doesn't exist
-        Path uploadPath = Paths.get(uploadDir, subDirectory);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
+        return storeStream(file.getInputStream(), file.getOriginalFilename(), file.getContentType()).path();
+    }
+
+    /**
+     * Writes {@code in} in a single pass, hashing, counting and sniffing the bytes as they go by. The data
+     * lands in a temporary file in the content directory; once the hash is known it is either renamed into
+     * place or, when that content is already stored, dropped in favour of the existing file. Either way the
+     * returned file holds one reference for the entity it's assigned to, which must give it back with
+     * {@link #release(String)}.
+     */
+    public StoredFile storeStream(InputStream in, String originalFilename, String declaredType) throws IOException {
+
+        Path contentRoot = Paths.get(uploadDir, CONTENT_DIRECTORY);
+        if (!Files.exists(contentRoot)) {
+            Files.createDirectories(contentRoot);
+        }
+
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        byte[] head = new byte[SNIFF_LENGTH];
+        int headLength = 0;
+        long size = 0;
+
+        Path partial = Files.createTempFile(contentRoot, ".upload-", ".part");
+        try {
+            try (FileChannel channel = FileChannel.open(partial, StandardOpenOption.WRITE)) {
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    size += read;
+                    if (size > maxFileSize.toBytes()) {
+                        throw new IOException("File size exceeds " + maxFileSize.toMegabytes() + "MB limit");
+                    }
+                    if (headLength < SNIFF_LENGTH) {
+                        int copied = Math.min(read, SNIFF_LENGTH - headLength);
+                        System.arraycopy(buffer, 0, head, headLength, copied);
+                        headLength += copied;
+                    }
+                    digest.update(buffer, 0, read);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, read);
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                }
+            }
+
+            if (size == 0) {
+                throw new IOException("File is empty");
+            }
+
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            String contentType = contentType(Arrays.copyOf(head, headLength), declaredType, originalFilename);
+
+            Lock lock = lockFor(sha256);
+            lock.lock();
+            try {
+                Optional<StoredObject> existing = storedObjectRepository.findById(sha256);
+                if (existing.isPresent() && Files.exists(loadFile(existing.get().getPath()))) {
+                    StoredObject stored = existing.get();
+                    transactionTemplate.executeWithoutResult(status -> retain(stored));
+                    log.info("File deduplicated: {} ({} bytes)", stored.getPath(), size);
+                    return new StoredFile(stored.getPath(), size, sha256, stored.getContentType());
+                }
+
+                String path = CONTENT_DIRECTORY + "/" + sha256.substring(0, 2) + "/" + sha256 + extension(originalFilename);
+                Path filePath = loadFile(path);
+                Files.createDirectories(filePath.getParent());
+                Files.move(partial, filePath, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+                // A row whose file went missing is repointed at the new copy rather than duplicated
+                StoredObject stored = existing.orElseGet(() -> StoredObject.builder()
+                        .sha256(sha256)
+                        .refCount(0L)
+                        .createdAt(LocalDateTime.now())
+                        .build());
+                stored.setPath(path);
+                stored.setSize(size);
+                stored.setContentType(contentType);
+                transactionTemplate.executeWithoutResult(status -> retain(stored));
+
+                log.info("File saved: {} ({} bytes)", filePath, size);
+                return new StoredFile(path, size, sha256, contentType);
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            Files.deleteIfExists(partial);
+        }
+    }
+
+    /**
+     * Gives back the reference held by an entity that no longer points at {@code filePath}. Call it after
+     * the entity change is committed: when the count reaches zero it is checked against the columns that
+     * can hold the path before the file is deleted, so a drifted count never removes a file still in use.
+     */
+    public void release(String filePath) {
+
+        if (filePath == null || filePath.isEmpty()) {
+            return;
+        }
+        if (!filePath.startsWith(CONTENT_DIRECTORY + "/")) {
+            deleteFile(filePath);
+            return;
+        }
+
+        String sha256 = sha256Of(filePath);
+        Lock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            Boolean unreferenced = transactionTemplate.execute(status -> {
+                Optional<StoredObject> existing = storedObjectRepository.findById(sha256);
+                if (existing.isEmpty()) {
+                    return true;
+                }
+
+                StoredObject stored = existing.get();
+                long remaining = stored.getRefCount() - 1;
+                if (remaining <= 0) {
+                    remaining = countReferences(stored.getPath());
+                    if (remaining > 0) {
+                        log.warn("Reference count of {} drifted, {} references remain", stored.getPath(), remaining);
+                    }
+                }
+                if (remaining > 0) {
+                    stored.setRefCount(remaining);
+                    storedObjectRepository.save(stored);
+                    return false;
+                }
+
+                storedObjectRepository.delete(stored);
+                return true;
+            });
+
+            if (Boolean.TRUE.equals(unreferenced)) {
+                deleteFile(filePath);
+                deleteDerived(sha256, loadFile(filePath).getParent());
+            }
+        } finally {
+            lock.unlock();
         }
+    }
 
-        // Generate unique filename
-        String originalFilename = file.getOriginalFilename();
-        String extension = "";
-        if (originalFilename != null && originalFilename.contains(".")) {
-            extension = originalFilename.substring(originalFilename.lastIndexOf("."));
+    /**
+     * Path of a file rendered from the content at {@code filePath}, e.g. a thumbnail, stored next to it as
+     * {@code <sha256>-<variant><ext>}. Null for paths from before content addressing, which get no variants.
+     */
+    public static String derivedPath(String filePath, String variant, String extension) {
+        if (!filePath.startsWith(CONTENT_DIRECTORY + "/")) {
+            return null;
         }
-        String filename = UUID.randomUUID().toString() + extension;
+        return filePath.substring(0, filePath.lastIndexOf('/') + 1) + sha256Of(filePath) + "-" + variant + extension;
+    }
+
+    /**
+     * Moves {@code rendered} to {@code derivedPath} while the original is still stored. The check happens
+     * under the original's lock, so a variant finished after the last release is dropped instead of
+     * being left behind without an owner.
+     */
+    public boolean storeDerived(String filePath, String derivedPath, Path rendered) throws IOException {
 
-        // Save file
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
+        String sha256 = sha256Of(filePath);
+        Lock lock = lockFor(sha256);
+        lock.lock();
+        try {
+            if (!storedObjectRepository.existsById(sha256) || !Files.exists(loadFile(filePath))) {
+                Files.deleteIfExists(rendered);
+                return false;
+            }
+            Files.move(rendered, loadFile(derivedPath), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
 
-        log.info("File saved: {}", filePath.toString());
-        return subDirectory + "/" + filename;
+    /**
+     * Temporary file in the content directory, on the same file system as the stored files so it can be
+     * moved into place atomically.
+     */
+    public Path createTempFile(String prefix) throws IOException {
+        Path contentRoot = Paths.get(uploadDir, CONTENT_DIRECTORY);
+        Files.createDirectories(contentRoot);
+        return Files.createTempFile(contentRoot, prefix, ".part");
     }
 
     public void deleteFile(String filePath) {
+        legacyHashes.remove(filePath);
         try {
             Path path = Paths.get(uploadDir, filePath);
             Files.deleteIfExists(path);
@@ -93,8 +318,155 @@ public class FileStorageService {
         }
     }
 
+    /**
+     * Whether {@code filePath} may be served to anyone: profile and group pictures are public, message
+     * attachments only go out through the membership-checked download endpoint. Content paths can be derived
+     * from a file's hash, so they are checked against the picture columns rather than trusted by name.
+     */
+    public boolean isPublicPicture(String filePath) {
+        if (filePath.startsWith(LEGACY_PROFILES_DIRECTORY + "/") || filePath.startsWith(LEGACY_GROUPS_DIRECTORY + "/")) {
+            return true;
+        }
+        return filePath.startsWith(CONTENT_DIRECTORY + "/")
+                && userRepository.countByProfilePicture(filePath) + chatRepository.countByGroupProfilePicture(filePath) > 0;
+    }
+
     public Path loadFile(String filePath) {
         return Paths.get(uploadDir, filePath);
     }
-}
 
+    /**
+     * Hex SHA-256 of the file's content. Content-addressed paths carry it in their name; files from before
+     * content addressing are hashed on first use, which is safe to remember since their names were never reused.
+     */
+    public String contentHash(String filePath) throws IOException {
+
+        if (filePath.startsWith(CONTENT_DIRECTORY + "/")) {
+            return sha256Of(filePath);
+        }
+
+        String cached = legacyHashes.get(filePath);
+        if (cached != null) {
+            return cached;
+        }
+
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        try (InputStream in = Files.newInputStream(loadFile(filePath))) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+
+        String hash = HexFormat.of().formatHex(digest.digest());
+        if (legacyHashes.size() >= MAX_LEGACY_HASHES) {
+            legacyHashes.clear();
+        }
+        legacyHashes.put(filePath, hash);
+        return hash;
+    }
+
+    private void deleteDerived(String sha256, Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> derived = Files.newDirectoryStream(directory, sha256 + "-*")) {
+            for (Path path : derived) {
+                Files.deleteIfExists(path);
+                log.info("File deleted: {}", path);
+            }
+        } catch (IOException e) {
+            log.error("Error deleting files derived from: {}", sha256, e);
+        }
+    }
+
+    private void retain(StoredObject stored) {
+        stored.setRefCount(stored.getRefCount() + 1);
+        storedObjectRepository.save(stored);
+    }
+
+    private long countReferences(String filePath) {
+        return messageRepository.countByFilePath(filePath)
+                + userRepository.countByProfilePicture(filePath)
+                + chatRepository.countByGroupProfilePicture(filePath);
+    }
+
+    private Lock lockFor(String sha256) {
+        return locks[Math.floorMod(sha256.hashCode(), LOCK_STRIPES)];
+    }
+
+    private static String sha256Of(String filePath) {
+        String filename = filePath.substring(filePath.lastIndexOf('/') + 1);
+        int dot = filename.indexOf('.');
+        return dot < 0 ? filename : filename.substring(0, dot);
+    }
+
+    /**
+     * The client's file name only contributes a short alphanumeric extension; anything else, such as
+     * separators or dots, would break {@link #sha256Of} and could point outside the content directory.
+     */
+    private static String extension(String originalFilename) {
+        if (originalFilename == null) {
+            return "";
+        }
+        String extension = originalFilename.substring(originalFilename.lastIndexOf('.') + 1);
+        return originalFilename.contains(".") && EXTENSION.matcher(extension).matches() ? "." + extension : "";
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Magic numbers of the formats people actually send in chats win over whatever the client declared,
+     * falling back to the declared type and then to the file name.
+     */
+    static String contentType(byte[] head, String declaredType, String originalFilename) {
+
+        String sniffed = sniff(head);
+        if (sniffed != null) {
+            return sniffed;
+        }
+        if (declaredType != null && !declaredType.isBlank() && !declaredType.startsWith(DEFAULT_CONTENT_TYPE)) {
+            return declaredType;
+        }
+        String guessed = originalFilename != null ? URLConnection.guessContentTypeFromName(originalFilename) : null;
+        return guessed != null ? guessed : DEFAULT_CONTENT_TYPE;
+    }
+
+    private static String sniff(byte[] head) {
+        if (startsWith(head, 0, 0x89, 'P', 'N', 'G')) return "image/png";
+        if (startsWith(head, 0, 0xFF, 0xD8, 0xFF)) return "image/jpeg";
+        if (startsWith(head, 0, 'G', 'I', 'F', '8')) return "image/gif";
+        if (startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'E', 'B', 'P')) return "image/webp";
+        if (startsWith(head, 0, 'R', 'I', 'F', 'F') && startsWith(head, 8, 'W', 'A', 'V', 'E')) return "audio/wav";
+        if (startsWith(head, 0, '%', 'P', 'D', 'F')) return "application/pdf";
+        if (startsWith(head, 4, 'f', 't', 'y', 'p')) return ascii(head, 8, 4).startsWith("M4A") ? "audio/mp4" : "video/mp4";
+        if (startsWith(head, 0, 0x1A, 0x45, 0xDF, 0xA3)) return "video/webm";
+        if (startsWith(head, 0, 'O', 'g', 'g', 'S')) return "audio/ogg";
+        if (startsWith(head, 0, 'I', 'D', '3') || startsWith(head, 0, 0xFF, 0xFB)) return "audio/mpeg";
+        if (startsWith(head, 0, 'P', 'K', 0x03, 0x04)) return "application/zip";
+        return null;
+    }
+
+    private static boolean startsWith(byte[] head, int offset, int... magic) {
+        if (head.length < offset + magic.length) {
+            return false;
+        }
+        for (int i = 0; i < magic.length; i++) {
+            if ((head[offset + i] & 0xFF) != magic[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String ascii(byte[] head, int offset, int length) {
+        return head.length < offset + length ? "" : new String(head, offset, length, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,137 @@
+package com.nicolas.chatapp.service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * ImageIO helpers shared by thumbnails and avatars: header-only dimensions, subsampled decoding and
+ * bilinear downscaling.
+ */
+final class ImageScaling {
+
+    static final long MAX_PIXELS = 100_000_000L;
+    private static final float JPEG_QUALITY = 0.8f;
+
+    private ImageScaling() {
+    }
+
+    @FunctionalInterface
+    interface ImageCallback<T> {
+        T apply(ImageReader reader, int width, int height) throws IOException;
+    }
+
+    /**
+     * Opens {@code source} and hands its reader and dimensions, read from the header, to {@code callback}.
+     * Returns null without calling it for files ImageIO can't read and for images larger than
+     * {@value #MAX_PIXELS} pixels.
+     */
+    static <T> T read(Path source, ImageCallback<T> callback) throws IOException {
+
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = in != null ? ImageIO.getImageReaders(in) : null;
+            if (readers == null || !readers.hasNext()) {
+                return null;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_PIXELS) {
+                    return null;
+                }
+                return callback.apply(reader, width, height);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decodes every n-th pixel when the image is at least twice the target size, which keeps memory and time
+     * proportional to the variant rather than to the camera's resolution; the final scale smooths it out.
+     */
+    static BufferedImage decode(ImageReader reader, int width, int height, int size) throws IOException {
+        ImageReadParam param = reader.getDefaultReadParam();
+        int subsampling = Math.max(1, Math.max(width, height) / (size * 2));
+        param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        return reader.read(0, param);
+    }
+
+    /**
+     * Scales {@code image} down to fit in {@code size} x {@code size}; smaller images are only copied.
+     */
+    static BufferedImage scale(BufferedImage image, int size) {
+
+        double ratio = Math.min(1, (double) size / Math.max(image.getWidth(), image.getHeight()));
+        int width = Math.max(1, (int) Math.round(image.getWidth() * ratio));
+        int height = Math.max(1, (int) Math.round(image.getHeight() * ratio));
+        boolean alpha = image.getColorModel().hasAlpha();
+
+        BufferedImage scaled = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        draw(image, scaled, 0, 0, image.getWidth(), image.getHeight(), null);
+        return scaled;
+    }
+
+    /**
+     * Centre square of {@code image}, scaled down to at most {@code size} and flattened onto white.
+     */
+    static BufferedImage squareCrop(BufferedImage image, int size) {
+
+        int side = Math.min(image.getWidth(), image.getHeight());
+        int target = Math.min(side, size);
+        int x = (image.getWidth() - side) / 2;
+        int y = (image.getHeight() - side) / 2;
+
+        BufferedImage cropped = new BufferedImage(target, target, BufferedImage.TYPE_INT_RGB);
+        draw(image, cropped, x, y, side, side, Color.WHITE);
+        return cropped;
+    }
+
+    /**
+     * Writes straight to the file; given a plain stream ImageIO would spool through a cache file of its own.
+     */
+    static void writeJpeg(BufferedImage image, Path target) throws IOException {
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    static void writePng(BufferedImage image, Path target) throws IOException {
+        ImageIO.write(image, "png", target.toFile());
+    }
+
+    private static void draw(BufferedImage source, BufferedImage target, int x, int y, int width, int height, Color background) {
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, target.getWidth(), target.getHeight(), x, y, x + width, y + height, background, null);
+        } finally {
+            graphics.dispose();
+        }
+    }
+
+}
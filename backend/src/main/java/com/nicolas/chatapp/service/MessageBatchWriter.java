@@ -0,0 +1,225 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.model.Message;
+import com.nicolas.chatapp.repository.MessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Optional group commit for message sends. Concurrent sends are collected for a short window
+ * and written with one JDBC batch and one commit; each caller then gets its saved message back
+ * and does its own fanout. Enabled with {@code chat.send.batching.enabled=true}.
+ * <p>
+ * The queue is bounded: a send that finds it full is written on its own, in the caller's thread.
+ * A caller waits at most {@code chat.send.batching.timeout-ms} for its batch to be picked up; a send
+ * that times out before that is dropped, one whose batch was already picked up is waited for, so every
+ * committed message is handed back to its caller for fanout.
+ */
+@Slf4j
+@Service
+public class MessageBatchWriter {
+
+    private final MessageRepository messageRepository;
+    private final ChatService chatService;
+    private final ReadStateService readStateService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxBatchSize;
+    private final long timeoutMillis;
+
+    private final BlockingQueue<PendingSend> queue;
+    private final Timer commitTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter overflows;
+    private final Counter timeouts;
+    private Thread worker;
+
+    public MessageBatchWriter(MessageRepository messageRepository,
+                              ChatService chatService,
+                              ReadStateService readStateService,
+                              PlatformTransactionManager transactionManager,
+                              MeterRegistry meterRegistry,
+                              @Value("${chat.send.batching.enabled:false}") boolean enabled,
+                              @Value("${chat.send.batching.window-ms:5}") long windowMillis,
+                              @Value("${chat.send.batching.max-batch-size:100}") int maxBatchSize,
+                              @Value("${chat.send.batching.queue-capacity:1000}") int queueCapacity,
+                              @Value("${chat.send.batching.timeout-ms:5000}") long timeoutMillis) {
+        this.messageRepository = messageRepository;
+        this.chatService = chatService;
+        this.readStateService = readStateService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.windowMillis = windowMillis;
+        this.maxBatchSize = maxBatchSize;
+        this.timeoutMillis = timeoutMillis;
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+
+        this.commitTimer = meterRegistry.timer("chat.send.batch.commit");
+        this.batchSizes = DistributionSummary.builder("chat.send.batch.size").register(meterRegistry);
+        this.overflows = meterRegistry.counter("chat.send.batch.overflows");
+        this.timeouts = meterRegistry.counter("chat.send.batch.timeouts");
+        Gauge.builder("chat.send.batch.queue", queue, BlockingQueue::size).register(meterRegistry);
+        Gauge.builder("chat.send.batch.window", () -> windowMillis).baseUnit("milliseconds").register(meterRegistry);
+        Gauge.builder("chat.send.batch.max-size", () -> maxBatchSize).register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() {
+        if (enabled) {
+            worker = new Thread(this::run, "message-batch-writer");
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Queues the message for the next batch and waits until that batch has been committed.
+     *
+     * @throws IllegalStateException when no batch picks the message up within the timeout
+     */
+    public Message write(Message message) {
+
+        PendingSend pending = new PendingSend(message, new CompletableFuture<>(), new AtomicBoolean());
+        if (!queue.offer(pending)) {
+            overflows.increment();
+            transactionTemplate.executeWithoutResult(status -> persist(List.of(pending)));
+            return message;
+        }
+
+        try {
+            return pending.saved().get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            if (pending.taken().compareAndSet(false, true)) {
+                timeouts.increment();
+                throw new IllegalStateException("Message was not written within " + timeoutMillis + " ms", e);
+            }
+            // Its batch is already being written, so the message may commit and still needs its fanout
+            return await(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (pending.taken().compareAndSet(false, true)) {
+                throw new IllegalStateException("Interrupted while waiting for the message to be written", e);
+            }
+            return await(pending);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static Message await(PendingSend pending) {
+        try {
+            return pending.saved().join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+    }
+
+    private void run() {
+        List<PendingSend> batch = new ArrayList<>(maxBatchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMillis);
+                while (batch.size() < maxBatchSize) {
+                    PendingSend next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+
+                // Callers that gave up waiting have already failed their send, the rest now wait for this batch
+                batch.removeIf(pending -> !pending.taken().compareAndSet(false, true));
+                if (!batch.isEmpty()) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                batch.clear();
+            }
+        }
+
+        List<PendingSend> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.stream()
+                .filter(pending -> pending.taken().compareAndSet(false, true))
+                .forEach(pending -> pending.saved().completeExceptionally(new IllegalStateException("Message writer stopped")));
+    }
+
+    private void flush(List<PendingSend> batch) {
+
+        batchSizes.record(batch.size());
+
+        try {
+            commitTimer.record(() -> transactionTemplate.executeWithoutResult(status -> persist(batch)));
+            batch.forEach(pending -> pending.saved().complete(pending.message()));
+        } catch (RuntimeException e) {
+            log.warn("Batch of {} messages failed, retrying one by one: {}", batch.size(), e.getMessage());
+            for (PendingSend pending : batch) {
+                // The failed flush may have assigned ids that were never committed
+                pending.message().setId(null);
+                try {
+                    transactionTemplate.executeWithoutResult(status -> persist(List.of(pending)));
+                    pending.saved().complete(pending.message());
+                } catch (RuntimeException single) {
+                    pending.saved().completeExceptionally(single);
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts first so they go out as one JDBC batch, then updates each chat's summary once and moves each
+     * sender's read watermark once, to their latest message in the batch.
+     */
+    private void persist(List<PendingSend> batch) {
+
+        List<Message> messages = messageRepository.saveAllAndFlush(batch.stream().map(PendingSend::message).toList());
+        chatService.recordMessagesSent(messages);
+
+        Map<List<UUID>, Message> latestBySender = new HashMap<>();
+        for (Message message : messages) {
+            latestBySender.merge(List.of(message.getChat().getId(), message.getUser().getId()), message,
+                    (current, next) -> next.getTimeStamp().isAfter(current.getTimeStamp()) ? next : current);
+        }
+        latestBySender.values().forEach(message -> readStateService.markRead(
+                message.getChat().getId(), message.getUser().getId(), message.getTimeStamp(), message.getId()));
+    }
+
+    private record PendingSend(Message message, CompletableFuture<Message> saved, AtomicBoolean taken) {
+    }
+
+}
@@ -1,6 +1,8 @@
 package com.nicolas.chatapp.service;
 
+import com.nicolas.chatapp.dto.request.MessageCursorDTO;
 import com.nicolas.chatapp.dto.request.SendMessageRequestDTO;
+import com.nicolas.chatapp.dto.response.MessagePageDTO;
 import com.nicolas.chatapp.exception.ChatException;
 import com.nicolas.chatapp.exception.MessageException;
 import com.nicolas.chatapp.exception.UserException;
@@ -14,12 +16,23 @@ public interface MessageService {
 
     Message sendMessage(SendMessageRequestDTO req, UUID userId) throws UserException, ChatException;
 
-    Message sendMessageWithFile(SendMessageRequestDTO req, UUID userId, String filePath, 
-                                String fileName, String fileType, Long fileSize) 
+    Message sendMessageWithFile(SendMessageRequestDTO req, UUID userId, StoredFile file, String fileName)
             throws UserException, ChatException;
 
+    /**
+     * The whole history of the chat, oldest first. Kept for clients that don't page yet.
+     */
     List<Message> getChatMessages(UUID chatId, User reqUser) throws UserException, ChatException;
 
+    MessagePageDTO getChatMessagesBefore(UUID chatId, MessageCursorDTO cursor, int limit, User reqUser)
+            throws UserException, ChatException;
+
+    MessagePageDTO getChatMessagesAfter(UUID chatId, MessageCursorDTO cursor, int limit, User reqUser)
+            throws UserException, ChatException;
+
+    MessagePageDTO getChatMessagesAround(UUID chatId, UUID messageId, int limit, User reqUser)
+            throws UserException, ChatException, MessageException;
+
     Message findMessageById(UUID messageId) throws MessageException;
 
     void deleteMessageById(UUID messageId, User reqUser) throws UserException, MessageException;
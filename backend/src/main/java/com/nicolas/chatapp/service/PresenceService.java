@@ -0,0 +1,122 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.config.PrincipalCache;
+import com.nicolas.chatapp.dto.request.OnlineStatusDTO;
+import com.nicolas.chatapp.dto.response.PresenceUpdateDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Online state lives in memory. Reports are collected and published on a fixed cadence, so a
+ * user who flaps within one window produces no update at all, and each contact receives one
+ * {@link PresenceUpdateDTO} per window no matter how many chats they share or how many of their
+ * contacts changed. {@code isOnline}/{@code lastSeen} are written back to the user table in
+ * periodic JDBC batches instead of once per report. The batches bypass the entity listener, so the
+ * flushed users' cached principals are dropped here.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PresenceService {
+
+    private final ChatMembershipIndex membershipIndex;
+    private final WebSocketFanoutService fanoutService;
+    private final JdbcTemplate jdbcTemplate;
+    private final PrincipalCache principalCache;
+
+    private final Map<UUID, Presence> published = new ConcurrentHashMap<>();
+    private final Map<UUID, Presence> pending = new ConcurrentHashMap<>();
+    private final Map<UUID, Presence> unflushed = new ConcurrentHashMap<>();
+
+    public void update(UUID userId, boolean online) {
+        Presence presence = new Presence(online, LocalDateTime.now());
+        pending.put(userId, presence);
+        unflushed.put(userId, presence);
+    }
+
+    public boolean isOnline(UUID userId) {
+        Presence presence = pending.getOrDefault(userId, published.get(userId));
+        return presence != null && presence.online();
+    }
+
+    public Optional<LocalDateTime> lastSeen(UUID userId) {
+        return Optional.ofNullable(pending.getOrDefault(userId, published.get(userId))).map(Presence::lastSeen);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.presence.debounce-ms:2000}")
+    public void publish() {
+
+        Map<UUID, List<OnlineStatusDTO>> updatesByRecipient = new HashMap<>();
+
+        for (UUID userId : List.copyOf(pending.keySet())) {
+            Presence presence = pending.remove(userId);
+            if (presence == null) {
+                continue;
+            }
+
+            Presence previous = published.put(userId, presence);
+            if (previous != null && previous.online() == presence.online()) {
+                continue;
+            }
+
+            OnlineStatusDTO status = new OnlineStatusDTO(userId, presence.online(), presence.lastSeen());
+            for (UUID contactId : contacts(userId)) {
+                updatesByRecipient.computeIfAbsent(contactId, id -> new ArrayList<>()).add(status);
+            }
+        }
+
+        updatesByRecipient.forEach((recipientId, statuses) ->
+                fanoutService.sendToUsers(List.of(recipientId), "/online", new PresenceUpdateDTO(statuses)));
+    }
+
+    @Scheduled(fixedDelayString = "${chat.presence.flush-interval-ms:10000}")
+    public void flush() {
+
+        Map<UUID, Presence> batch = new HashMap<>();
+        for (UUID userId : List.copyOf(unflushed.keySet())) {
+            Presence presence = unflushed.remove(userId);
+            if (presence != null) {
+                batch.put(userId, presence);
+            }
+        }
+
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate("UPDATE APP_USER SET is_online = ?, last_seen = ? WHERE id = ?",
+                    batch.entrySet().stream()
+                            .map(entry -> new Object[]{entry.getValue().online(), Timestamp.valueOf(entry.getValue().lastSeen()), entry.getKey()})
+                            .toList());
+        } catch (DataAccessException e) {
+            log.warn("Presence flush failed, retrying {} users later: {}", batch.size(), e.getMessage());
+            batch.forEach(unflushed::putIfAbsent);
+            return;
+        }
+
+        batch.keySet().forEach(principalCache::invalidate);
+    }
+
+    private Set<UUID> contacts(UUID userId) {
+        Set<UUID> contacts = new HashSet<>();
+        for (UUID chatId : membershipIndex.chatIds(userId)) {
+            contacts.addAll(membershipIndex.memberIds(chatId));
+        }
+        contacts.remove(userId);
+        return contacts;
+    }
+
+    private record Presence(boolean online, LocalDateTime lastSeen) {
+    }
+
+}
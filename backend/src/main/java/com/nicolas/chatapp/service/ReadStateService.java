@@ -0,0 +1,146 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.model.TimeOrderedUuidGenerator;
+import com.nicolas.chatapp.repository.ChatReadStateRepository;
+import com.nicolas.chatapp.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.BadSqlGrammarException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Keeps one read watermark per (chat, member) instead of a read flag per message,
+ * so marking a chat as read is a single row update regardless of history size.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReadStateService {
+
+    private final ChatReadStateRepository chatReadStateRepository;
+    private final MessageRepository messageRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Transactional
+    public void markRead(UUID chatId, UUID userId, LocalDateTime readAt, UUID messageId) {
+        chatReadStateRepository.advance(TimeOrderedUuidGenerator.next(), chatId, userId, readAt, messageId);
+    }
+
+    /**
+     * Gives members that have no read state in the chat yet a watermark at {@code readAt}, so their unread
+     * count is always derived from a read state rather than from the chat's whole history.
+     */
+    @Transactional
+    public void seed(UUID chatId, Collection<UUID> userIds, LocalDateTime readAt) {
+        userIds.forEach(userId -> chatReadStateRepository.seed(TimeOrderedUuidGenerator.next(), chatId, userId, readAt));
+    }
+
+    public Map<UUID, LocalDateTime> findWatermarks(UUID chatId) {
+        return findWatermarks(List.of(chatId)).getOrDefault(chatId, Map.of());
+    }
+
+    /**
+     * @return chat id to (user id to last read timestamp) for the given chats
+     */
+    public Map<UUID, Map<UUID, LocalDateTime>> findWatermarks(Collection<UUID> chatIds) {
+
+        if (chatIds.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<UUID, Map<UUID, LocalDateTime>> watermarks = new HashMap<>();
+        for (Object[] row : chatReadStateRepository.findWatermarksByChatIds(chatIds)) {
+            watermarks.computeIfAbsent((UUID) row[0], id -> new HashMap<>()).put((UUID) row[1], (LocalDateTime) row[2]);
+        }
+        return watermarks;
+    }
+
+    /**
+     * Recovers the unread counts of every given user in every given chat, with a fixed number of queries
+     * however many pairs there are: the last checkpoint plus anything sent after it, or everything above
+     * the read watermark when there is no checkpoint yet. A read that happened after the checkpoint wins
+     * over the checkpointed count. Members get a read state when they join; pairs that still have none,
+     * e.g. from before that, are seeded here with nothing unread.
+     *
+     * @return chat id to (user id to unread count), with an entry for every pair
+     */
+    @Transactional
+    public Map<UUID, Map<UUID, Long>> loadUnreadCounts(Collection<UUID> chatIds, Collection<UUID> userIds) {
+
+        Map<UUID, Map<UUID, Long>> unreadCounts = new HashMap<>();
+        if (chatIds.isEmpty() || userIds.isEmpty()) {
+            return unreadCounts;
+        }
+
+        for (Object[] row : chatReadStateRepository.findUnreadCheckpoints(chatIds, userIds)) {
+            Long unreadCount = (Long) row[2];
+            LocalDateTime checkpointAt = (LocalDateTime) row[3];
+            LocalDateTime lastReadAt = (LocalDateTime) row[4];
+            boolean checkpointed = checkpointAt != null && (lastReadAt == null || !lastReadAt.isAfter(checkpointAt));
+            unreadCounts.computeIfAbsent((UUID) row[0], id -> new HashMap<>())
+                    .put((UUID) row[1], checkpointed ? Objects.requireNonNullElse(unreadCount, 0L) : 0L);
+        }
+        if (!unreadCounts.isEmpty()) {
+            for (Object[] row : messageRepository.countFromOthersSinceReadStates(unreadCounts.keySet(), userIds)) {
+                unreadCounts.get((UUID) row[0]).merge((UUID) row[1], (Long) row[2], Long::sum);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (UUID chatId : chatIds) {
+            Map<UUID, Long> chatCounts = unreadCounts.computeIfAbsent(chatId, id -> new HashMap<>());
+            List<UUID> withoutReadState = userIds.stream().filter(userId -> !chatCounts.containsKey(userId)).toList();
+            if (!withoutReadState.isEmpty()) {
+                seed(chatId, withoutReadState, now);
+                withoutReadState.forEach(userId -> chatCounts.put(userId, 0L));
+            }
+        }
+        return unreadCounts;
+    }
+
+    @Transactional
+    public void checkpointUnreadCounts(Map<UUID, Map<UUID, Long>> unreadCountsByChat, LocalDateTime checkpointAt) {
+        unreadCountsByChat.forEach((chatId, unreadCounts) -> unreadCounts.forEach((userId, unreadCount) ->
+                chatReadStateRepository.checkpointUnreadCount(TimeOrderedUuidGenerator.next(), chatId, userId,
+                        unreadCount, checkpointAt)));
+    }
+
+    @Transactional
+    public void deleteByChatId(UUID chatId) {
+        chatReadStateRepository.deleteByChatId(chatId);
+    }
+
+    /**
+     * Converts the legacy MESSAGE_READ_BY table into watermarks (latest read message per chat and
+     * user) and drops it afterwards. Does nothing once the table is gone.
+     */
+    @Transactional
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillFromMessageReadBy() {
+
+        List<Object[]> rows;
+        try {
+            rows = jdbcTemplate.query("SELECT m.chat_id, r.read_by, MAX(m.time_stamp) FROM message_read_by r " +
+                            "JOIN message m ON m.id = r.message_id GROUP BY m.chat_id, r.read_by",
+                    (rs, rowNum) -> new Object[]{rs.getObject(1, UUID.class), rs.getObject(2, UUID.class),
+                            rs.getTimestamp(3).toLocalDateTime()});
+        } catch (BadSqlGrammarException e) {
+            return;
+        }
+
+        for (Object[] row : rows) {
+            markRead((UUID) row[0], (UUID) row[1], (LocalDateTime) row[2], null);
+        }
+        jdbcTemplate.execute("DROP TABLE message_read_by");
+
+        log.info("Converted MESSAGE_READ_BY into {} read watermarks", rows.size());
+    }
+
+}
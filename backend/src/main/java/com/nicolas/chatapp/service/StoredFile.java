@@ -0,0 +1,12 @@
+package com.nicolas.chatapp.service;
+
+/**
+ * A file written by {@link FileStorageService}, with the metadata collected while it was streamed to disk.
+ *
+ * @param path        location relative to the upload directory, as stored on entities
+ * @param size        number of bytes written
+ * @param sha256      hex SHA-256 of the content
+ * @param contentType MIME type sniffed from the leading bytes, else the declared or name-derived type
+ */
+public record StoredFile(String path, long size, String sha256, String contentType) {
+}
@@ -0,0 +1,123 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.dto.request.SyncCursorDTO;
+import com.nicolas.chatapp.dto.response.ChatSummaryDTO;
+import com.nicolas.chatapp.dto.response.MessageDTO;
+import com.nicolas.chatapp.dto.response.SyncDTO;
+import com.nicolas.chatapp.model.ChangeLogEntry;
+import com.nicolas.chatapp.model.Chat;
+import com.nicolas.chatapp.model.Message;
+import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.repository.ChatRepository;
+import com.nicolas.chatapp.repository.MessageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Folds the change log entries after a cursor into the current state of what they touched,
+ * so a client that was offline pays for the changes it missed rather than for the history.
+ */
+@Service
+@RequiredArgsConstructor
+public class SyncService {
+
+    private static final int DEFAULT_LIMIT = 500;
+    private static final int MAX_LIMIT = 2000;
+
+    private final ChangeLogService changeLogService;
+    private final ChatMembershipIndex membershipIndex;
+    private final ChatRepository chatRepository;
+    private final MessageRepository messageRepository;
+    private final ReadStateService readStateService;
+    private final UnreadCounterService unreadCounterService;
+
+    /**
+     * Without a cursor, or with one older than the log retention, only returns a fresh cursor with
+     * {@code reset} set. Clients should take that cursor before reloading so nothing falls in between.
+     */
+    @Transactional(readOnly = true)
+    public SyncDTO sync(User reqUser, SyncCursorDTO cursor, int limit) {
+
+        if (cursor == null || changeLogService.isExpired(cursor)) {
+            return SyncDTO.reset(changeLogService.cursorAt(changeLogService.settledHeadId()).encode());
+        }
+
+        UUID userId = reqUser.getId();
+        int size = limit <= 0 ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+        List<ChangeLogEntry> entries = changeLogService.changesSince(userId, cursor.changeId(), size + 1);
+        boolean hasMore = entries.size() > size;
+        if (hasMore) {
+            entries = entries.subList(0, size);
+        }
+
+        Set<UUID> createdIds = new LinkedHashSet<>();
+        Set<UUID> deletedIds = new LinkedHashSet<>();
+        Set<UUID> touchedChatIds = new LinkedHashSet<>();
+        Set<UUID> readChatIds = new HashSet<>();
+
+        for (ChangeLogEntry entry : entries) {
+            touchedChatIds.add(entry.getChatId());
+            switch (entry.getType()) {
+                case MESSAGE_CREATED -> createdIds.add(entry.getEntityId());
+                case MESSAGE_DELETED -> {
+                    createdIds.remove(entry.getEntityId());
+                    deletedIds.add(entry.getEntityId());
+                }
+                case CHAT_READ -> readChatIds.add(entry.getChatId());
+                default -> {
+                    // Membership and chat changes are resolved against the current state below
+                }
+            }
+        }
+
+        // Whatever happened in between, the user either still is a member of a touched chat or isn't
+        Set<UUID> memberChatIds = new LinkedHashSet<>();
+        List<UUID> removedChatIds = new ArrayList<>();
+        for (UUID chatId : touchedChatIds) {
+            (membershipIndex.isMember(chatId, userId) ? memberChatIds : removedChatIds).add(chatId);
+        }
+
+        Map<UUID, Map<UUID, LocalDateTime>> watermarks = readStateService.findWatermarks(memberChatIds);
+
+        Map<UUID, List<MessageDTO>> messages = new LinkedHashMap<>();
+        messageRepository.findAllById(createdIds).stream()
+                .filter(message -> memberChatIds.contains(message.getChat().getId()))
+                .sorted(Comparator.comparing(Message::getTimeStamp).thenComparing(Message::getId))
+                .collect(Collectors.groupingBy(message -> message.getChat().getId(), LinkedHashMap::new, Collectors.toList()))
+                .forEach((chatId, chatMessages) ->
+                        messages.put(chatId, MessageDTO.fromMessages(chatMessages, watermarks.getOrDefault(chatId, Map.of()))));
+
+        List<SyncDTO.ReadState> readStates = new ArrayList<>();
+        for (UUID chatId : memberChatIds) {
+            if (readChatIds.contains(chatId)) {
+                watermarks.getOrDefault(chatId, Map.of()).forEach((memberId, lastReadAt) ->
+                        readStates.add(new SyncDTO.ReadState(chatId, memberId, lastReadAt)));
+            }
+        }
+
+        List<Chat> chats = chatRepository.findAllById(memberChatIds);
+        List<ChatSummaryDTO> chatSummaries = ChatSummaryDTO.fromChats(chats,
+                unreadCounterService.getUnreadCounts(memberChatIds, userId));
+
+        // Never move past entries that may still be joined by a late commit below them
+        long reached = hasMore ? entries.get(entries.size() - 1).getId() : Long.MAX_VALUE;
+        long next = Math.max(cursor.changeId(), Math.min(reached, changeLogService.settledHeadId()));
+
+        return SyncDTO.builder()
+                .messages(messages)
+                .deletedMessageIds(List.copyOf(deletedIds))
+                .chats(chatSummaries)
+                .removedChatIds(removedChatIds)
+                .readStates(readStates)
+                .cursor(changeLogService.cursorAt(next).encode())
+                .hasMore(hasMore && next == reached)
+                .reset(false)
+                .build();
+    }
+
+}
@@ -0,0 +1,188 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.repository.MessageRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders a thumbnail and a preview of image attachments, with nothing but ImageIO, and records them and
+ * the image's dimensions on every message pointing at the image. Work is queued on a small bounded pool once
+ * the message is committed, so the upload response never waits for it; when the queue is full the image
+ * is skipped and clients fall back to the original.
+ * <p>
+ * Variants are stored next to the original as {@code <sha256>-<size>.jpg} (or {@code .png} for images with
+ * transparency). Like the original they're only served to members of the chat, through
+ * {@code /api/messages/download/{id}/thumbnail}. An image sent again finds its variants already on disk and only has its messages updated.
+ */
+@Slf4j
+@Service
+public class ThumbnailService {
+
+    static final int THUMBNAIL_SIZE = 320;
+    static final int PREVIEW_SIZE = 1280;
+
+    private final FileStorageService fileStorageService;
+    private final MessageRepository messageRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ExecutorService workers;
+    private final Counter dropped;
+
+    public ThumbnailService(FileStorageService fileStorageService,
+                            MessageRepository messageRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${chat.thumbnails.threads:2}") int threads,
+                            @Value("${chat.thumbnails.queue-capacity:100}") int queueCapacity) {
+        this.fileStorageService = fileStorageService;
+        this.messageRepository = messageRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.dropped = meterRegistry.counter("chat.thumbnails.dropped");
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "thumbnails-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                (runnable, executor) -> dropped.increment());
+    }
+
+    /**
+     * Queues {@code filePath} for rendering if it's an image. Inside a transaction the work is queued after
+     * commit, so the worker sees the message it has to update.
+     */
+    public void submit(String filePath, String contentType) {
+
+        if (filePath == null || contentType == null || !contentType.startsWith("image/")) {
+            return;
+        }
+
+        Runnable task = () -> process(filePath);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            workers.execute(task);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                workers.execute(task);
+            }
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        workers.shutdownNow();
+    }
+
+    private void process(String filePath) {
+        try {
+            ImageVariants variants = render(filePath);
+            if (variants != null) {
+                transactionTemplate.executeWithoutResult(status -> messageRepository.updateImageVariants(filePath,
+                        variants.width(), variants.height(), variants.thumbnailPath(), variants.previewPath()));
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not render thumbnails for {}", filePath, e);
+        }
+    }
+
+    /**
+     * Renders whichever variants of {@code filePath} aren't on disk yet. An image no larger than a variant
+     * uses the original for it. Returns null for files ImageIO can't read, images too large to decode and
+     * paths from before content addressing.
+     */
+    ImageVariants render(String filePath) throws IOException {
+
+        if (FileStorageService.derivedPath(filePath, "", "") == null) {
+            return null;
+        }
+
+        ImageVariants variants = ImageScaling.read(fileStorageService.loadFile(filePath), (reader, width, height) -> {
+            // Dimensions come from the header, the pixels are only decoded if a variant is missing
+            String previewPath = existingVariant(filePath, width, height, PREVIEW_SIZE);
+            String thumbnailPath = existingVariant(filePath, width, height, THUMBNAIL_SIZE);
+            if (previewPath == null || thumbnailPath == null) {
+                // One decode serves both; the thumbnail is scaled down from the preview when there is one
+                BufferedImage image = ImageScaling.decode(reader, width, height, previewPath == null ? PREVIEW_SIZE : THUMBNAIL_SIZE);
+                if (previewPath == null) {
+                    image = ImageScaling.scale(image, PREVIEW_SIZE);
+                    previewPath = store(filePath, image, PREVIEW_SIZE);
+                }
+                if (thumbnailPath == null) {
+                    thumbnailPath = store(filePath, ImageScaling.scale(image, THUMBNAIL_SIZE), THUMBNAIL_SIZE);
+                }
+            }
+            return new ImageVariants(width, height, thumbnailPath, previewPath);
+        });
+
+        if (variants == null) {
+            log.info("Skipping thumbnails for {}: not a readable image or too large", filePath);
+        }
+        return variants;
+    }
+
+    /**
+     * The original if it already fits in {@code size}, a variant rendered earlier, or null if it needs rendering.
+     */
+    private String existingVariant(String filePath, int width, int height, int size) {
+
+        if (Math.max(width, height) <= size) {
+            return filePath;
+        }
+        for (String extension : new String[]{".jpg", ".png"}) {
+            String path = FileStorageService.derivedPath(filePath, String.valueOf(size), extension);
+            if (Files.exists(fileStorageService.loadFile(path))) {
+                return path;
+            }
+        }
+        return null;
+    }
+
+    private String store(String filePath, BufferedImage image, int size) throws IOException {
+
+        boolean alpha = image.getColorModel().hasAlpha();
+        String path = FileStorageService.derivedPath(filePath, String.valueOf(size), alpha ? ".png" : ".jpg");
+        Path rendered = fileStorageService.createTempFile(".thumbnail-");
+        try {
+            if (alpha) {
+                ImageScaling.writePng(image, rendered);
+            } else {
+                ImageScaling.writeJpeg(image, rendered);
+            }
+            // False once the original has been released, then there's nothing left to point at
+            return fileStorageService.storeDerived(filePath, path, rendered) ? path : null;
+        } finally {
+            Files.deleteIfExists(rendered);
+        }
+    }
+
+    /**
+     * @param thumbnailPath path of the {@value #THUMBNAIL_SIZE}px variant, the original if it's smaller
+     * @param previewPath   path of the {@value #PREVIEW_SIZE}px variant, the original if it's smaller
+     */
+    record ImageVariants(int width, int height, String thumbnailPath, String previewPath) {
+    }
+
+}
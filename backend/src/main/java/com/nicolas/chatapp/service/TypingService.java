@@ -0,0 +1,98 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.dto.request.TypingIndicatorDTO;
+import com.nicolas.chatapp.dto.response.TypingSummaryDTO;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Typing state per chat, kept in memory with expiry. Keystroke frames only update that state;
+ * a scheduled pass sends one summary per changed chat per interval, which caps every member at
+ * a few summaries per second per chat regardless of how many people type. Groups above the
+ * configured size get the count only.
+ */
+@Service
+@RequiredArgsConstructor
+public class TypingService {
+
+    private final ChatMembershipIndex membershipIndex;
+    private final WebSocketFanoutService fanoutService;
+
+    @Value("${chat.typing.expiry-ms:5000}")
+    private long expiryMillis;
+
+    @Value("${chat.typing.summary-max-members:50}")
+    private int summaryMaxMembers;
+
+    private final Map<UUID, ChatTyping> chats = new ConcurrentHashMap<>();
+
+    public void update(TypingIndicatorDTO indicator) {
+
+        if (!membershipIndex.isMember(indicator.chatId(), indicator.userId())) {
+            return;
+        }
+
+        ChatTyping typing = chats.computeIfAbsent(indicator.chatId(), id -> new ChatTyping());
+        if (Boolean.TRUE.equals(indicator.isTyping())) {
+            Typist previous = typing.typists.put(indicator.userId(),
+                    new Typist(indicator.userName(), System.currentTimeMillis() + expiryMillis));
+            // Refreshing an expiry alone doesn't change what members see
+            if (previous == null) {
+                typing.dirty = true;
+            }
+        } else if (typing.typists.remove(indicator.userId()) != null) {
+            typing.dirty = true;
+        }
+    }
+
+    @Scheduled(fixedRateString = "${chat.typing.interval-ms:300}")
+    public void publish() {
+
+        long now = System.currentTimeMillis();
+
+        chats.forEach((chatId, typing) -> {
+            if (typing.typists.values().removeIf(typist -> typist.expiresAt() < now)) {
+                typing.dirty = true;
+            }
+            if (!typing.dirty) {
+                return;
+            }
+            typing.dirty = false;
+
+            Map<UUID, Typist> snapshot = Map.copyOf(typing.typists);
+            if (snapshot.isEmpty() && chats.remove(chatId, typing) && !typing.typists.isEmpty()) {
+                // Someone started typing while the chat was being dropped
+                typing.dirty = true;
+                chats.putIfAbsent(chatId, typing);
+            }
+
+            List<UUID> memberIds = membershipIndex.memberIds(chatId);
+            TypingSummaryDTO summary = memberIds.size() > summaryMaxMembers
+                    ? new TypingSummaryDTO(chatId, List.of(), List.of(), snapshot.size())
+                    : new TypingSummaryDTO(chatId, List.copyOf(snapshot.keySet()),
+                            snapshot.values().stream().map(Typist::userName).toList(), snapshot.size());
+
+            // One shared frame for the chat; clients leave themselves out when rendering
+            fanoutService.sendToUsers(memberIds, "/typing", summary);
+        });
+    }
+
+    public Set<UUID> typingUserIds(UUID chatId) {
+        ChatTyping typing = chats.get(chatId);
+        return typing == null ? Set.of() : Set.copyOf(typing.typists.keySet());
+    }
+
+    private static final class ChatTyping {
+        private final Map<UUID, Typist> typists = new ConcurrentHashMap<>();
+        private volatile boolean dirty;
+    }
+
+    private record Typist(String userName, long expiresAt) {
+    }
+
+}
@@ -0,0 +1,281 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.dto.response.UnreadCountDTO;
+import com.nicolas.chatapp.model.Message;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps one unread counter per (user, chat) in memory so badges are maintained incrementally:
+ * a send bumps the other members, a read resets the reader, and rendering a chat list costs
+ * one lookup per chat. Counters are loaded lazily from the last checkpoint, in one batch per
+ * send or chat list, and the dirty ones are written back periodically, so a restart only replays
+ * messages sent since that checkpoint. Past {@code chat.unread.max-counters} clean counters are
+ * dropped after a checkpoint; they match the database and are simply loaded again when needed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UnreadCounterService {
+
+    private final ReadStateService readStateService;
+    private final ChatMembershipIndex membershipIndex;
+    private final WebSocketFanoutService fanoutService;
+
+    private final Map<CounterKey, AtomicLong> counters = new ConcurrentHashMap<>();
+    private final Set<CounterKey> dirty = ConcurrentHashMap.newKeySet();
+
+    @Value("${chat.unread.max-counters:100000}")
+    private int maxCounters;
+
+    public long getUnreadCount(UUID chatId, UUID userId) {
+        return getUnreadCounts(List.of(chatId), userId).get(chatId);
+    }
+
+    public Map<UUID, Long> getUnreadCounts(Collection<UUID> chatIds, UUID userId) {
+        Map<UUID, Long> unreadCounts = new HashMap<>();
+        counters(Set.copyOf(chatIds), Set.of(userId), new HashSet<>())
+                .forEach((key, counter) -> unreadCounts.put(key.chatId(), counter.get()));
+        return unreadCounts;
+    }
+
+    /**
+     * Must run after the message is saved: a counter loaded from the database at this point already includes it.
+     */
+    public void messageSent(Message message) {
+
+        UUID chatId = message.getChat().getId();
+        UUID senderId = message.getUser().getId();
+
+        Set<UUID> recipientIds = new HashSet<>(membershipIndex.memberIds(chatId));
+        if (recipientIds.remove(senderId)) {
+            reset(chatId, senderId);
+        }
+
+        Set<CounterKey> loaded = new HashSet<>();
+        counters(Set.of(chatId), recipientIds, loaded).forEach((key, counter) -> {
+            long unreadCount = loaded.contains(key) ? counter.get() : counter.incrementAndGet();
+            dirty.add(key);
+            publish(key, unreadCount);
+        });
+    }
+
+    /**
+     * Takes a deleted message back out of the badges of members that hadn't read it yet.
+     */
+    public void messageDeleted(Message message, Map<UUID, LocalDateTime> readWatermarks) {
+
+        UUID chatId = message.getChat().getId();
+
+        for (UUID memberId : membershipIndex.memberIds(chatId)) {
+            LocalDateTime lastReadAt = readWatermarks.get(memberId);
+            if (memberId.equals(message.getUser().getId())
+                    || (lastReadAt != null && !lastReadAt.isBefore(message.getTimeStamp()))) {
+                continue;
+            }
+
+            CounterKey key = new CounterKey(chatId, memberId);
+            AtomicLong counter = counters.get(key);
+            if (counter != null) {
+                long unreadCount = counter.updateAndGet(count -> Math.max(0, count - 1));
+                dirty.add(key);
+                publish(key, unreadCount);
+            }
+        }
+    }
+
+    public void markRead(UUID chatId, UUID userId) {
+        reset(chatId, userId);
+    }
+
+    public void evictChat(UUID chatId) {
+        counters.keySet().removeIf(key -> key.chatId().equals(chatId));
+        dirty.removeIf(key -> key.chatId().equals(chatId));
+    }
+
+    @Scheduled(fixedDelayString = "${chat.unread.checkpoint-interval-ms:5000}")
+    public void checkpoint() {
+
+        if (dirty.isEmpty()) {
+            evictClean();
+            return;
+        }
+
+        LocalDateTime checkpointAt = LocalDateTime.now();
+        Map<UUID, Map<UUID, Long>> unreadCountsByChat = new HashMap<>();
+        List<CounterKey> flushed = new ArrayList<>();
+
+        for (Iterator<CounterKey> it = dirty.iterator(); it.hasNext(); ) {
+            CounterKey key = it.next();
+            it.remove();
+            AtomicLong counter = counters.get(key);
+            if (counter instanceof PendingCounter pending && pending.isLoading()) {
+                // Holds only what was sent during the load so far, it's written once loaded
+                dirty.add(key);
+            } else if (counter != null) {
+                unreadCountsByChat.computeIfAbsent(key.chatId(), k -> new HashMap<>()).put(key.userId(), counter.get());
+                flushed.add(key);
+            }
+        }
+
+        try {
+            readStateService.checkpointUnreadCounts(unreadCountsByChat, checkpointAt);
+        } catch (DataAccessException e) {
+            log.warn("Unread counter checkpoint failed, retrying {} counters later: {}", flushed.size(), e.getMessage());
+            dirty.addAll(flushed);
+            return;
+        }
+        evictClean();
+    }
+
+    /**
+     * The counter of every given user in every given chat, loading the missing ones in a single batch.
+     * Each counter is looked up once, so callers update the instance they got even if it's evicted
+     * meanwhile; the database still has the message. Keys added to {@code loaded} got a fresh counter
+     * from the database, which already counts every message saved so far.
+     * <p>
+     * A missing counter is put in the map before its query runs and other callers wait for it rather than
+     * loading it again, so a send is never counted by both a load and an increment on top of it.
+     */
+    private Map<CounterKey, AtomicLong> counters(Set<UUID> chatIds, Set<UUID> userIds, Set<CounterKey> loaded) {
+
+        Map<CounterKey, AtomicLong> result = new HashMap<>();
+        Map<CounterKey, PendingCounter> pending = new HashMap<>();
+        for (UUID chatId : chatIds) {
+            for (UUID userId : userIds) {
+                CounterKey key = new CounterKey(chatId, userId);
+                PendingCounter placeholder = new PendingCounter();
+                AtomicLong existing = counters.putIfAbsent(key, placeholder);
+                if (existing == null) {
+                    pending.put(key, placeholder);
+                }
+                result.put(key, existing != null ? existing : placeholder);
+            }
+        }
+
+        if (!pending.isEmpty()) {
+            load(pending, loaded);
+        }
+
+        for (Map.Entry<CounterKey, AtomicLong> entry : result.entrySet()) {
+            if (entry.getValue() instanceof PendingCounter other && !pending.containsKey(entry.getKey()) && !other.await()) {
+                // The other load failed and took its placeholder out again
+                CounterKey key = entry.getKey();
+                entry.setValue(counters(Set.of(key.chatId()), Set.of(key.userId()), loaded).get(key));
+            }
+        }
+        return result;
+    }
+
+    private void load(Map<CounterKey, PendingCounter> pending, Set<CounterKey> loaded) {
+
+        Set<UUID> chatIds = new HashSet<>();
+        Set<UUID> userIds = new HashSet<>();
+        pending.keySet().forEach(key -> {
+            chatIds.add(key.chatId());
+            userIds.add(key.userId());
+        });
+
+        boolean succeeded = false;
+        try {
+            readStateService.loadUnreadCounts(chatIds, userIds).forEach((chatId, unreadCounts) ->
+                    unreadCounts.forEach((userId, unreadCount) -> {
+                        CounterKey key = new CounterKey(chatId, userId);
+                        PendingCounter counter = pending.get(key);
+                        if (counter != null) {
+                            counter.addAndGet(unreadCount);
+                            loaded.add(key);
+                        }
+                    }));
+            succeeded = true;
+        } finally {
+            if (!succeeded) {
+                pending.forEach(counters::remove);
+            }
+            for (PendingCounter counter : pending.values()) {
+                counter.loaded(succeeded);
+            }
+        }
+    }
+
+    private void evictClean() {
+
+        if (counters.size() <= maxCounters) {
+            return;
+        }
+
+        int before = counters.size();
+        for (Iterator<CounterKey> it = counters.keySet().iterator(); it.hasNext() && counters.size() > maxCounters; ) {
+            if (!dirty.contains(it.next())) {
+                it.remove();
+            }
+        }
+        log.debug("Evicted {} clean unread counters", before - counters.size());
+    }
+
+    private void reset(UUID chatId, UUID userId) {
+
+        CounterKey key = new CounterKey(chatId, userId);
+        AtomicLong previous = counters.put(key, new AtomicLong());
+        dirty.add(key);
+
+        if (previous == null || previous.get() != 0) {
+            publish(key, 0);
+        }
+    }
+
+    private void publish(CounterKey key, long unreadCount) {
+        fanoutService.sendToUsers(List.of(key.userId()), "", UnreadCountDTO.of(key.chatId(), unreadCount));
+    }
+
+    private record CounterKey(UUID chatId, UUID userId) {
+    }
+
+    /**
+     * A counter that is in the map while its value is still being loaded.
+     */
+    private static final class PendingCounter extends AtomicLong {
+
+        private final CountDownLatch loading = new CountDownLatch(1);
+        private volatile boolean succeeded;
+
+        private boolean isLoading() {
+            return loading.getCount() > 0;
+        }
+
+        private void loaded(boolean succeeded) {
+            this.succeeded = succeeded;
+            loading.countDown();
+        }
+
+        /**
+         * @return whether the load succeeded
+         */
+        private boolean await() {
+            boolean interrupted = false;
+            while (isLoading()) {
+                try {
+                    loading.await();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return succeeded;
+        }
+
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.nicolas.chatapp.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The last few encoded frames sent on each user's topic, numbered with a per-user sequence,
+ * so a reconnecting client can ask for exactly what it missed. Sequences start from the clock
+ * when a user's ring is created, so they keep increasing across eviction and restarts and a
+ * stale client position is always detected as a gap rather than matched against new events.
+ */
+@Service
+public class UserEventBuffer {
+
+    private final int capacity;
+    private final long retentionMillis;
+    private final Map<UUID, Ring> rings = new ConcurrentHashMap<>();
+
+    public UserEventBuffer(@Value("${chat.replay.buffer-size:256}") int capacity,
+                           @Value("${chat.replay.retention-ms:600000}") long retentionMillis) {
+        this.capacity = capacity;
+        this.retentionMillis = retentionMillis;
+    }
+
+    public long append(UUID userId, byte[] payload) {
+        return rings.computeIfAbsent(userId, id -> new Ring(capacity)).append(payload);
+    }
+
+    /**
+     * Events after {@code lastSeq}; {@code complete} is false when older events were already overwritten.
+     */
+    public Replay since(UUID userId, long lastSeq) {
+        Ring ring = rings.get(userId);
+        return ring == null ? new Replay(List.of(), false) : ring.since(lastSeq);
+    }
+
+    @Scheduled(fixedDelayString = "${chat.replay.retention-ms:600000}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        rings.values().removeIf(ring -> ring.lastAppendAt < cutoff);
+    }
+
+    public record Event(long seq, byte[] payload) {
+    }
+
+    public record Replay(List<Event> events, boolean complete) {
+    }
+
+    private static final class Ring {
+
+        private final Event[] slots;
+        private final long firstSeq = System.currentTimeMillis();
+        private long nextSeq = firstSeq;
+        private volatile long lastAppendAt = System.currentTimeMillis();
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private Ring(int capacity) {
+            this.slots = new Event[capacity];
+        }
+
+        long append(byte[] payload) {
+            lock.lock();
+            try {
+                long seq = nextSeq++;
+                slots[(int) (seq % slots.length)] = new Event(seq, payload);
+                lastAppendAt = System.currentTimeMillis();
+                return seq;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Replay since(long lastSeq) {
+            lock.lock();
+            try {
+                long oldest = Math.max(nextSeq - slots.length, firstSeq);
+                // Behind the oldest kept event, or a position from another incarnation of this ring
+                if (lastSeq + 1 < oldest || lastSeq >= nextSeq) {
+                    return new Replay(List.of(), false);
+                }
+
+                List<Event> events = new ArrayList<>((int) (nextSeq - lastSeq - 1));
+                for (long seq = lastSeq + 1; seq < nextSeq; seq++) {
+                    events.add(slots[(int) (seq % slots.length)]);
+                }
+                return new Replay(events, true);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+}
@@ -11,6 +11,10 @@ public interface UserService {
 
     User findUserById(UUID id) throws UserException;
 
+    /**
+     * The user the token belongs to, usually a copy of the cached principal whose online state may be stale.
+     * Reload it with {@link #findUserById(UUID)} before changing and saving it.
+     */
     User findUserByProfile(String jwt) throws UserException;
 
     User updateUser(UUID id, UpdateUserRequestDTO request) throws UserException;
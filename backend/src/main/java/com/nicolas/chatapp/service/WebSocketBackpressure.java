@@ -0,0 +1,262 @@
+package com.nicolas.chatapp.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Slow-consumer policy for outbound STOMP frames, applied before a frame is queued for a session.
+ * <p>
+ * Each session's backlog is the payload bytes accepted for it and not yet written to its transport,
+ * which covers the outbound executor queue and Spring's per-session send buffer. Once a session is
+ * congested (backlog or current write stalled past the drop limits) typing and presence frames are
+ * dropped; they are superseded by the next summary anyway. Once it is saturated, frames on the
+ * user's own topic are held back instead of queued: they are already kept in the
+ * {@link UserEventBuffer}, so once a scheduled pass sees the backlog drained the session is resynced
+ * with a replay from its last delivered sequence. Call signals are always queued. The transport's own send-time and
+ * buffer limits stay in place as the last resort that closes the session.
+ */
+@Slf4j
+@Service
+public class WebSocketBackpressure {
+
+    private static final byte[] MESSAGE_COMMAND = "MESSAGE\n".getBytes(StandardCharsets.UTF_8);
+
+    private final WebSocketFanoutService fanoutService;
+    private final WebSocketSessionRegistry sessionRegistry;
+    private final long dropBytes;
+    private final long deferBytes;
+    private final long dropAfterMillis;
+    private final long deferAfterMillis;
+
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final DistributionSummary bufferedBytes;
+    private final Counter droppedFrames;
+    private final Counter deferredFrames;
+    private final Counter resyncs;
+
+    // The fanout service sits on top of the broker channels this policy is wired into
+    public WebSocketBackpressure(@Lazy WebSocketFanoutService fanoutService,
+                                 WebSocketSessionRegistry sessionRegistry,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${chat.ws.backpressure.drop-bytes:65536}") long dropBytes,
+                                 @Value("${chat.ws.backpressure.defer-bytes:262144}") long deferBytes,
+                                 @Value("${chat.ws.backpressure.drop-after-ms:1000}") long dropAfterMillis,
+                                 @Value("${chat.ws.backpressure.defer-after-ms:3000}") long deferAfterMillis) {
+        this.fanoutService = fanoutService;
+        this.sessionRegistry = sessionRegistry;
+        this.dropBytes = dropBytes;
+        this.deferBytes = deferBytes;
+        this.dropAfterMillis = dropAfterMillis;
+        this.deferAfterMillis = deferAfterMillis;
+
+        this.bufferedBytes = DistributionSummary.builder("chat.ws.session.buffered")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.droppedFrames = meterRegistry.counter("chat.ws.frames.dropped");
+        this.deferredFrames = meterRegistry.counter("chat.ws.frames.deferred");
+        this.resyncs = meterRegistry.counter("chat.ws.resyncs");
+        Gauge.builder("chat.ws.buffered.max", sessions, WebSocketBackpressure::maxBacklog)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("chat.ws.buffered.total", sessions, WebSocketBackpressure::totalBacklog)
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Wraps a newly connected transport session so completed writes are accounted for.
+     */
+    public WebSocketSession track(WebSocketSession session) {
+        SessionState state = new SessionState();
+        sessions.put(session.getId(), state);
+        return new TrackedSession(session, state);
+    }
+
+    public void release(String sessionId) {
+        sessions.remove(sessionId);
+    }
+
+    /**
+     * Called for every frame sent to the client outbound channel.
+     *
+     * @return the frame, or null when it must not be queued for its session
+     */
+    public Message<?> admit(Message<?> message) {
+
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE) {
+            return message;
+        }
+
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(message.getHeaders());
+        SessionState state = sessionId != null ? sessions.get(sessionId) : null;
+        if (state == null) {
+            return message;
+        }
+
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        String seq = SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(WebSocketFanoutService.SEQUENCE_HEADER);
+        long now = System.currentTimeMillis();
+
+        if (isEphemeral(destination) && state.exceeds(dropBytes, dropAfterMillis, now)) {
+            droppedFrames.increment();
+            return null;
+        }
+
+        if (seq != null) {
+            // Once one frame is held back, later ones follow it so the replay keeps their order
+            if (state.resyncPending || state.exceeds(deferBytes, deferAfterMillis, now)) {
+                if (!state.resyncPending) {
+                    log.debug("Session {} is saturated ({} bytes buffered), holding back its frames", sessionId, state.backlog.get());
+                    state.resyncPending = true;
+                }
+                deferredFrames.increment();
+                return null;
+            }
+            state.lastSeq = Long.parseLong(seq);
+        }
+
+        state.backlog.addAndGet(payloadLength(message));
+        return message;
+    }
+
+    @Scheduled(fixedRateString = "${chat.ws.backpressure.sample-interval-ms:10000}")
+    public void sample() {
+        sessions.values().forEach(state -> bufferedBytes.record(state.backlog.get()));
+    }
+
+    /**
+     * Replays the held back frames of sessions that have drained. Runs apart from the transport's
+     * send path, and since it re-reads the backlog on every pass a session whose last write completed
+     * just before it was marked is still picked up.
+     */
+    @Scheduled(fixedDelayString = "${chat.ws.backpressure.resync-interval-ms:250}")
+    public void resync() {
+
+        long now = System.currentTimeMillis();
+        sessions.forEach((sessionId, state) -> {
+            if (!state.resyncPending || state.exceeds(dropBytes, dropAfterMillis, now)) {
+                return;
+            }
+            // Read before live frames are let through again, they move lastSeq past the held back ones
+            long lastSeq = state.lastSeq;
+            state.resyncPending = false;
+            sessionRegistry.userId(sessionId).ifPresent(userId -> {
+                resyncs.increment();
+                fanoutService.replay(userId, lastSeq);
+            });
+        });
+    }
+
+    private static void written(SessionState state, int bodyLength) {
+        long backlog = state.backlog.addAndGet(-bodyLength);
+        if (backlog < 0) {
+            state.backlog.compareAndSet(backlog, 0);
+        }
+    }
+
+    private static boolean isEphemeral(String destination) {
+        return destination != null && (destination.endsWith("/typing") || destination.endsWith("/online"));
+    }
+
+    private static int payloadLength(Message<?> message) {
+        return message.getPayload() instanceof byte[] bytes ? bytes.length : 0;
+    }
+
+    /**
+     * Body length of an encoded STOMP MESSAGE frame, i.e. the payload length {@link #admit} counted,
+     * or -1 for other frames.
+     */
+    private static int bodyLength(WebSocketMessage<?> message) {
+
+        ByteBuffer frame;
+        if (message instanceof TextMessage text) {
+            frame = ByteBuffer.wrap(text.asBytes());
+        } else if (message instanceof BinaryMessage binary) {
+            frame = binary.getPayload().duplicate();
+        } else {
+            return -1;
+        }
+
+        if (frame.remaining() < MESSAGE_COMMAND.length
+                || !frame.slice(frame.position(), MESSAGE_COMMAND.length).equals(ByteBuffer.wrap(MESSAGE_COMMAND))) {
+            return -1;
+        }
+        for (int i = frame.position(); i < frame.limit() - 1; i++) {
+            if (frame.get(i) == '\n' && frame.get(i + 1) == '\n') {
+                // Body runs from after the blank line up to the trailing NUL
+                return Math.max(frame.limit() - (i + 2) - 1, 0);
+            }
+        }
+        return -1;
+    }
+
+    private static double maxBacklog(Map<String, SessionState> sessions) {
+        return sessions.values().stream().mapToLong(state -> state.backlog.get()).max().orElse(0);
+    }
+
+    private static double totalBacklog(Map<String, SessionState> sessions) {
+        return sessions.values().stream().mapToLong(state -> state.backlog.get()).sum();
+    }
+
+    private static final class SessionState {
+
+        private final AtomicLong backlog = new AtomicLong();
+        private volatile long writeStartedAt;
+        private volatile boolean resyncPending;
+        private volatile long lastSeq = -1;
+
+        private boolean exceeds(long bytes, long millis, long now) {
+            long startedAt = writeStartedAt;
+            return backlog.get() > bytes || (startedAt != 0 && now - startedAt > millis);
+        }
+
+    }
+
+    private final class TrackedSession extends WebSocketSessionDecorator {
+
+        private final SessionState state;
+
+        private TrackedSession(WebSocketSession session, SessionState state) {
+            super(session);
+            this.state = state;
+        }
+
+        @Override
+        public void sendMessage(WebSocketMessage<?> message) throws IOException {
+            state.writeStartedAt = System.currentTimeMillis();
+            try {
+                super.sendMessage(message);
+            } finally {
+                state.writeStartedAt = 0;
+                int bodyLength = bodyLength(message);
+                if (bodyLength >= 0) {
+                    written(state, bodyLength);
+                }
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.nicolas.chatapp.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolas.chatapp.dto.response.ResyncDTO;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Encodes a payload to JSON once and hands the same byte frame to every destination,
+ * instead of letting {@code convertAndSend} run Jackson again per recipient.
+ * Frames on a user's own topic also carry a {@value #SEQUENCE_HEADER} header and are kept in
+ * the {@link UserEventBuffer}, so a reconnecting client can ask for what it missed.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WebSocketFanoutService {
+
+    public static final String SEQUENCE_HEADER = "seq";
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final UserEventBuffer eventBuffer;
+
+    public void send(String destination, Object payload) {
+        send(List.of(destination), payload);
+    }
+
+    /**
+     * Delivers the payload to {@code /topic/{userId}} followed by the suffix, e.g. {@code "/typing"}, for each user.
+     * Only the user's own topic (empty suffix) is sequenced and replayable; the sub-topics carry transient state.
+     */
+    public void sendToUsers(Collection<UUID> userIds, String suffix, Object payload) {
+
+        if (!suffix.isEmpty()) {
+            send(userIds.stream().map(userId -> userTopic(userId) + suffix).toList(), payload);
+            return;
+        }
+
+        byte[] encoded = encode(payload);
+        if (encoded == null) {
+            return;
+        }
+
+        for (UUID userId : userIds) {
+            deliver(userTopic(userId), encoded, eventBuffer.append(userId, encoded));
+        }
+    }
+
+    public void send(Collection<String> destinations, Object payload) {
+
+        if (destinations.isEmpty()) {
+            return;
+        }
+
+        byte[] encoded = encode(payload);
+        if (encoded == null) {
+            return;
+        }
+
+        for (String destination : destinations) {
+            deliver(destination, encoded, null);
+        }
+    }
+
+    /**
+     * Re-sends the user's events after {@code lastSeq} with their original sequence numbers, or a
+     * {@link ResyncDTO} when the buffer no longer reaches back that far.
+     */
+    public void replay(UUID userId, long lastSeq) {
+
+        UserEventBuffer.Replay replay = eventBuffer.since(userId, lastSeq);
+        if (!replay.complete()) {
+            byte[] resync = encode(ResyncDTO.of(lastSeq));
+            if (resync != null) {
+                deliver(userTopic(userId), resync, null);
+            }
+            return;
+        }
+
+        for (UserEventBuffer.Event event : replay.events()) {
+            deliver(userTopic(userId), event.payload(), event.seq());
+        }
+    }
+
+    private void deliver(String destination, byte[] payload, Long seq) {
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        if (seq != null) {
+            accessor.setNativeHeader(SEQUENCE_HEADER, Long.toString(seq));
+        }
+        accessor.setLeaveMutable(true);
+        Message<byte[]> frame = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+
+        try {
+            // Only the headers are per destination; the payload array is shared
+            messagingTemplate.send(destination, frame);
+        } catch (MessagingException e) {
+            log.debug("Could not send to {} (client may be disconnected)", destination);
+        }
+    }
+
+    private byte[] encode(Object payload) {
+        try {
+            return objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("Could not encode {} for fanout: {}", payload.getClass().getSimpleName(), e.getMessage());
+            return null;
+        }
+    }
+
+    private static String userTopic(UUID userId) {
+        return "/topic/" + userId;
+    }
+
+}
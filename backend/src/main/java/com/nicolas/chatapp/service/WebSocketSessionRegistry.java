@@ -0,0 +1,193 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.config.JwtConstants;
+import com.nicolas.chatapp.model.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Which users are connected to this node, by STOMP session. Sessions are registered from the
+ * CONNECT frame's Authorization header, kept alive by any inbound frame including heartbeats,
+ * and removed on disconnect or by the reaper once they go quiet for longer than the timeout. A reaped
+ * session's transport is closed too, so a client that is still there reconnects and registers again.
+ * A user is online while at least one of their sessions is alive; presence is driven from here.
+ */
+@Slf4j
+@Service
+public class WebSocketSessionRegistry {
+
+    private final UserService userService;
+    private final PresenceService presenceService;
+    private final long sessionTimeoutMillis;
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Map<String, WebSocketSession> transports = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<String>> sessionsByUser = new ConcurrentHashMap<>();
+    private final Counter reaped;
+
+    public WebSocketSessionRegistry(UserService userService,
+                                    PresenceService presenceService,
+                                    MeterRegistry meterRegistry,
+                                    @Value("${chat.ws.session-timeout-ms:60000}") long sessionTimeoutMillis) {
+        this.userService = userService;
+        this.presenceService = presenceService;
+        this.sessionTimeoutMillis = sessionTimeoutMillis;
+
+        this.reaped = meterRegistry.counter("chat.ws.sessions.reaped");
+        Gauge.builder("chat.ws.sessions", sessions, Map::size).register(meterRegistry);
+        Gauge.builder("chat.ws.users", sessionsByUser, Map::size).register(meterRegistry);
+    }
+
+    @EventListener
+    public void onConnect(SessionConnectEvent event) {
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        String jwt = accessor.getFirstNativeHeader(JwtConstants.TOKEN_HEADER);
+        if (jwt == null || accessor.getSessionId() == null) {
+            return;
+        }
+
+        User user;
+        try {
+            user = userService.findUserByProfile(jwt);
+        } catch (Exception e) {
+            log.debug("Not registering session {}: {}", accessor.getSessionId(), e.getMessage());
+            return;
+        }
+
+        register(accessor.getSessionId(), user.getId());
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        unregister(event.getSessionId());
+    }
+
+    /**
+     * Called when a transport session opens, before its CONNECT frame.
+     */
+    public void opened(WebSocketSession transport) {
+        transports.put(transport.getId(), transport);
+    }
+
+    public void closed(String sessionId) {
+        transports.remove(sessionId);
+    }
+
+    /**
+     * Called for every inbound frame of a session, heartbeats included.
+     */
+    public void touch(String sessionId) {
+        Session session = sessions.get(sessionId);
+        if (session != null) {
+            session.lastActive = System.currentTimeMillis();
+        }
+    }
+
+    public Optional<UUID> userId(String sessionId) {
+        return Optional.ofNullable(sessions.get(sessionId)).map(session -> session.userId);
+    }
+
+    public boolean isConnected(UUID userId) {
+        return sessionsByUser.containsKey(userId);
+    }
+
+    public int sessionCount(UUID userId) {
+        return sessionsByUser.getOrDefault(userId, Set.of()).size();
+    }
+
+    @Scheduled(fixedDelayString = "${chat.ws.reap-interval-ms:30000}")
+    public void reap() {
+        reap(System.currentTimeMillis());
+    }
+
+    void reap(long now) {
+        long cutoff = now - sessionTimeoutMillis;
+        sessions.forEach((sessionId, session) -> {
+            if (session.lastActive < cutoff) {
+                log.debug("Reaping silent session {} of user {}", sessionId, session.userId);
+                reaped.increment();
+                unregister(sessionId);
+                close(sessionId);
+            }
+        });
+    }
+
+    void register(String sessionId, UUID userId) {
+
+        sessions.put(sessionId, new Session(userId, System.currentTimeMillis()));
+
+        boolean[] first = {false};
+        sessionsByUser.compute(userId, (id, userSessions) -> {
+            if (userSessions == null) {
+                userSessions = ConcurrentHashMap.newKeySet();
+                first[0] = true;
+            }
+            userSessions.add(sessionId);
+            return userSessions;
+        });
+
+        if (first[0]) {
+            presenceService.update(userId, true);
+        }
+    }
+
+    void unregister(String sessionId) {
+
+        Session session = sessions.remove(sessionId);
+        if (session == null) {
+            return;
+        }
+
+        boolean[] last = {false};
+        sessionsByUser.computeIfPresent(session.userId, (id, userSessions) -> {
+            userSessions.remove(sessionId);
+            last[0] = userSessions.isEmpty();
+            return last[0] ? null : userSessions;
+        });
+
+        if (last[0]) {
+            presenceService.update(session.userId, false);
+        }
+    }
+
+    private void close(String sessionId) {
+        WebSocketSession transport = transports.remove(sessionId);
+        if (transport == null) {
+            return;
+        }
+        try {
+            transport.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("Closing reaped session {} failed: {}", sessionId, e.getMessage());
+        }
+    }
+
+    private static final class Session {
+
+        private final UUID userId;
+        private volatile long lastActive;
+
+        private Session(UUID userId, long lastActive) {
+            this.userId = userId;
+            this.lastActive = lastActive;
+        }
+
+    }
+
+}
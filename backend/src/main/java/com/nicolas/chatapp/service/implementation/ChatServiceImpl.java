@@ -4,12 +4,28 @@ import com.nicolas.chatapp.dto.request.GroupChatRequestDTO;
 import com.nicolas.chatapp.exception.ChatException;
 import com.nicolas.chatapp.exception.UserException;
 import com.nicolas.chatapp.model.Chat;
+import com.nicolas.chatapp.model.Message;
 import com.nicolas.chatapp.model.User;
 import com.nicolas.chatapp.repository.ChatRepository;
+import com.nicolas.chatapp.repository.MessageRepository;
+import com.nicolas.chatapp.service.AvatarService;
+import com.nicolas.chatapp.service.ChangeLogService;
+import com.nicolas.chatapp.service.ChatMembershipIndex;
 import com.nicolas.chatapp.service.ChatService;
+import com.nicolas.chatapp.service.FileStorageService;
+import com.nicolas.chatapp.service.ReadStateService;
+import com.nicolas.chatapp.service.UnreadCounterService;
 import com.nicolas.chatapp.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -18,10 +34,23 @@ import java.util.*;
 @RequiredArgsConstructor
 public class ChatServiceImpl implements ChatService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+    private static final int PREVIEW_LENGTH = 120;
+
     private final UserService userService;
     private final ChatRepository chatRepository;
+    private final MessageRepository messageRepository;
+    private final ReadStateService readStateService;
+    private final UnreadCounterService unreadCounterService;
+    private final ChatMembershipIndex membershipIndex;
+    private final ChangeLogService changeLogService;
+    private final FileStorageService fileStorageService;
+    private final AvatarService avatarService;
+    private final PlatformTransactionManager transactionManager;
 
     @Override
+    @Transactional
     public Chat createChat(User reqUser, UUID userId2) throws UserException {
 
         User user2 = userService.findUserById(userId2);
@@ -38,7 +67,11 @@ public class ChatServiceImpl implements ChatService {
                 .isGroup(false)
                 .build();
 
-        return chatRepository.save(chat);
+        Chat saved = saveMembership(chat);
+        List<UUID> memberIds = List.of(reqUser.getId(), user2.getId());
+        readStateService.seed(saved.getId(), memberIds, LocalDateTime.now());
+        changeLogService.membersAdded(saved.getId(), memberIds);
+        return saved;
     }
 
     @Override
@@ -55,26 +88,21 @@ public class ChatServiceImpl implements ChatService {
 
     @Override
     public List<Chat> findAllByUserId(UUID userId) throws UserException {
+        User user = userService.findUserById(userId);
+        return chatRepository.findChatsByUserIdOrderByActivity(user.getId(), Pageable.unpaged());
+    }
+
+    @Override
+    public List<Chat> findAllByUserId(UUID userId, int page, int size) throws UserException {
 
         User user = userService.findUserById(userId);
+        int pageSize = size <= 0 ? DEFAULT_PAGE_SIZE : Math.min(size, MAX_PAGE_SIZE);
 
-        return chatRepository.findChatByUserId(user.getId()).stream()
-                .sorted((chat1, chat2) -> {
-                    if (chat1.getMessages().isEmpty() && chat2.getMessages().isEmpty()) {
-                        return 0;
-                    } else if (chat1.getMessages().isEmpty()) {
-                        return 1;
-                    } else if (chat2.getMessages().isEmpty()) {
-                        return -1;
-                    }
-                    LocalDateTime timeStamp1 = chat1.getMessages().get(chat1.getMessages().size() - 1).getTimeStamp();
-                    LocalDateTime timeStamp2 = chat2.getMessages().get(chat2.getMessages().size() - 1).getTimeStamp();
-                    return timeStamp2.compareTo(timeStamp1);
-                })
-                .toList();
+        return chatRepository.findChatsByUserIdOrderByActivity(user.getId(), PageRequest.of(Math.max(page, 0), pageSize));
     }
 
     @Override
+    @Transactional
     public Chat createGroup(GroupChatRequestDTO req, User reqUser) throws UserException {
 
         Chat groupChat = Chat.builder()
@@ -90,63 +118,90 @@ public class ChatServiceImpl implements ChatService {
             groupChat.getUsers().add(userToAdd);
         }
 
-        return chatRepository.save(groupChat);
+        Chat saved = saveMembership(groupChat);
+        List<UUID> memberIds = saved.getUsers().stream().map(User::getId).toList();
+        readStateService.seed(saved.getId(), memberIds, LocalDateTime.now());
+        changeLogService.membersAdded(saved.getId(), memberIds);
+        return saved;
     }
 
     @Override
+    @Transactional
     public Chat addUserToGroup(UUID userId, UUID chatId, User reqUser) throws UserException, ChatException {
 
         Chat chat = findChatById(chatId);
         User user = userService.findUserById(userId);
 
-        if (chat.getAdmins().contains(reqUser)) {
+        if (membershipIndex.isAdmin(chat.getId(), reqUser.getId())) {
             chat.getUsers().add(user);
-            return chatRepository.save(chat);
+            Chat saved = saveMembership(chat);
+            // A new member starts with the history read, it isn't theirs to catch up on
+            readStateService.seed(chatId, List.of(userId), LocalDateTime.now());
+            changeLogService.membersAdded(chatId, List.of(userId));
+            return saved;
         }
 
         throw new UserException("User doesn't have permissions to add members to group chat");
     }
 
     @Override
+    @Transactional
     public Chat renameGroup(UUID chatId, String groupName, User reqUser) throws UserException, ChatException {
 
         Chat chat = findChatById(chatId);
 
-        if (chat.getAdmins().contains(reqUser)) {
+        if (membershipIndex.isAdmin(chat.getId(), reqUser.getId())) {
             chat.setChatName(groupName);
-            return chatRepository.save(chat);
+            Chat saved = chatRepository.save(chat);
+            changeLogService.chatUpdated(chatId);
+            return saved;
         }
 
         throw new UserException("User doesn't have permissions to rename group chat");
     }
 
     @Override
+    @Transactional
     public Chat removeFromGroup(UUID chatId, UUID userId, User reqUser) throws UserException, ChatException {
 
         Chat chat = findChatById(chatId);
         User user = userService.findUserById(userId);
 
-        boolean isAdminOrRemoveSelf = chat.getAdmins().contains(reqUser) ||
-                (chat.getUsers().contains(reqUser) && user.getId().equals(reqUser.getId()));
+        boolean isAdminOrRemoveSelf = membershipIndex.isAdmin(chat.getId(), reqUser.getId()) ||
+                (membershipIndex.isMember(chat.getId(), reqUser.getId()) && user.getId().equals(reqUser.getId()));
 
         if (isAdminOrRemoveSelf) {
             chat.getUsers().remove(user);
-            return chatRepository.save(chat);
+            Chat saved = saveMembership(chat);
+            changeLogService.memberRemoved(chatId, userId);
+            return saved;
         }
 
         throw new UserException("User doesn't have permissions to remove users from group chat");
     }
 
     @Override
+    @Transactional
     public void deleteChat(UUID chatId, UUID userId) throws UserException, ChatException {
 
         Chat chat = findChatById(chatId);
         User user = userService.findUserById(userId);
 
-        boolean isSingleChatOrAdmin = !chat.getIsGroup() || chat.getAdmins().contains(user);
+        boolean isSingleChatOrAdmin = !chat.getIsGroup() || membershipIndex.isAdmin(chat.getId(), user.getId());
 
         if (isSingleChatOrAdmin) {
+            List<UUID> memberIds = membershipIndex.memberIds(chatId);
+            List<String> filePaths = messageRepository.findFilePathsByChatId(chatId);
+            String groupPicture = chat.getGroupProfilePicture();
             chatRepository.deleteById(chatId);
+            readStateService.deleteByChatId(chatId);
+            membershipIndex.remove(chatId);
+            changeLogService.chatDeleted(chatId, memberIds);
+            afterCommit(() -> {
+                unreadCounterService.evictChat(chatId);
+                filePaths.forEach(fileStorageService::release);
+                avatarService.release(groupPicture);
+            });
             return;
         }
 
@@ -154,23 +209,108 @@ public class ChatServiceImpl implements ChatService {
     }
 
     @Override
+    @Transactional
     public Chat markAsRead(UUID chatId, User reqUser) throws ChatException, UserException {
 
         Chat chat = findChatById(chatId);
 
-        if (chat.getUsers().contains(reqUser)) {
-            chat.getMessages().forEach(msg -> msg.getReadBy().add(reqUser.getId()));
-
-            return chatRepository.save(chat);
+        if (membershipIndex.isMember(chat.getId(), reqUser.getId())) {
+            List<Message> latest = messageRepository.findLatestByChatId(chat.getId(), PageRequest.of(0, 1));
+            if (!latest.isEmpty()) {
+                Message last = latest.get(0);
+                readStateService.markRead(chat.getId(), reqUser.getId(), last.getTimeStamp(), last.getId());
+            }
+            unreadCounterService.markRead(chat.getId(), reqUser.getId());
+            changeLogService.chatRead(chat.getId(), reqUser.getId());
+            return chat;
         }
 
-
         throw new UserException("User is not related to chat");
     }
 
+    private Chat saveMembership(Chat chat) {
+        Chat saved = chatRepository.save(chat);
+        membershipIndex.update(saved);
+        return saved;
+    }
+
     @Override
+    @Transactional
     public Chat updateChat(Chat chat) throws ChatException {
-        return chatRepository.save(chat);
+        Chat saved = chatRepository.save(chat);
+        changeLogService.chatUpdated(saved.getId());
+        return saved;
+    }
+
+    @Override
+    @Transactional
+    public void recordMessageSent(Message message) {
+        recordMessagesSent(List.of(message));
+    }
+
+    @Override
+    @Transactional
+    public void recordMessagesSent(List<Message> messages) {
+
+        // In chat id order, so concurrent batches lock the chat rows in the same order
+        Map<UUID, List<Message>> byChat = new TreeMap<>();
+        for (Message message : messages) {
+            byChat.computeIfAbsent(message.getChat().getId(), id -> new ArrayList<>()).add(message);
+        }
+
+        byChat.forEach((chatId, sent) -> {
+            Message latest = Collections.max(sent, Comparator.comparing(Message::getTimeStamp));
+            chatRepository.incrementMessageCount(chatId, sent.size());
+            chatRepository.recordMessageSent(chatId, latest.getTimeStamp(), preview(latest), latest.getUser());
+        });
+        changeLogService.messagesCreated(messages);
+    }
+
+    @Override
+    @Transactional
+    public void recordMessageDeleted(Message message) {
+
+        changeLogService.messageDeleted(message);
+
+        UUID chatId = message.getChat().getId();
+        List<Message> latest = messageRepository.findLatestByChatId(chatId, PageRequest.of(0, 1));
+
+        if (latest.isEmpty()) {
+            chatRepository.recordMessageDeleted(chatId, null, null, null);
+            return;
+        }
+
+        Message last = latest.get(0);
+        chatRepository.recordMessageDeleted(chatId, last.getTimeStamp(), preview(last), last.getUser());
+    }
+
+    /**
+     * Runs in-memory side effects and file releases once the surrounding transaction has committed.
+     * The committed transaction's resources are still bound at that point, so the action gets its own.
+     */
+    private void afterCommit(Runnable action) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionTemplate ownTransaction = new TransactionTemplate(transactionManager);
+        ownTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ownTransaction.executeWithoutResult(status -> action.run());
+            }
+        });
+    }
+
+    private static String preview(Message message) {
+        String text = message.getContent();
+        if (text == null || text.isBlank()) {
+            text = Objects.requireNonNullElse(message.getFileName(), "");
+        }
+        return text.length() > PREVIEW_LENGTH ? text.substring(0, PREVIEW_LENGTH) : text;
     }
 
 }
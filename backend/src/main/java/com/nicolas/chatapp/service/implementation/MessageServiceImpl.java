@@ -1,7 +1,9 @@
 package com.nicolas.chatapp.service.implementation;
 
+import com.nicolas.chatapp.dto.request.MessageCursorDTO;
 import com.nicolas.chatapp.dto.request.SendMessageRequestDTO;
 import com.nicolas.chatapp.dto.response.MessageDTO;
+import com.nicolas.chatapp.dto.response.MessagePageDTO;
 import com.nicolas.chatapp.exception.ChatException;
 import com.nicolas.chatapp.exception.MessageException;
 import com.nicolas.chatapp.exception.UserException;
@@ -9,12 +11,23 @@ import com.nicolas.chatapp.model.Chat;
 import com.nicolas.chatapp.model.Message;
 import com.nicolas.chatapp.model.User;
 import com.nicolas.chatapp.repository.MessageRepository;
+import com.nicolas.chatapp.service.ChatMembershipIndex;
 import com.nicolas.chatapp.service.ChatService;
+import com.nicolas.chatapp.service.DiagnosticEventService;
+import com.nicolas.chatapp.service.FileStorageService;
+import com.nicolas.chatapp.service.MessageBatchWriter;
 import com.nicolas.chatapp.service.MessageService;
+import com.nicolas.chatapp.service.ReadStateService;
+import com.nicolas.chatapp.service.StoredFile;
+import com.nicolas.chatapp.service.ThumbnailService;
+import com.nicolas.chatapp.service.UnreadCounterService;
 import com.nicolas.chatapp.service.UserService;
+import com.nicolas.chatapp.service.WebSocketFanoutService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -23,10 +36,21 @@ import java.util.*;
 @RequiredArgsConstructor
 public class MessageServiceImpl implements MessageService {
 
+    private static final int DEFAULT_PAGE_SIZE = 50;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final UserService userService;
     private final ChatService chatService;
     private final MessageRepository messageRepository;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final ReadStateService readStateService;
+    private final MessageBatchWriter messageBatchWriter;
+    private final UnreadCounterService unreadCounterService;
+    private final ChatMembershipIndex membershipIndex;
+    private final WebSocketFanoutService fanoutService;
+    private final DiagnosticEventService diagnosticEvents;
+    private final FileStorageService fileStorageService;
+    private final ThumbnailService thumbnailService;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
     public Message sendMessage(SendMessageRequestDTO req, UUID userId) throws UserException, ChatException {
@@ -34,57 +58,22 @@ public class MessageServiceImpl implements MessageService {
         User user = userService.findUserById(userId);
         Chat chat = chatService.findChatById(req.chatId());
 
-        System.out.println("=== SEND MESSAGE CALLED ===");
-        System.out.println("User: " + user.getEmail());
-        System.out.println("Chat: " + chat.getId());
-        
         Message message = Message.builder()
                 .chat(chat)
                 .user(user)
                 .content(req.content())
                 .timeStamp(LocalDateTime.now())
-                .readBy(new HashSet<>(Set.of(user.getId())))
                 .build();
 
-        System.out.println("=== BEFORE SAVE ===");
-        chat.getMessages().add(message);
-        Message savedMessage = messageRepository.save(message);
-        System.out.println("=== AFTER SAVE ===");
-        
-        System.out.println("=== MESSAGE SAVED, STARTING BROADCAST ===");
-        System.out.println("Message ID: " + savedMessage.getId());
-        System.out.println("Chat ID: " + chat.getId());
-        System.out.println("Number of users in chat: " + chat.getUsers().size());
-        
-        // Broadcast message to all users in the chat via WebSocket
-        try {
-            MessageDTO messageDTO = MessageDTO.fromMessage(savedMessage);
-            System.out.println("MessageDTO created: " + messageDTO);
-            System.out.println("Broadcasting message to " + chat.getUsers().size() + " users");
-            
-            for (User chatUser : chat.getUsers()) {
-                String topic = "/topic/" + chatUser.getId();
-                System.out.println("Sending message to topic: " + topic + " for user: " + chatUser.getEmail());
-                try {
-                    messagingTemplate.convertAndSend(topic, messageDTO);
-                    System.out.println("Message sent successfully to: " + topic);
-                } catch (Exception sendEx) {
-                    // Client might be disconnected - this is normal, just log at debug level
-                    System.out.println("Could not send to " + topic + " (client may be disconnected)");
-                }
-            }
-            System.out.println("=== BROADCAST COMPLETED ===");
-        } catch (Exception e) {
-            System.err.println("ERROR during broadcast: " + e.getMessage());
-            e.printStackTrace();
-        }
-        
+        Message savedMessage = persist(message);
+        unreadCounterService.messageSent(savedMessage);
+        broadcast(chat, MessageDTO.fromMessage(savedMessage));
+
         return savedMessage;
     }
 
     @Override
-    public Message sendMessageWithFile(SendMessageRequestDTO req, UUID userId, String filePath, 
-                                      String fileName, String fileType, Long fileSize) 
+    public Message sendMessageWithFile(SendMessageRequestDTO req, UUID userId, StoredFile file, String fileName)
             throws UserException, ChatException {
 
         User user = userService.findUserById(userId);
@@ -95,35 +84,139 @@ public class MessageServiceImpl implements MessageService {
                 .user(user)
                 .content(req.content())
                 .timeStamp(LocalDateTime.now())
-                .readBy(new HashSet<>(Set.of(user.getId())))
-                .filePath(filePath)
+                .filePath(file.path())
                 .fileName(fileName)
-                .fileType(fileType)
-                .fileSize(fileSize)
+                .fileType(file.contentType())
+                .fileSize(file.size())
+                .fileChecksum(file.sha256())
                 .build();
 
-        chat.getMessages().add(message);
-        Message savedMessage = messageRepository.save(message);
+        Message savedMessage = persist(message);
+        unreadCounterService.messageSent(savedMessage);
+        thumbnailService.submit(savedMessage.getFilePath(), savedMessage.getFileType());
         
         // Broadcast message to all users in the chat via WebSocket
-        MessageDTO messageDTO = MessageDTO.fromMessage(savedMessage);
-        for (User chatUser : chat.getUsers()) {
-            messagingTemplate.convertAndSend("/topic/" + chatUser.getId(), messageDTO);
-        }
+        broadcast(chat, MessageDTO.fromMessage(savedMessage));
         
         return savedMessage;
     }
 
+    private void broadcast(Chat chat, MessageDTO messageDTO) {
+        List<UUID> memberIds = membershipIndex.memberIds(chat.getId());
+        fanoutService.sendToUsers(memberIds, "", messageDTO);
+        diagnosticEvents.debug("message.send", "broadcast", "messageId", messageDTO.id(), "chatId", chat.getId(),
+                "recipients", memberIds.size());
+    }
+
+    private Message persist(Message message) {
+
+        if (messageBatchWriter.isEnabled()) {
+            return messageBatchWriter.write(message);
+        }
+
+        // One commit for the message, the chat summary, the change log row and the sender's watermark
+        return transactionTemplate.execute(status -> {
+            Message savedMessage = messageRepository.save(message);
+            chatService.recordMessageSent(savedMessage);
+            readStateService.markRead(savedMessage.getChat().getId(), savedMessage.getUser().getId(),
+                    savedMessage.getTimeStamp(), savedMessage.getId());
+            return savedMessage;
+        });
+    }
+
     @Override
     public List<Message> getChatMessages(UUID chatId, User reqUser) throws UserException, ChatException {
+        requireChatMember(chatId, reqUser);
+        List<Message> messages = messageRepository.findLatestByChatId(chatId, Pageable.unpaged());
+        return chronological(messages, messages.size());
+    }
+
+    @Override
+    public MessagePageDTO getChatMessagesBefore(UUID chatId, MessageCursorDTO cursor, int limit, User reqUser)
+            throws UserException, ChatException {
+
+        requireChatMember(chatId, reqUser);
+        int size = clampPageSize(limit);
+
+        List<Message> older = cursor == null
+                ? messageRepository.findLatestByChatId(chatId, PageRequest.of(0, size + 1))
+                : messageRepository.findBeforeCursor(chatId, cursor.timeStamp(), cursor.id(), PageRequest.of(0, size + 1));
 
-        Chat chat = chatService.findChatById(chatId);
+        return MessagePageDTO.fromMessages(chronological(older, size), readStateService.findWatermarks(chatId),
+                older.size() > size, cursor != null);
+    }
 
-        if (!chat.getUsers().contains(reqUser)) {
-            throw new UserException("User isn't related to chat " + chatId);
+    @Override
+    public MessagePageDTO getChatMessagesAfter(UUID chatId, MessageCursorDTO cursor, int limit, User reqUser)
+            throws UserException, ChatException {
+
+        if (cursor == null) {
+            return getChatMessagesBefore(chatId, null, limit, reqUser);
+        }
+
+        requireChatMember(chatId, reqUser);
+        int size = clampPageSize(limit);
+
+        List<Message> newer = messageRepository.findAfterCursor(chatId, cursor.timeStamp(), cursor.id(),
+                PageRequest.of(0, size + 1));
+
+        return MessagePageDTO.fromMessages(newer.subList(0, Math.min(size, newer.size())),
+                readStateService.findWatermarks(chatId), true, newer.size() > size);
+    }
+
+    @Override
+    public MessagePageDTO getChatMessagesAround(UUID chatId, UUID messageId, int limit, User reqUser)
+            throws UserException, ChatException, MessageException {
+
+        requireChatMember(chatId, reqUser);
+        Message anchor = findMessageById(messageId);
+
+        if (!anchor.getChat().getId().equals(chatId)) {
+            throw new MessageException("Message " + messageId + " doesn't belong to chat " + chatId);
+        }
+
+        int size = clampPageSize(limit);
+        int olderSize = (size - 1) / 2;
+        int newerSize = size - 1 - olderSize;
+
+        List<Message> older = messageRepository.findBeforeCursor(chatId, anchor.getTimeStamp(), anchor.getId(),
+                PageRequest.of(0, olderSize + 1));
+        List<Message> newer = messageRepository.findAfterCursor(chatId, anchor.getTimeStamp(), anchor.getId(),
+                PageRequest.of(0, newerSize + 1));
+
+        List<Message> messages = chronological(older, olderSize);
+        messages.add(anchor);
+        messages.addAll(newer.subList(0, Math.min(newerSize, newer.size())));
+
+        return MessagePageDTO.fromMessages(messages, readStateService.findWatermarks(chatId),
+                older.size() > olderSize, newer.size() > newerSize);
+    }
+
+    private void requireChatMember(UUID chatId, User reqUser) throws UserException, ChatException {
+
+        if (membershipIndex.isMember(chatId, reqUser.getId())) {
+            return;
         }
 
-        return messageRepository.findByChat_Id(chat.getId());
+        // Not a member: still report a missing chat as such
+        chatService.findChatById(chatId);
+        throw new UserException("User isn't related to chat " + chatId);
+    }
+
+    /**
+     * Turns a newest-first keyset slice into chronological order, dropping the look-ahead row.
+     */
+    private static List<Message> chronological(List<Message> newestFirst, int size) {
+        List<Message> messages = new ArrayList<>(newestFirst.subList(0, Math.min(size, newestFirst.size())));
+        Collections.reverse(messages);
+        return messages;
+    }
+
+    private static int clampPageSize(int limit) {
+        if (limit <= 0) {
+            return DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(limit, MAX_PAGE_SIZE);
     }
 
     @Override
@@ -144,7 +237,12 @@ public class MessageServiceImpl implements MessageService {
         Message message = findMessageById(messageId);
 
         if (message.getUser().getId().equals(reqUser.getId())) {
-            messageRepository.deleteById(messageId);
+            transactionTemplate.executeWithoutResult(status -> {
+                messageRepository.deleteById(messageId);
+                chatService.recordMessageDeleted(message);
+            });
+            fileStorageService.release(message.getFilePath());
+            unreadCounterService.messageDeleted(message, readStateService.findWatermarks(message.getChat().getId()));
             return;
         }
 
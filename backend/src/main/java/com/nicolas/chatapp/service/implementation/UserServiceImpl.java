@@ -1,6 +1,6 @@
 package com.nicolas.chatapp.service.implementation;
 
-import com.nicolas.chatapp.config.JwtConstants;
+import com.nicolas.chatapp.config.PrincipalCache;
 import com.nicolas.chatapp.config.TokenProvider;
 import com.nicolas.chatapp.dto.request.UpdateUserRequestDTO;
 import com.nicolas.chatapp.exception.UserException;
@@ -19,6 +19,7 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final TokenProvider tokenProvider;
+    private final PrincipalCache principalCache;
 
     @Override
     public User findUserById(UUID id) throws UserException {
@@ -66,12 +67,14 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User findUserByProfile(String jwt) throws UserException {
-        String identifier = String.valueOf(tokenProvider.getClaimsFromToken(jwt).get(JwtConstants.EMAIL));
-        
-        if (identifier == null || identifier.equals("null")) {
-            identifier = String.valueOf(tokenProvider.getClaimsFromToken(jwt).get(JwtConstants.PHONE_NUMBER));
+
+        PrincipalCache.CachedPrincipal principal = tokenProvider.resolvePrincipal(jwt);
+        if (principal.user() != null) {
+            return PrincipalCache.copy(principal.user());
         }
 
+        String identifier = principal.identifier();
+
         if (identifier == null || identifier.equals("null")) {
             throw new BadCredentialsException("Invalid token");
         }
@@ -84,6 +87,7 @@ public class UserServiceImpl implements UserService {
         }
 
         if (user.isPresent()) {
+            principalCache.attachUser(jwt, principal, user.get());
             return user.get();
         }
 
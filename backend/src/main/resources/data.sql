@@ -1,7 +1,5 @@
 DELETE
-FROM MESSAGE_READ_BY;
-DELETE
-FROM CHAT_MESSAGES;
+FROM CHAT_READ_STATE;
 DELETE
 FROM CHAT_ADMINS;
 DELETE
@@ -195,45 +193,9 @@ VALUES ('a284a44a-7b28-45da-8463-3a35417715f0', 'I am your father', '2024-04-22
         '605dd929-2fef-4fea-b2b9-9b16b74f71c2', 'fc38b854-69f6-49ee-aa51-da00ea5eb191');
 -- 'I ve got a bad feeling about this.'
 
-INSERT INTO CHAT_MESSAGES(chat_id, messages_id)
-VALUES ('0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4', 'a284a44a-7b28-45da-8463-3a35417715f0'),
-       ('0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4', '37afbdc4-89b4-4961-b825-bb4d666e5442'),
-       ('c40e7df3-7e67-4955-96b5-25e8769ec9bc', '620d606a-9033-4210-b9c0-982e0f3800ef'),
-       ('c40e7df3-7e67-4955-96b5-25e8769ec9bc', '15733d9e-939d-497b-b042-fd2fe54d7430'),
-       ('ac63914e-151e-444f-b44c-f67a3374f1f1', '6bd25bf8-dba1-46b1-8821-ba838d4a84ae'),
-       ('7d81a13c-e835-455a-bc99-3fb6001fb0d5', '08db069b-e3d5-4cff-b17e-b3af15bb667f'),
-       ('74397056-5ede-4533-8dfe-5d8367d588d2', '1b5bd428-9cc7-480b-8f8c-6cee22e6b76e'),
-       ('74397056-5ede-4533-8dfe-5d8367d588d2', '81c67b8c-51f4-46e3-b7eb-8c73db374a2d'),
-       ('0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4', '15dcca4f-b7d1-4b55-be30-bf5950a770a1'),
-       ('0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4', '2658df83-821a-4e4c-94a5-7fbc19249368'),
-       ('8a3ad4c8-3c57-43c3-aed7-f3af68da5135', '5c33a3a0-5598-42aa-8810-9408da913b3a'),
-       ('7d81a13c-e835-455a-bc99-3fb6001fb0d5', '33d814e7-06fa-4dfc-a290-ccc4ca5664b2'),
-       ('7d81a13c-e835-455a-bc99-3fb6001fb0d5', '84e38fc1-07cf-4083-b442-94d216a8320a'),
-       ('731ecf77-95b1-409c-8db8-a6f1aeb192bb', '14a8cd52-439d-4284-8c8e-2a1ca21e1d56'),
-       ('7d81a13c-e835-455a-bc99-3fb6001fb0d5', '7c27b77a-d4f6-4e5d-9ca9-1b68254def39'),
-       ('7d81a13c-e835-455a-bc99-3fb6001fb0d5', '0bd7a29b-8bb2-4a6c-8206-61f068e43b94'),
-       ('ac63914e-151e-444f-b44c-f67a3374f1f1', '72e84e37-a99a-4634-bac2-5f9c2f7c7975'),
-       ('ac63914e-151e-444f-b44c-f67a3374f1f1', '0e223052-e532-4c74-8efa-1c8fb7e8b49a'),
-       ('ac63914e-151e-444f-b44c-f67a3374f1f1', '6fc16add-dc1b-42b3-9942-82b52d47684e'),
-       ('ac63914e-151e-444f-b44c-f67a3374f1f1', '9230fbb8-5365-4409-baeb-47c3249b5d12'),
-       ('ac63914e-151e-444f-b44c-f67a3374f1f1', '85c6cb71-5770-4320-890f-43e70917dcaa'),
-       ('51b918c3-ea54-4079-b0b8-f5f7edd92eb9', '84eb294a-9e0a-4634-aaad-4cfde087cff0'),
-       ('fc38b854-69f6-49ee-aa51-da00ea5eb191', 'b57bba0d-90f6-409e-a00b-c109bfbfce14');
-
-INSERT INTO MESSAGE_READ_BY(message_id, read_by)
-VALUES ('08db069b-e3d5-4cff-b17e-b3af15bb667f', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('33d814e7-06fa-4dfc-a290-ccc4ca5664b2', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('84e38fc1-07cf-4083-b442-94d216a8320a', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('7c27b77a-d4f6-4e5d-9ca9-1b68254def39', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('08db069b-e3d5-4cff-b17e-b3af15bb667f', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('33d814e7-06fa-4dfc-a290-ccc4ca5664b2', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('84e38fc1-07cf-4083-b442-94d216a8320a', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('7c27b77a-d4f6-4e5d-9ca9-1b68254def39', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('a284a44a-7b28-45da-8463-3a35417715f0', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('37afbdc4-89b4-4961-b825-bb4d666e5442', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('15dcca4f-b7d1-4b55-be30-bf5950a770a1', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('2658df83-821a-4e4c-94a5-7fbc19249368', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('620d606a-9033-4210-b9c0-982e0f3800ef', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('15733d9e-939d-497b-b042-fd2fe54d7430', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('84eb294a-9e0a-4634-aaad-4cfde087cff0', 'be900497-cc68-4504-9b99-4e5deaf1e6c0'),
-       ('b57bba0d-90f6-409e-a00b-c109bfbfce14', 'be900497-cc68-4504-9b99-4e5deaf1e6c0');
\ No newline at end of file
+INSERT INTO CHAT_READ_STATE(id, chat_id, user_id, last_read_at, last_read_message_id)
+VALUES ('b30f47cc-5695-5ab0-b386-5c29d97daaa5', '7d81a13c-e835-455a-bc99-3fb6001fb0d5', 'be900497-cc68-4504-9b99-4e5deaf1e6c0', '2024-04-24 16:30:13.000000 +00:00', '7c27b77a-d4f6-4e5d-9ca9-1b68254def39'),
+       ('488b559b-80fa-5d3b-91a9-b0aec1ca0beb', '0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4', 'be900497-cc68-4504-9b99-4e5deaf1e6c0', '2024-04-24 09:10:00.000000 +00:00', '2658df83-821a-4e4c-94a5-7fbc19249368'),
+       ('581e371c-b30a-5110-8f83-3387219c231e', 'c40e7df3-7e67-4955-96b5-25e8769ec9bc', 'be900497-cc68-4504-9b99-4e5deaf1e6c0', '2024-04-21 20:04:08.535241 +00:00', '15733d9e-939d-497b-b042-fd2fe54d7430'),
+       ('565d945e-1267-5e04-b2ba-201526d25a1c', '51b918c3-ea54-4079-b0b8-f5f7edd92eb9', 'be900497-cc68-4504-9b99-4e5deaf1e6c0', '2024-04-09 17:42:51.000000 +00:00', '84eb294a-9e0a-4634-aaad-4cfde087cff0'),
+       ('01d92795-c5b8-5aa6-b317-96fdd8caa1c2', 'fc38b854-69f6-49ee-aa51-da00ea5eb191', 'be900497-cc68-4504-9b99-4e5deaf1e6c0', '2024-04-12 17:42:51.000000 +00:00', 'b57bba0d-90f6-409e-a00b-c109bfbfce14');
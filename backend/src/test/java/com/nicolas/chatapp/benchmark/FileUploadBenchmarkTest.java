@@ -0,0 +1,152 @@
+package com.nicolas.chatapp.benchmark;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.repository.ChatRepository;
+import com.nicolas.chatapp.repository.MessageRepository;
+import com.nicolas.chatapp.repository.StoredObjectRepository;
+import com.nicolas.chatapp.repository.UserRepository;
+import com.nicolas.chatapp.service.FileStorageService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Upload throughput and bytes written to disk, the multipart path (container spools the part to a temp
+ * file, which is then copied into place) against the streaming path (request body written straight to its
+ * final location). Disk writes are read from {@code /proc/self/io}, so they're only reported on Linux and
+ * count what reached the block layer (nothing on tmpfs).
+ * Opt-in, run with {@code mvn test -Dtest=FileUploadBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FileUploadBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int UPLOADS = 20;
+
+    // Seeds the generated bodies so no two uploads dedup against each other
+    private int runs;
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService(storedObjectRepository, messageRepository, userRepository,
+                chatRepository, transactionManager, uploadDir.toString(), DataSize.ofMegabytes(50));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 50})
+    void uploadThroughput(int megabytes) throws IOException {
+
+        long size = DataSize.ofMegabytes(megabytes).toBytes();
+        run("multipart", size, this::spooledUpload);
+        run("stream", size, in -> fileStorageService.storeStream(in, "video.mp4", "video/mp4"));
+    }
+
+    private void spooledUpload(InputStream in) throws IOException {
+        Path spool = Files.createTempFile(uploadDir, "upload_", ".tmp");
+        try {
+            Files.copy(in, spool, StandardCopyOption.REPLACE_EXISTING);
+            try (InputStream part = Files.newInputStream(spool)) {
+                fileStorageService.storeStream(part, "video.mp4", "video/mp4");
+            }
+        } finally {
+            Files.delete(spool);
+        }
+    }
+
+    private void run(String label, long size, Upload upload) throws IOException {
+
+        long writtenBefore = diskWrites();
+        long start = System.nanoTime();
+        for (int i = 0; i < UPLOADS; i++) {
+            upload.store(new GeneratedInputStream(size, runs++));
+        }
+        long nanos = System.nanoTime() - start;
+        long written = writtenBefore < 0 ? -1 : diskWrites() - writtenBefore;
+
+        System.out.printf("%s size=%dMB uploads=%d total=%.1fms throughput=%.1fMB/s written=%s%n", label,
+                size >> 20, UPLOADS, nanos / 1e6, (size * UPLOADS >> 20) / (nanos / 1e9),
+                written >= 0 ? (written >> 20) + "MB" : "n/a");
+    }
+
+    private static long diskWrites() throws IOException {
+        Path io = Path.of("/proc/self/io");
+        if (!Files.isReadable(io)) {
+            return -1;
+        }
+        return Files.readAllLines(io).stream()
+                .filter(line -> line.startsWith("write_bytes:"))
+                .mapToLong(line -> Long.parseLong(line.substring("write_bytes:".length()).trim()))
+                .findFirst()
+                .orElse(-1);
+    }
+
+    @FunctionalInterface
+    private interface Upload {
+        void store(InputStream in) throws IOException;
+    }
+
+    /** A request body of {@code size} bytes that isn't held in memory, its content varied by {@code seed}. */
+    private static final class GeneratedInputStream extends InputStream {
+
+        private long remaining;
+        private byte next;
+
+        GeneratedInputStream(long size, int seed) {
+            this.remaining = size;
+            this.next = (byte) seed;
+        }
+
+        @Override
+        public int read() {
+            if (remaining == 0) {
+                return -1;
+            }
+            remaining--;
+            return next++ & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) {
+            if (remaining == 0) {
+                return -1;
+            }
+            int count = (int) Math.min(length, remaining);
+            for (int i = 0; i < count; i++) {
+                buffer[offset + i] = next++;
+            }
+            remaining -= count;
+            return count;
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.nicolas.chatapp.benchmark;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.model.TimeOrderedUuidGenerator;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Message insert throughput with random v4 ids against time-ordered v7 ids. Opt-in, run with
+ * {@code mvn test -Dtest=IdGeneratorBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class IdGeneratorBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int BATCH_SIZE = 1_000;
+    private static final int ID_CALLS = 1_000_000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
+    private final UUID theGoodiesChatId = UUID.fromString("ac63914e-151e-444f-b44c-f67a3374f1f1");
+
+    @ParameterizedTest
+    @ValueSource(ints = {100_000, 1_000_000})
+    void insertThroughput(int rows) {
+        report("v4", rows, insert(rows, UUID::randomUUID));
+        report("v7", rows, insert(rows, TimeOrderedUuidGenerator::next));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8})
+    void generationThroughput(int threads) throws InterruptedException {
+        report("v4 x" + threads, ID_CALLS, generate(threads, UUID::randomUUID));
+        report("v7 x" + threads, ID_CALLS, generate(threads, TimeOrderedUuidGenerator::next));
+    }
+
+    private long insert(int rows, Supplier<UUID> ids) {
+        jdbcTemplate.update("DELETE FROM MESSAGE WHERE content = 'Benchmark'");
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            batch.add(new Object[]{ids.get(), "Benchmark", Timestamp.valueOf(now.plusNanos(i * 1000L)), lukesId, theGoodiesChatId});
+            if (batch.size() == BATCH_SIZE || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO MESSAGE(id, content, time_stamp, user_id, chat_id) VALUES (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private long generate(int threads, Supplier<UUID> ids) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 0; i < ID_CALLS / threads; i++) {
+                    ids.get();
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String label, int operations, long nanos) {
+        System.out.printf("%s operations=%d total=%.1fms throughput=%.0f/s%n", label, operations,
+                nanos / 1e6, operations / (nanos / 1e9));
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.nicolas.chatapp.benchmark;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.dto.request.GroupChatRequestDTO;
+import com.nicolas.chatapp.dto.request.SendMessageRequestDTO;
+import com.nicolas.chatapp.exception.ChatException;
+import com.nicolas.chatapp.exception.UserException;
+import com.nicolas.chatapp.model.Chat;
+import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.service.ChatService;
+import com.nicolas.chatapp.service.MessageService;
+import com.nicolas.chatapp.service.UserService;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Send latency against chats of growing history size. Opt-in, run with
+ * {@code mvn test -Dtest=MessageSendBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MessageSendBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int SEED_BATCH_SIZE = 10_000;
+    private static final int WARMUP_SENDS = 50;
+    private static final int MEASURED_SENDS = 200;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
+    private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
+
+    @ParameterizedTest
+    @ValueSource(ints = {10, 10_000, 1_000_000})
+    void sendLatencyByHistorySize(int historySize) throws UserException, ChatException {
+
+        User luke = userService.findUserById(lukesId);
+        Chat chat = chatService.createGroup(new GroupChatRequestDTO(List.of(lukesId, leiasId), "Benchmark " + historySize), luke);
+        seedHistory(chat.getId(), historySize);
+
+        SendMessageRequestDTO request = new SendMessageRequestDTO(chat.getId(), "Benchmark message");
+        for (int i = 0; i < WARMUP_SENDS; i++) {
+            messageService.sendMessage(request, lukesId);
+        }
+
+        long[] latencies = new long[MEASURED_SENDS];
+        for (int i = 0; i < MEASURED_SENDS; i++) {
+            long start = System.nanoTime();
+            messageService.sendMessage(request, lukesId);
+            latencies[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(latencies);
+        System.out.printf("history=%d p50=%.3fms p99=%.3fms max=%.3fms%n", historySize,
+                latencies[MEASURED_SENDS / 2] / 1e6, latencies[MEASURED_SENDS * 99 / 100] / 1e6,
+                latencies[MEASURED_SENDS - 1] / 1e6);
+    }
+
+    private void seedHistory(UUID chatId, int historySize) {
+        LocalDateTime start = LocalDateTime.now().minusDays(1);
+        List<Object[]> batch = new ArrayList<>(SEED_BATCH_SIZE);
+        for (int i = 0; i < historySize; i++) {
+            batch.add(new Object[]{UUID.randomUUID(), "Seed " + i, Timestamp.valueOf(start.plusNanos(i * 1000L)), lukesId, chatId});
+            if (batch.size() == SEED_BATCH_SIZE || i == historySize - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO MESSAGE(id, content, time_stamp, user_id, chat_id) VALUES (?, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+package com.nicolas.chatapp.benchmark;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.dto.request.SendMessageRequestDTO;
+import com.nicolas.chatapp.exception.ChatException;
+import com.nicolas.chatapp.exception.UserException;
+import com.nicolas.chatapp.service.MessageService;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.logging.LogLevel;
+import org.springframework.boot.logging.LoggingSystem;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Send throughput on a 200 member group through the real send path, with the hot-path diagnostics
+ * of {@code chat.events.message.send} off and on at DEBUG. Opt-in, run with
+ * {@code mvn test -Dtest=SendLoggingBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SendLoggingBenchmarkTest extends AbstractIntegrationTest {
+
+    private static final int MEMBERS = 200;
+    private static final int WARMUP_SENDS = 50;
+    private static final int MEASURED_SENDS = 500;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private LoggingSystem loggingSystem;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"off", "debug"})
+    void sendThroughput(String mode) throws UserException, ChatException {
+
+        List<UUID> members = seedMembers();
+        UUID chatId = seedGroup(members);
+        SendMessageRequestDTO request = new SendMessageRequestDTO(chatId, "Benchmark message");
+
+        loggingSystem.setLogLevel("chat.events.message.send", "debug".equals(mode) ? LogLevel.DEBUG : LogLevel.INFO);
+        try {
+            for (int i = 0; i < WARMUP_SENDS; i++) {
+                messageService.sendMessage(request, lukesId);
+            }
+
+            long start = System.nanoTime();
+            for (int i = 0; i < MEASURED_SENDS; i++) {
+                messageService.sendMessage(request, lukesId);
+            }
+            long nanos = System.nanoTime() - start;
+
+            System.out.printf("mode=%s members=%d sends=%d throughput=%.0f/s mean=%.3fms%n", mode, MEMBERS,
+                    MEASURED_SENDS, MEASURED_SENDS / (nanos / 1e9), nanos / 1e6 / MEASURED_SENDS);
+        } finally {
+            loggingSystem.setLogLevel("chat.events.message.send", null);
+        }
+    }
+
+    private List<UUID> seedMembers() {
+        List<UUID> members = new ArrayList<>(List.of(lukesId));
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i < MEMBERS; i++) {
+            UUID id = UUID.randomUUID();
+            members.add(id);
+            rows.add(new Object[]{id, "member" + i + "-" + id + "@test.com", "x", "Member " + i});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO APP_USER(id, email, password, full_name) VALUES (?, ?, ?, ?)", rows);
+        return members;
+    }
+
+    private UUID seedGroup(List<UUID> members) {
+        UUID chatId = UUID.randomUUID();
+        jdbcTemplate.update("INSERT INTO CHAT(id, chat_name, is_group, created_by_id) VALUES (?, ?, true, ?)",
+                chatId, "Benchmark group", lukesId);
+        jdbcTemplate.batchUpdate("INSERT INTO CHAT_USERS(chat_id, users_id) VALUES (?, ?)",
+                members.stream().map(member -> new Object[]{chatId, member}).toList());
+        return chatId;
+    }
+
+}
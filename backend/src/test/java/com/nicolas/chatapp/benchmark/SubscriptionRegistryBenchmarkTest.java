@@ -0,0 +1,100 @@
+package com.nicolas.chatapp.benchmark;
+
+import com.nicolas.chatapp.config.ExactMatchSubscriptionRegistry;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.DefaultSubscriptionRegistry;
+import org.springframework.messaging.simp.broker.SubscriptionRegistry;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Broker lookups at 100k subscriptions, the default pattern-matching registry against the
+ * exact-match one. Each simulated user holds the four per-user topics on one session. Opt-in, run
+ * with {@code mvn test -Dtest=SubscriptionRegistryBenchmarkTest -Dbenchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SubscriptionRegistryBenchmarkTest {
+
+    private static final int SUBSCRIPTIONS = 100_000;
+    private static final int LOOKUPS = 2_000_000;
+    // Uncached lookups in the default registry scan every subscription, so it gets far fewer
+    private static final int DEFAULT_REGISTRY_LOOKUPS = 100;
+    private static final List<String> SUFFIXES = List.of("", "/typing", "/online", "/call");
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8})
+    void lookupThroughput(int threads) throws InterruptedException {
+        run("default", threads, DEFAULT_REGISTRY_LOOKUPS, DefaultSubscriptionRegistry::new);
+        run("exact", threads, LOOKUPS, ExactMatchSubscriptionRegistry::new);
+    }
+
+    private void run(String label, int threads, int lookups, Supplier<SubscriptionRegistry> factory) throws InterruptedException {
+
+        SubscriptionRegistry registry = factory.get();
+        List<Message<byte[]>> messages = new ArrayList<>(SUBSCRIPTIONS);
+
+        long start = System.nanoTime();
+        for (int user = 0; user < SUBSCRIPTIONS / SUFFIXES.size(); user++) {
+            String sessionId = "session-" + user;
+            String topic = "/topic/" + UUID.randomUUID();
+            for (int i = 0; i < SUFFIXES.size(); i++) {
+                registry.registerSubscription(subscribe(sessionId, "sub-" + i, topic + SUFFIXES.get(i)));
+                messages.add(message(topic + SUFFIXES.get(i)));
+            }
+        }
+        report(label + " register", SUBSCRIPTIONS, System.nanoTime() - start);
+
+        List<Thread> workers = new ArrayList<>();
+        start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < lookups / threads; i++) {
+                    registry.findSubscriptions(messages.get(random.nextInt(messages.size())));
+                }
+            });
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        report(label + " lookup x" + threads, lookups, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        for (int user = 0; user < SUBSCRIPTIONS / SUFFIXES.size(); user++) {
+            registry.unregisterAllSubscriptions("session-" + user);
+        }
+        report(label + " disconnect", SUBSCRIPTIONS / SUFFIXES.size(), System.nanoTime() - start);
+    }
+
+    private static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> message(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static void report(String label, int operations, long nanos) {
+        System.out.printf("%s operations=%d total=%.1fms throughput=%.0f/s%n", label, operations,
+                nanos / 1e6, operations / (nanos / 1e9));
+    }
+
+}
@@ -0,0 +1,142 @@
+package com.nicolas.chatapp.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.nicolas.chatapp.ChatappApplication;
+import com.nicolas.chatapp.config.JwtConstants;
+import com.nicolas.chatapp.repository.UserRepository;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Concurrent authenticated requests against the running application, once on Tomcat's platform thread
+ * pool and once with {@code spring.threads.virtual.enabled}. Each request resolves its token and reads
+ * the caller's chat list, so it blocks on JDBC. Reports throughput, p50/p99 latency, failed requests and
+ * peak heap, so run it at a fixed heap on Java 21, e.g.
+ * {@code mvn test -Dtest=VirtualThreadLoadBenchmarkTest -Dbenchmark=true -DargLine=-Xmx256m}.
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadLoadBenchmarkTest {
+
+    private static final int WARMUP_REQUESTS = 500;
+    private static final int MEASURED_REQUESTS = 5_000;
+
+    @ParameterizedTest
+    @ValueSource(ints = {200, 1_000, 2_000})
+    void concurrentChatListRequests(int concurrency) throws Exception {
+        for (boolean virtualThreads : new boolean[]{false, true}) {
+            try (ConfigurableApplicationContext app = new SpringApplicationBuilder(ChatappApplication.class)
+                    .properties("server.port=0", "spring.threads.virtual.enabled=" + virtualThreads)
+                    .run()) {
+                measure(app, virtualThreads ? "virtual" : "platform", concurrency);
+            }
+        }
+    }
+
+    private static void measure(ConfigurableApplicationContext app, String label, int concurrency) throws Exception {
+
+        int port = ((WebServerApplicationContext) app).getWebServer().getPort();
+        ObjectMapper objectMapper = app.getBean(ObjectMapper.class);
+        HttpClient client = HttpClient.newHttpClient();
+
+        String email = "load-" + UUID.randomUUID() + "@test.com";
+        String jwt = signup(client, objectMapper, port, email);
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/chats/user"))
+                    .header(JwtConstants.TOKEN_HEADER, JwtConstants.TOKEN_PREFIX + jwt)
+                    .build();
+
+            run(client, request, concurrency, WARMUP_REQUESTS);
+            Result result = run(client, request, concurrency, MEASURED_REQUESTS);
+
+            long[] latencies = result.latencies();
+            Arrays.sort(latencies);
+            System.out.printf("%s concurrency=%d requests=%d throughput=%.0f/s p50=%.1fms p99=%.1fms failed=%d peakHeap=%dMB maxHeap=%dMB%n",
+                    label, concurrency, MEASURED_REQUESTS, MEASURED_REQUESTS / (result.nanos() / 1e9),
+                    latencies[latencies.length / 2] / 1e6, latencies[(int) (latencies.length * 0.99)] / 1e6,
+                    result.failed(), result.peakHeapBytes() / (1024 * 1024), Runtime.getRuntime().maxMemory() / (1024 * 1024));
+        } finally {
+            UserRepository userRepository = app.getBean(UserRepository.class);
+            userRepository.findByEmail(email).ifPresent(userRepository::delete);
+        }
+    }
+
+    private static Result run(HttpClient client, HttpRequest request, int concurrency, int requests) throws InterruptedException {
+
+        System.gc();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Semaphore permits = new Semaphore(concurrency);
+        CountDownLatch done = new CountDownLatch(requests);
+        AtomicInteger failed = new AtomicInteger();
+        AtomicLong peakHeap = new AtomicLong();
+        long[] latencies = new long[requests];
+
+        Thread sampler = new Thread(() -> {
+            while (done.getCount() > 0) {
+                peakHeap.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        });
+        sampler.setDaemon(true);
+        sampler.start();
+
+        long start = System.nanoTime();
+        for (int i = 0; i < requests; i++) {
+            permits.acquire();
+            int index = i;
+            long sentAt = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                latencies[index] = System.nanoTime() - sentAt;
+                if (error != null || response.statusCode() != 200) {
+                    failed.incrementAndGet();
+                }
+                permits.release();
+                done.countDown();
+            });
+        }
+        done.await();
+        long nanos = System.nanoTime() - start;
+        sampler.interrupt();
+
+        return new Result(nanos, latencies, failed.get(), peakHeap.get());
+    }
+
+    private static String signup(HttpClient client, ObjectMapper objectMapper, int port, String email)
+            throws IOException, InterruptedException {
+        String body = objectMapper.writeValueAsString(Map.of("email", email, "password", "load-test", "fullName", "Load Test"));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/auth/signup"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return objectMapper.readTree(response.body()).get("token").asText();
+    }
+
+    private record Result(long nanos, long[] latencies, int failed, long peakHeapBytes) {
+    }
+
+}
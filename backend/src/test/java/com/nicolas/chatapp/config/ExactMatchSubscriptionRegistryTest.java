@@ -0,0 +1,97 @@
+package com.nicolas.chatapp.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExactMatchSubscriptionRegistryTest {
+
+    private static final String LUKES_TOPIC = "/topic/be900497-cc68-4504-9b99-4e5deaf1e6c0";
+    private static final String LEIAS_TOPIC = "/topic/0fb97ac1-1304-4e83-b640-f659b8679907";
+
+    private final ExactMatchSubscriptionRegistry registry = new ExactMatchSubscriptionRegistry();
+
+    @Test
+    void findsSubscribersOfExactDestination() {
+
+        registry.registerSubscription(subscribe("s1", "sub-0", LUKES_TOPIC));
+        registry.registerSubscription(subscribe("s1", "sub-1", LUKES_TOPIC + "/typing"));
+        registry.registerSubscription(subscribe("s2", "sub-0", LUKES_TOPIC));
+        registry.registerSubscription(subscribe("s3", "sub-0", LEIAS_TOPIC));
+
+        assertThat(registry.findSubscriptions(send(LUKES_TOPIC)))
+                .containsOnlyKeys("s1", "s2")
+                .containsEntry("s1", List.of("sub-0"));
+        assertThat(registry.findSubscriptions(send(LUKES_TOPIC + "/typing"))).containsOnlyKeys("s1");
+        assertThat(registry.findSubscriptions(send(LUKES_TOPIC + "/online"))).isEmpty();
+    }
+
+    @Test
+    void removesSingleSubscriptionAndWholeSession() {
+
+        registry.registerSubscription(subscribe("s1", "sub-0", LUKES_TOPIC));
+        registry.registerSubscription(subscribe("s1", "sub-1", LUKES_TOPIC + "/typing"));
+        registry.registerSubscription(subscribe("s2", "sub-0", LUKES_TOPIC));
+
+        registry.unregisterSubscription(unsubscribe("s1", "sub-1"));
+        assertThat(registry.findSubscriptions(send(LUKES_TOPIC + "/typing"))).isEmpty();
+        assertThat(registry.findSubscriptions(send(LUKES_TOPIC))).containsOnlyKeys("s1", "s2");
+
+        registry.unregisterAllSubscriptions("s1");
+        assertThat(registry.findSubscriptions(send(LUKES_TOPIC))).containsOnlyKeys("s2");
+    }
+
+    @Test
+    void returnedSnapshotIsNotAffectedByLaterChanges() {
+
+        registry.registerSubscription(subscribe("s1", "sub-0", LUKES_TOPIC));
+        var snapshot = registry.findSubscriptions(send(LUKES_TOPIC));
+
+        registry.registerSubscription(subscribe("s2", "sub-0", LUKES_TOPIC));
+        registry.unregisterAllSubscriptions("s1");
+
+        assertThat(snapshot).containsOnlyKeys("s1");
+        assertThat(registry.findSubscriptions(send(LUKES_TOPIC))).containsOnlyKeys("s2");
+    }
+
+    @Test
+    void fallsBackToPatternMatchingForWildcardSubscriptions() {
+
+        registry.registerSubscription(subscribe("s1", "sub-0", LUKES_TOPIC));
+        registry.registerSubscription(subscribe("s2", "sub-0", "/topic/*"));
+
+        assertThat(registry.findSubscriptions(send(LUKES_TOPIC))).containsOnlyKeys("s1", "s2");
+        assertThat(registry.findSubscriptions(send(LEIAS_TOPIC))).containsOnlyKeys("s2");
+
+        registry.unregisterSubscription(unsubscribe("s2", "sub-0"));
+        assertThat(registry.findSubscriptions(send(LEIAS_TOPIC))).isEmpty();
+    }
+
+    static Message<byte[]> subscribe(String sessionId, String subscriptionId, String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.SUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    static Message<byte[]> unsubscribe(String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.UNSUBSCRIBE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    static Message<byte[]> send(String destination) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+}
@@ -5,6 +5,7 @@ import com.nicolas.chatapp.config.JwtConstants;
 import com.nicolas.chatapp.dto.request.GroupChatRequestDTO;
 import com.nicolas.chatapp.dto.request.LoginRequestDTO;
 import com.nicolas.chatapp.dto.response.ChatDTO;
+import com.nicolas.chatapp.dto.response.ChatSummaryDTO;
 import com.nicolas.chatapp.dto.response.LoginResponseDTO;
 import com.nicolas.chatapp.dto.response.MessageDTO;
 import com.nicolas.chatapp.dto.response.UserDTO;
@@ -69,17 +70,17 @@ class ChatControllerTest extends AbstractIntegrationTest {
         String authorization = JwtConstants.TOKEN_PREFIX + response.token();
         User leia = userService.findUserById(leiasId);
         User han = userService.findUserById(hansId);
-        ResponseEntity<ChatDTO> result = chatController.createSingleChat(hansId, authorization);
+        ResponseEntity<ChatSummaryDTO> result = chatController.createSingleChat(hansId, authorization);
         ResponseEntity<ChatDTO> repositoryChat = chatController.findChatById(Objects.requireNonNull(result.getBody()).id());
         assertThat(result.getBody().id()).isNotNull();
-        assertThat(result.getBody().createdBy()).isEqualTo(UserDTO.fromUser(leia));
+        assertThat(result.getBody().createdById()).isEqualTo(leia.getId());
         assertThat(result.getBody().isGroup()).isFalse();
         assertThat(result.getBody().users()).containsExactlyInAnyOrderElementsOf(
                 Set.of(Objects.requireNonNull(UserDTO.fromUser(leia)), Objects.requireNonNull(UserDTO.fromUser(han))));
-        assertThat(repositoryChat).isEqualTo(result);
+        assertThat(Objects.requireNonNull(repositoryChat.getBody()).users()).isEqualTo(result.getBody().users());
 
         // Create already existing chat
-        ResponseEntity<ChatDTO> existingChat = chatController.createSingleChat(lukesId, authorization);
+        ResponseEntity<ChatSummaryDTO> existingChat = chatController.createSingleChat(lukesId, authorization);
         assertThat(Objects.requireNonNull(existingChat.getBody()).id()).isEqualTo(lukesAndLeiasChatId);
 
         // Create chat with non-existing user
@@ -98,16 +99,16 @@ class ChatControllerTest extends AbstractIntegrationTest {
         User leia = userService.findUserById(leiasId);
         User han = userService.findUserById(hansId);
         GroupChatRequestDTO dto = new GroupChatRequestDTO(List.of(leiasId, hansId), "TestName");
-        ResponseEntity<ChatDTO> result = chatController.createGroupChat(dto, authorization);
+        ResponseEntity<ChatSummaryDTO> result = chatController.createGroupChat(dto, authorization);
         ResponseEntity<ChatDTO> repositoryChat = chatController.findChatById(Objects.requireNonNull(result.getBody()).id());
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(result.getBody().id()).isNotNull();
-        assertThat(result.getBody().createdBy()).isEqualTo(UserDTO.fromUser(leia));
+        assertThat(result.getBody().createdById()).isEqualTo(leia.getId());
         assertThat(result.getBody().isGroup()).isTrue();
         assertThat(result.getBody().chatName()).isEqualTo("TestName");
         assertThat(result.getBody().users()).containsExactlyInAnyOrderElementsOf(
                 Set.of(Objects.requireNonNull(UserDTO.fromUser(leia)), Objects.requireNonNull(UserDTO.fromUser(han))));
-        assertThat(repositoryChat).isEqualTo(result);
+        assertThat(Objects.requireNonNull(repositoryChat.getBody()).users()).isEqualTo(result.getBody().users());
     }
 
     @Test
@@ -143,14 +144,22 @@ class ChatControllerTest extends AbstractIntegrationTest {
         LoginResponseDTO response = authController.login(request).getBody();
         assert response != null;
         String authorization = JwtConstants.TOKEN_PREFIX + response.token();
-        ResponseEntity<List<ChatDTO>> result = chatController.findAllChatsByUserId(authorization);
+        ResponseEntity<List<ChatDTO>> result = chatController.findAllChatsByUserId(authorization, 0, 50);
         ResponseEntity<ChatDTO> chat1 = chatController.findChatById(theGoodiesChatId);
         ResponseEntity<ChatDTO> chat2 = chatController.findChatById(lukesAndLeiasChatId);
         ResponseEntity<ChatDTO> chat3 = chatController.findChatById(vaderAndLukeChatId);
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(result.getBody()).containsExactlyElementsOf(
+        // The list also carries the requesting user's unread counts
+        assertThat(result.getBody()).usingRecursiveFieldByFieldElementComparatorIgnoringFields("unreadCount").containsExactlyElementsOf(
                 List.of(Objects.requireNonNull(chat1.getBody()), Objects.requireNonNull(chat2.getBody()),
                         Objects.requireNonNull(chat3.getBody())));
+        assertThat(result.getBody()).allSatisfy(chat -> assertThat(chat.unreadCount()).isNotNull());
+
+        // Summaries come in the same order without message history
+        ResponseEntity<List<ChatSummaryDTO>> summaries = chatController.findAllChatSummariesByUserId(authorization, 0, 50);
+        assertThat(Objects.requireNonNull(summaries.getBody()).stream().map(ChatSummaryDTO::id).toList())
+                .containsExactly(theGoodiesChatId, lukesAndLeiasChatId, vaderAndLukeChatId);
+        assertThat(summaries.getBody().get(0).messageCount()).isEqualTo(1L);
     }
 
     @Test
@@ -163,7 +172,7 @@ class ChatControllerTest extends AbstractIntegrationTest {
         assert response != null;
         String authorization = JwtConstants.TOKEN_PREFIX + response.token();
         User vader = userService.findUserById(vadersId);
-        ResponseEntity<ChatDTO> result = chatController.addUserToGroup(theGoodiesChatId, vadersId, authorization);
+        ResponseEntity<ChatSummaryDTO> result = chatController.addUserToGroup(theGoodiesChatId, vadersId, authorization);
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(Objects.requireNonNull(result.getBody()).users()).contains(UserDTO.fromUser(vader));
 
@@ -194,7 +203,7 @@ class ChatControllerTest extends AbstractIntegrationTest {
         assert response != null;
         String authorization = JwtConstants.TOKEN_PREFIX + response.token();
         User leia = userService.findUserById(leiasId);
-        ResponseEntity<ChatDTO> result = chatController.removeUserFromGroup(theGoodiesChatId, leiasId, authorization);
+        ResponseEntity<ChatSummaryDTO> result = chatController.removeUserFromGroup(theGoodiesChatId, leiasId, authorization);
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(Objects.requireNonNull(result.getBody()).users()).isNotEmpty();
         assertThat(result.getBody().users()).doesNotContain(UserDTO.fromUser(leia));
@@ -213,7 +222,7 @@ class ChatControllerTest extends AbstractIntegrationTest {
         assert response != null;
         authorization = JwtConstants.TOKEN_PREFIX + response.token();
         User kenobi = userService.findUserById(kenobisId);
-        ResponseEntity<ChatDTO> result2 = chatController.removeUserFromGroup(theGoodiesChatId, kenobisId, authorization);
+        ResponseEntity<ChatSummaryDTO> result2 = chatController.removeUserFromGroup(theGoodiesChatId, kenobisId, authorization);
         assertThat(Objects.requireNonNull(result2.getBody()).users()).isNotEmpty();
         assertThat(result2.getBody().users()).doesNotContain(UserDTO.fromUser(kenobi));
 
@@ -237,9 +246,11 @@ class ChatControllerTest extends AbstractIntegrationTest {
         assert response != null;
         String authorization = JwtConstants.TOKEN_PREFIX + response.token();
         User luke = userService.findUserById(lukesId);
-        ResponseEntity<ChatDTO> result = chatController.markAsRead(theGoodiesChatId, authorization);
+        ResponseEntity<ChatSummaryDTO> result = chatController.markAsRead(theGoodiesChatId, authorization);
         assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
-        Objects.requireNonNull(result.getBody()).messages().forEach(msg -> assertThat(msg.readBy()).contains(luke.getId()));
+        assertThat(Objects.requireNonNull(result.getBody()).unreadCount()).isZero();
+        Objects.requireNonNull(chatController.findChatById(theGoodiesChatId).getBody()).messages()
+                .forEach(msg -> assertThat(msg.readBy()).contains(luke.getId()));
 
         // Mark non-existing chat as read
         String finalAuthorization = authorization;
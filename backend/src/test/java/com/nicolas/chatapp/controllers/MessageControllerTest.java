@@ -73,7 +73,7 @@ class MessageControllerTest extends AbstractIntegrationTest {
         assertThat(message.getBody().content()).isEqualTo(content);
         assertThat(message.getBody().timeStamp()).isNotNull();
         assertThat(MessageDTO.fromMessage(repositoryMessage)).isEqualTo(message.getBody());
-        assertThat(MessageDTO.fromMessages(chat.getMessages())).contains(message.getBody());
+        assertThat(MessageDTO.fromMessages(messageService.getChatMessages(chat.getId(), vader))).contains(message.getBody());
 
         // Message to non-existing chat
         SendMessageRequestDTO request2 = new SendMessageRequestDTO(notExistingId, "Should not work");
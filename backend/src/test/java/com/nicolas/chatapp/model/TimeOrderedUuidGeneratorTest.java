@@ -0,0 +1,30 @@
+package com.nicolas.chatapp.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidGeneratorTest {
+
+    @Test
+    void idsAreVersion7AndIncreasing() {
+
+        Instant before = Instant.ofEpochMilli(System.currentTimeMillis());
+        UUID previous = TimeOrderedUuidGenerator.next();
+
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = TimeOrderedUuidGenerator.next();
+            assertThat(next.version()).isEqualTo(7);
+            assertThat(next.variant()).isEqualTo(2);
+            // Unsigned comparison of the high bits is the order databases use for uuid columns
+            assertThat(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits())).isPositive();
+            previous = next;
+        }
+
+        assertThat(TimeOrderedUuidGenerator.timestampOf(previous)).isAfterOrEqualTo(before);
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.exception.UserException;
+import com.nicolas.chatapp.repository.ChatRepository;
+import com.nicolas.chatapp.repository.MessageRepository;
+import com.nicolas.chatapp.repository.StoredObjectRepository;
+import com.nicolas.chatapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AvatarServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TempDir
+    Path uploadDir;
+
+    private AvatarService avatarService;
+
+    @BeforeEach
+    void setUp() {
+        FileStorageService fileStorageService = new FileStorageService(storedObjectRepository, messageRepository,
+                userRepository, chatRepository, transactionManager, uploadDir.toString(), DataSize.ofMegabytes(10));
+        avatarService = new AvatarService(fileStorageService, meterRegistry, DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    void rendersSquareSizesOnUpload() throws IOException, UserException {
+
+        String path = avatarService.store(picture(600, 400));
+
+        Map<Integer, String> sizes = AvatarService.variantPaths(path);
+        assertThat(sizes).containsOnlyKeys(AvatarService.SIZES);
+        for (Map.Entry<Integer, String> size : sizes.entrySet()) {
+            BufferedImage variant = ImageIO.read(uploadDir.resolve(size.getValue()).toFile());
+            assertThat(variant.getWidth()).isEqualTo(size.getKey());
+            assertThat(variant.getHeight()).isEqualTo(size.getKey());
+        }
+    }
+
+    @Test
+    void rejectsFilesThatAreNotImages() {
+
+        MockMultipartFile text = new MockMultipartFile("file", "luke.txt", "text/plain",
+                "I am a Jedi".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> avatarService.store(text))
+                .isInstanceOf(UserException.class);
+        assertThat(storedObjectRepository.findAll()).isEmpty();
+    }
+
+    @Test
+    void servesRepeatedRequestsFromMemory() throws IOException, UserException {
+
+        String small = AvatarService.variantPaths(avatarService.store(picture(600, 400))).get(64);
+        MockHttpServletResponse first = serve(small);
+
+        // Gone from disk, still in the cache
+        Files.delete(uploadDir.resolve(small));
+        MockHttpServletResponse second = serve(small);
+
+        assertThat(second.getStatus()).isEqualTo(200);
+        assertThat(second.getContentType()).isEqualTo("image/jpeg");
+        assertThat(second.getContentAsByteArray()).isEqualTo(first.getContentAsByteArray());
+        assertThat(second.getHeader(HttpHeaders.CACHE_CONTROL)).contains("immutable");
+        assertThat(second.getHeader(HttpHeaders.ETAG)).isEqualTo(first.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void answersMatchingEtagWithNotModified() throws IOException, UserException {
+
+        String small = AvatarService.variantPaths(avatarService.store(picture(600, 400))).get(64);
+        String etag = serve(small).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        avatarService.serve(request, response, small);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void doesNotRenderMissingSizeOnRequest() throws IOException, UserException {
+
+        String medium = AvatarService.variantPaths(avatarService.store(picture(600, 400))).get(128);
+        Files.delete(uploadDir.resolve(medium));
+
+        MockHttpServletResponse response = serve(medium);
+
+        assertThat(response.getStatus()).isEqualTo(404);
+        assertThat(uploadDir.resolve(medium)).doesNotExist();
+    }
+
+    @Test
+    void stopsServingReleasedPicture() throws IOException, UserException {
+
+        String path = avatarService.store(picture(600, 400));
+        String small = AvatarService.variantPaths(path).get(64);
+        serve(small);
+
+        avatarService.release(path);
+
+        assertThat(serve(small).getStatus()).isEqualTo(404);
+    }
+
+    private MockHttpServletResponse serve(String filePath) throws IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        avatarService.serve(new MockHttpServletRequest("GET", "/"), response, filePath);
+        return response;
+    }
+
+    private static MockMultipartFile picture(int width, int height) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", png);
+        return new MockMultipartFile("file", "avatar.png", "image/png", png.toByteArray());
+    }
+
+}
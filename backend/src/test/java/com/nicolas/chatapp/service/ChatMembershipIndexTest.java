@@ -0,0 +1,56 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.exception.ChatException;
+import com.nicolas.chatapp.exception.UserException;
+import com.nicolas.chatapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChatMembershipIndexTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ChatMembershipIndex membershipIndex;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserService userService;
+
+    private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
+    private final UUID vadersId = UUID.fromString("f290f384-60ba-4cdd-af96-26c88ede0264");
+    private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
+    private final UUID theGoodiesChatId = UUID.fromString("ac63914e-151e-444f-b44c-f67a3374f1f1");
+    private final UUID vaderAndLukesChatId = UUID.fromString("0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4");
+
+    @Test
+    void membershipAndAdminChecks() {
+        assertThat(membershipIndex.isMember(theGoodiesChatId, leiasId)).isTrue();
+        assertThat(membershipIndex.isMember(theGoodiesChatId, vadersId)).isFalse();
+        assertThat(membershipIndex.isAdmin(theGoodiesChatId, lukesId)).isTrue();
+        assertThat(membershipIndex.isAdmin(theGoodiesChatId, leiasId)).isFalse();
+        assertThat(membershipIndex.memberIds(theGoodiesChatId)).hasSize(4).contains(lukesId, leiasId);
+        assertThat(membershipIndex.chatIds(lukesId)).contains(theGoodiesChatId, vaderAndLukesChatId);
+    }
+
+    @Test
+    void followsMembershipChanges() throws UserException, ChatException {
+
+        User luke = userService.findUserById(lukesId);
+        assertThat(membershipIndex.chatIds(vadersId)).doesNotContain(theGoodiesChatId);
+
+        chatService.addUserToGroup(vadersId, theGoodiesChatId, luke);
+        assertThat(membershipIndex.isMember(theGoodiesChatId, vadersId)).isTrue();
+        assertThat(membershipIndex.chatIds(vadersId)).contains(theGoodiesChatId);
+
+        chatService.removeFromGroup(theGoodiesChatId, vadersId, luke);
+        assertThat(membershipIndex.isMember(theGoodiesChatId, vadersId)).isFalse();
+        assertThat(membershipIndex.chatIds(vadersId)).doesNotContain(theGoodiesChatId);
+    }
+
+}
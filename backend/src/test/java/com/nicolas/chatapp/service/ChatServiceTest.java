@@ -2,15 +2,19 @@ package com.nicolas.chatapp.service;
 
 import com.nicolas.chatapp.AbstractIntegrationTest;
 import com.nicolas.chatapp.dto.request.GroupChatRequestDTO;
+import com.nicolas.chatapp.dto.request.SendMessageRequestDTO;
 import com.nicolas.chatapp.exception.ChatException;
 import com.nicolas.chatapp.exception.MessageException;
 import com.nicolas.chatapp.exception.UserException;
 import com.nicolas.chatapp.model.Chat;
 import com.nicolas.chatapp.model.Message;
 import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.repository.ChatRepository;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
@@ -29,6 +33,15 @@ class ChatServiceTest extends AbstractIntegrationTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private ReadStateService readStateService;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
     private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
     private final UUID hansId = UUID.fromString("4e039f0a-5eaf-4354-ad5b-14e2889643d4");
     private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
@@ -95,6 +108,13 @@ class ChatServiceTest extends AbstractIntegrationTest {
         Chat chat3 = chatService.findChatById(vaderAndLukeChatId);
         assertThat(result).containsExactlyElementsOf(List.of(chat1, chat2, chat3));
 
+        // Sending a message moves the chat to the top
+        messageService.sendMessage(new SendMessageRequestDTO(vaderAndLukeChatId, "Still there?"), lukesId);
+        assertThat(chatService.findAllByUserId(lukesId)).containsExactlyElementsOf(List.of(chat3, chat1, chat2));
+
+        // Paging through the list
+        assertThat(chatService.findAllByUserId(lukesId, 1, 1)).containsExactly(chat1);
+
         // Find all by non-existing user
         assertThrows(UserException.class, () -> chatService.findAllByUserId(notExistingId));
     }
@@ -191,8 +211,12 @@ class ChatServiceTest extends AbstractIntegrationTest {
 
         // Mark chat as read
         User luke = userService.findUserById(lukesId);
-        Chat result = chatService.markAsRead(theGoodiesChatId, luke);
-        result.getMessages().forEach(msg -> assertThat(msg.getReadBy()).contains(luke.getId()));
+        User leia = userService.findUserById(leiasId);
+        assertThat(readStateService.loadUnreadCounts(List.of(theGoodiesChatId), Set.of(leiasId)).get(theGoodiesChatId))
+                .containsEntry(leiasId, 1L);
+        chatService.markAsRead(theGoodiesChatId, leia);
+        assertThat(readStateService.loadUnreadCounts(List.of(theGoodiesChatId), Set.of(leiasId)).get(theGoodiesChatId))
+                .containsEntry(leiasId, 0L);
 
         // Mark non-existing chat as read
         assertThrows(ChatException.class, () -> chatService.markAsRead(notExistingId, luke));
@@ -223,4 +247,40 @@ class ChatServiceTest extends AbstractIntegrationTest {
         assertThrows(ChatException.class, () -> chatService.findChatById(theDarkSideChatId));
     }
 
-}
\ No newline at end of file
+    @Test
+    void keepsNewestPreviewWhenOlderSendCommitsLast() throws UserException, ChatException {
+
+        User luke = userService.findUserById(lukesId);
+        User leia = userService.findUserById(leiasId);
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(chatRepository.recordMessageSent(lukesAndLeiasChatId, now, "Newer", luke)).isEqualTo(1);
+        assertThat(chatRepository.recordMessageSent(lukesAndLeiasChatId, now.minusSeconds(1), "Older", leia)).isZero();
+        testEntityManager.clear();
+
+        Chat chat = chatService.findChatById(lukesAndLeiasChatId);
+        assertThat(chat.getLastMessagePreview()).isEqualTo("Newer");
+        assertThat(chat.getLastMessageSender()).isEqualTo(luke);
+    }
+
+    @Test
+    void recordsBatchedMessagesOncePerChat() throws UserException, ChatException {
+
+        User luke = userService.findUserById(lukesId);
+        User leia = userService.findUserById(leiasId);
+        Chat chat = chatService.findChatById(lukesAndLeiasChatId);
+        long messageCount = chat.getMessageCount();
+        LocalDateTime now = LocalDateTime.now();
+
+        chatService.recordMessagesSent(List.of(
+                Message.builder().id(UUID.randomUUID()).chat(chat).user(leia).content("Last").timeStamp(now).build(),
+                Message.builder().id(UUID.randomUUID()).chat(chat).user(luke).content("First").timeStamp(now.minusSeconds(1)).build()));
+        testEntityManager.clear();
+
+        Chat updated = chatService.findChatById(lukesAndLeiasChatId);
+        assertThat(updated.getMessageCount()).isEqualTo(messageCount + 2);
+        assertThat(updated.getLastMessagePreview()).isEqualTo("Last");
+        assertThat(updated.getLastMessageSender()).isEqualTo(leia);
+    }
+
+}
@@ -0,0 +1,167 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.model.User;
+import com.nicolas.chatapp.repository.ChatRepository;
+import com.nicolas.chatapp.repository.MessageRepository;
+import com.nicolas.chatapp.repository.StoredObjectRepository;
+import com.nicolas.chatapp.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileStorageServiceTest extends AbstractIntegrationTest {
+
+    private static final byte[] PNG_HEADER = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', 0, 0, 0, 0x0D};
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService fileStorageService;
+
+    private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService(storedObjectRepository, messageRepository, userRepository,
+                chatRepository, transactionManager, uploadDir.toString(), DataSize.ofMegabytes(1));
+    }
+
+    @Test
+    void storesStreamWithSizeChecksumAndSniffedType() throws IOException {
+
+        StoredFile storedFile = fileStorageService.storeStream(new ByteArrayInputStream(PNG_HEADER), "photo.bin",
+                "application/octet-stream");
+
+        assertThat(storedFile.path()).isEqualTo("content/" + storedFile.sha256().substring(0, 2) + "/" + storedFile.sha256() + ".bin");
+        assertThat(storedFile.size()).isEqualTo(PNG_HEADER.length);
+        assertThat(storedFile.contentType()).isEqualTo("image/png");
+        assertThat(Files.readAllBytes(uploadDir.resolve(storedFile.path()))).isEqualTo(PNG_HEADER);
+    }
+
+    @Test
+    void fallsBackToDeclaredTypeForUnknownContent() throws IOException {
+
+        byte[] text = "May the Force be with you".getBytes(StandardCharsets.UTF_8);
+        StoredFile storedFile = fileStorageService.storeStream(new ByteArrayInputStream(text), "quote.txt", "text/plain");
+
+        assertThat(storedFile.contentType()).isEqualTo("text/plain");
+        assertThat(storedFile.sha256()).isEqualTo("adf76935714ead08f9cb04c2c8f41b56f417aeab982ccbf0d29922f3da366145");
+    }
+
+    @Test
+    void rejectsOversizedStreamWithoutLeavingPartialFile() throws IOException {
+
+        ByteArrayInputStream tooLarge = new ByteArrayInputStream(new byte[1024 * 1024 + 1]);
+
+        assertThatThrownBy(() -> fileStorageService.storeStream(tooLarge, "big.bin", null))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("exceeds");
+
+        try (var files = Files.list(uploadDir.resolve("content"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void storesIdenticalContentOnce() throws IOException {
+
+        StoredFile first = fileStorageService.storeStream(new ByteArrayInputStream(PNG_HEADER), "meme.png", "image/png");
+        StoredFile second = fileStorageService.storeStream(new ByteArrayInputStream(PNG_HEADER), "forwarded.jpg", "image/jpeg");
+
+        assertThat(second.path()).isEqualTo(first.path());
+        assertThat(second.contentType()).isEqualTo("image/png");
+        assertThat(storedObjectRepository.findById(first.sha256())).get()
+                .satisfies(stored -> assertThat(stored.getRefCount()).isEqualTo(2));
+        try (var files = Files.walk(uploadDir.resolve("content"))) {
+            assertThat(files.filter(Files::isRegularFile)).hasSize(1);
+        }
+    }
+
+    @Test
+    void keepsOnlyAlphanumericExtensionOfClientFileName() throws IOException {
+
+        StoredFile storedFile = fileStorageService.storeStream(new ByteArrayInputStream(PNG_HEADER), "../x.png/../evil",
+                "image/png");
+        assertThat(storedFile.path()).isEqualTo("content/" + storedFile.sha256().substring(0, 2) + "/" + storedFile.sha256());
+
+        fileStorageService.release(storedFile.path());
+
+        assertThat(uploadDir.resolve(storedFile.path())).doesNotExist();
+        assertThat(storedObjectRepository.findById(storedFile.sha256())).isEmpty();
+    }
+
+    @Test
+    void deletesFileOnlyWhenLastReferenceIsReleased() throws IOException {
+
+        StoredFile first = fileStorageService.storeStream(new ByteArrayInputStream(PNG_HEADER), "meme.png", "image/png");
+        fileStorageService.storeStream(new ByteArrayInputStream(PNG_HEADER), "meme.png", "image/png");
+
+        fileStorageService.release(first.path());
+        assertThat(uploadDir.resolve(first.path())).exists();
+
+        fileStorageService.release(first.path());
+        assertThat(uploadDir.resolve(first.path())).doesNotExist();
+        assertThat(storedObjectRepository.findById(first.sha256())).isEmpty();
+    }
+
+    @Test
+    void keepsFileStillReferencedWhenCountDrifted() throws IOException {
+
+        StoredFile picture = fileStorageService.storeStream(new ByteArrayInputStream(PNG_HEADER), "luke.png", "image/png");
+        User luke = userRepository.findById(lukesId).orElseThrow();
+        luke.setProfilePicture(picture.path());
+        userRepository.save(luke);
+
+        // A release the upload never paid for, e.g. from an entity that was deleted without cleanup
+        fileStorageService.release(picture.path());
+
+        assertThat(uploadDir.resolve(picture.path())).exists();
+        assertThat(storedObjectRepository.findById(picture.sha256())).get()
+                .satisfies(stored -> assertThat(stored.getRefCount()).isEqualTo(1));
+    }
+
+    @Test
+    void onlyPicturesArePublic() throws IOException {
+
+        StoredFile attachment = fileStorageService.storeStream(new ByteArrayInputStream(PNG_HEADER), "meme.png", "image/png");
+        assertThat(fileStorageService.isPublicPicture(attachment.path())).isFalse();
+
+        User luke = userRepository.findById(lukesId).orElseThrow();
+        luke.setProfilePicture(attachment.path());
+        userRepository.save(luke);
+
+        assertThat(fileStorageService.isPublicPicture(attachment.path())).isTrue();
+        assertThat(fileStorageService.isPublicPicture("profiles/legacy.png")).isTrue();
+        assertThat(fileStorageService.isPublicPicture("messages/legacy.png")).isFalse();
+    }
+
+}
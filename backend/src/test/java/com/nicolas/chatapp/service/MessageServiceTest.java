@@ -1,7 +1,10 @@
 package com.nicolas.chatapp.service;
 
 import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.dto.request.MessageCursorDTO;
 import com.nicolas.chatapp.dto.request.SendMessageRequestDTO;
+import com.nicolas.chatapp.dto.response.MessageDTO;
+import com.nicolas.chatapp.dto.response.MessagePageDTO;
 import com.nicolas.chatapp.dto.response.UserDTO;
 import com.nicolas.chatapp.exception.ChatException;
 import com.nicolas.chatapp.exception.MessageException;
@@ -36,6 +39,8 @@ class MessageServiceTest extends AbstractIntegrationTest {
     private final UUID notExistingId = UUID.fromString("4d09862c-71b6-4719-aeda-f3d961ee89b9");
     private final UUID lukeAndLeiaMessage1Id = UUID.fromString("620d606a-9033-4210-b9c0-982e0f3800ef");
     private final UUID lukeAndLeiaMessage2Id = UUID.fromString("15733d9e-939d-497b-b042-fd2fe54d7430");
+    private final UUID vaderAndLukeMessage1Id = UUID.fromString("a284a44a-7b28-45da-8463-3a35417715f0");
+    private final UUID vaderAndLukeMessage2Id = UUID.fromString("37afbdc4-89b4-4961-b825-bb4d666e5442");
     private final UUID lukeTheGoodiesMessageId = UUID.fromString("6bd25bf8-dba1-46b1-8821-ba838d4a84ae");
 
     @Test
@@ -53,7 +58,7 @@ class MessageServiceTest extends AbstractIntegrationTest {
         assertThat(message.getContent()).isEqualTo(content);
         assertThat(message.getTimeStamp()).isNotNull();
         assertThat(repositoryMessage).isEqualTo(message);
-        assertThat(chat.getMessages()).contains(message);
+        assertThat(messageService.getChatMessages(vaderAndLukesChatId, vader)).contains(message);
 
         // Message from non-existing user
         assertThrows(UserException.class, () -> messageService.sendMessage(request, notExistingId));
@@ -81,6 +86,41 @@ class MessageServiceTest extends AbstractIntegrationTest {
         assertThrows(UserException.class, () -> messageService.getChatMessages(lukeAndLeiaChatId, vader));
     }
 
+    @Test
+    void getChatMessagePages() throws ChatException, UserException, MessageException {
+
+        // Latest page, oldest message on the next page
+        User luke = userService.findUserById(lukesId);
+        Message message1 = messageService.findMessageById(vaderAndLukeMessage1Id);
+        Message message2 = messageService.findMessageById(vaderAndLukeMessage2Id);
+        MessagePageDTO latest = messageService.getChatMessagesBefore(vaderAndLukesChatId, null, 1, luke);
+        assertThat(latest.messages()).containsExactly(MessageDTO.fromMessage(message2));
+        assertThat(latest.hasOlder()).isTrue();
+        assertThat(latest.hasNewer()).isFalse();
+
+        MessagePageDTO older = messageService.getChatMessagesBefore(vaderAndLukesChatId,
+                MessageCursorDTO.decode(latest.olderCursor()), 1, luke);
+        assertThat(older.messages()).containsExactly(MessageDTO.fromMessage(message1));
+        assertThat(older.hasOlder()).isFalse();
+
+        // Walk forward again
+        MessagePageDTO newer = messageService.getChatMessagesAfter(vaderAndLukesChatId,
+                MessageCursorDTO.decode(older.newerCursor()), 10, luke);
+        assertThat(newer.messages()).containsExactly(MessageDTO.fromMessage(message2));
+        assertThat(newer.hasNewer()).isFalse();
+
+        // Messages around a message
+        MessagePageDTO around = messageService.getChatMessagesAround(vaderAndLukesChatId, vaderAndLukeMessage1Id, 3, luke);
+        assertThat(around.messages()).containsExactly(MessageDTO.fromMessage(message1), MessageDTO.fromMessage(message2));
+
+        // Anchor message from another chat
+        assertThrows(MessageException.class,
+                () -> messageService.getChatMessagesAround(vaderAndLukesChatId, lukeAndLeiaMessage1Id, 3, luke));
+
+        // Malformed cursor
+        assertThrows(MessageException.class, () -> MessageCursorDTO.decode("not-a-cursor"));
+    }
+
     @Test
     void findMessageById() throws MessageException {
 
@@ -0,0 +1,56 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.config.PrincipalCache;
+import com.nicolas.chatapp.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PresenceServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private PresenceService presenceService;
+
+    @Autowired
+    private PrincipalCache principalCache;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
+
+    @Test
+    void keepsLatestReportedState() {
+
+        // A flap inside one window ends in the last reported state
+        presenceService.update(leiasId, true);
+        presenceService.update(leiasId, false);
+        presenceService.update(leiasId, true);
+        assertThat(presenceService.isOnline(leiasId)).isTrue();
+
+        presenceService.publish();
+        assertThat(presenceService.isOnline(leiasId)).isTrue();
+        assertThat(presenceService.lastSeen(leiasId)).isPresent();
+
+        presenceService.update(leiasId, false);
+        presenceService.publish();
+        assertThat(presenceService.isOnline(leiasId)).isFalse();
+    }
+
+    @Test
+    void flushDropsCachedPrincipals() {
+
+        PrincipalCache.CachedPrincipal principal = principalCache.put("leias-token", "leia.organa@test.com", "leia.organa@test.com", "", null);
+        principalCache.attachUser("leias-token", principal, userRepository.findById(leiasId).orElseThrow());
+
+        presenceService.update(leiasId, true);
+        presenceService.flush();
+
+        assertThat(principalCache.get("leias-token")).isEmpty();
+    }
+
+}
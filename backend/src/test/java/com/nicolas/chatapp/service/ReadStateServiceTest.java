@@ -0,0 +1,50 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReadStateServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private ReadStateService readStateService;
+
+    private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
+    private final UUID hansId = UUID.fromString("4e039f0a-5eaf-4354-ad5b-14e2889643d4");
+    private final UUID lukesAndLeiasChatId = UUID.fromString("c40e7df3-7e67-4955-96b5-25e8769ec9bc");
+    private final UUID theGoodiesChatId = UUID.fromString("ac63914e-151e-444f-b44c-f67a3374f1f1");
+
+    @Test
+    void markRead() {
+
+        // First read moves the watermark set on joining
+        LocalDateTime readAt = LocalDateTime.of(2024, 4, 22, 20, 5);
+        readStateService.markRead(theGoodiesChatId, leiasId, readAt, null);
+        assertThat(readStateService.findWatermarks(theGoodiesChatId)).containsEntry(leiasId, readAt);
+
+        // Watermark only moves forward
+        readStateService.markRead(theGoodiesChatId, leiasId, readAt.minusDays(1), null);
+        assertThat(readStateService.findWatermarks(theGoodiesChatId)).containsEntry(leiasId, readAt);
+
+        readStateService.markRead(theGoodiesChatId, leiasId, readAt.plusMinutes(1), null);
+        assertThat(readStateService.findWatermarks(theGoodiesChatId)).containsEntry(leiasId, readAt.plusMinutes(1));
+    }
+
+    @Test
+    void seedsPairsWithoutReadStateOnLoad() {
+
+        // No read state yet, so nothing of the existing history counts as unread
+        assertThat(readStateService.findWatermarks(lukesAndLeiasChatId)).doesNotContainKey(hansId);
+        assertThat(readStateService.loadUnreadCounts(List.of(lukesAndLeiasChatId), Set.of(hansId)).get(lukesAndLeiasChatId))
+                .containsEntry(hansId, 0L);
+        assertThat(readStateService.findWatermarks(lukesAndLeiasChatId)).containsKey(hansId);
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.dto.request.SendMessageRequestDTO;
+import com.nicolas.chatapp.dto.request.SyncCursorDTO;
+import com.nicolas.chatapp.dto.response.ChatSummaryDTO;
+import com.nicolas.chatapp.dto.response.MessageDTO;
+import com.nicolas.chatapp.dto.response.SyncDTO;
+import com.nicolas.chatapp.exception.ChatException;
+import com.nicolas.chatapp.exception.MessageException;
+import com.nicolas.chatapp.exception.UserException;
+import com.nicolas.chatapp.model.Message;
+import com.nicolas.chatapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SyncServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserService userService;
+
+    private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
+    private final UUID vadersId = UUID.fromString("f290f384-60ba-4cdd-af96-26c88ede0264");
+    private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
+    private final UUID hansId = UUID.fromString("4e039f0a-5eaf-4354-ad5b-14e2889643d4");
+    private final UUID theGoodiesChatId = UUID.fromString("ac63914e-151e-444f-b44c-f67a3374f1f1");
+
+    @Test
+    void withoutCursorAsksForReload() throws UserException {
+
+        SyncDTO sync = syncService.sync(userService.findUserById(leiasId), null, 0);
+
+        assertThat(sync.reset()).isTrue();
+        assertThat(sync.cursor()).isNotBlank();
+        assertThat(sync.messages()).isEmpty();
+    }
+
+    @Test
+    void returnsMessagesCreatedAndDeletedSinceCursor() throws UserException, ChatException, MessageException {
+
+        User luke = userService.findUserById(lukesId);
+        User leia = userService.findUserById(leiasId);
+        User vader = userService.findUserById(vadersId);
+        SyncCursorDTO leiasCursor = SyncCursorDTO.decode(syncService.sync(leia, null, 0).cursor());
+        SyncCursorDTO vadersCursor = SyncCursorDTO.decode(syncService.sync(vader, null, 0).cursor());
+
+        Message message = messageService.sendMessage(new SendMessageRequestDTO(theGoodiesChatId, "Rebels, assemble"), lukesId);
+
+        SyncDTO sync = syncService.sync(leia, leiasCursor, 0);
+        assertThat(sync.reset()).isFalse();
+        assertThat(sync.messages().get(theGoodiesChatId)).extracting(MessageDTO::id).containsExactly(message.getId());
+        assertThat(sync.chats()).extracting(ChatSummaryDTO::id).containsExactly(theGoodiesChatId);
+        assertThat(syncService.sync(vader, vadersCursor, 0).messages()).isEmpty();
+
+        messageService.deleteMessageById(message.getId(), luke);
+
+        sync = syncService.sync(leia, leiasCursor, 0);
+        assertThat(sync.messages()).isEmpty();
+        assertThat(sync.deletedMessageIds()).containsExactly(message.getId());
+    }
+
+    @Test
+    void reportsChatsTheUserWasRemovedFrom() throws UserException, ChatException {
+
+        User luke = userService.findUserById(lukesId);
+        User han = userService.findUserById(hansId);
+        SyncCursorDTO hansCursor = SyncCursorDTO.decode(syncService.sync(han, null, 0).cursor());
+
+        chatService.removeFromGroup(theGoodiesChatId, hansId, luke);
+
+        SyncDTO sync = syncService.sync(han, hansCursor, 0);
+        assertThat(sync.removedChatIds()).containsExactly(theGoodiesChatId);
+        assertThat(sync.chats()).isEmpty();
+    }
+
+}
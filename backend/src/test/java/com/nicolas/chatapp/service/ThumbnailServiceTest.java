@@ -0,0 +1,141 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.repository.ChatRepository;
+import com.nicolas.chatapp.repository.MessageRepository;
+import com.nicolas.chatapp.repository.StoredObjectRepository;
+import com.nicolas.chatapp.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.util.unit.DataSize;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThumbnailServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private StoredObjectRepository storedObjectRepository;
+
+    @Autowired
+    private MessageRepository messageRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ChatRepository chatRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @TempDir
+    Path uploadDir;
+
+    private FileStorageService fileStorageService;
+    private ThumbnailService thumbnailService;
+
+    @BeforeEach
+    void setUp() {
+        fileStorageService = new FileStorageService(storedObjectRepository, messageRepository, userRepository,
+                chatRepository, transactionManager, uploadDir.toString(), DataSize.ofMegabytes(10));
+        thumbnailService = new ThumbnailService(fileStorageService, messageRepository, transactionManager,
+                meterRegistry, 1, 10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        thumbnailService.stop();
+    }
+
+    @Test
+    void rendersScaledVariantsNextToOriginal() throws IOException {
+
+        StoredFile photo = store(image(2000, 1000, BufferedImage.TYPE_INT_RGB), "photo.png");
+
+        ThumbnailService.ImageVariants variants = thumbnailService.render(photo.path());
+
+        assertThat(variants.width()).isEqualTo(2000);
+        assertThat(variants.height()).isEqualTo(1000);
+        assertThat(variants.thumbnailPath()).isEqualTo("content/" + photo.sha256().substring(0, 2) + "/" + photo.sha256() + "-320.jpg");
+        assertThat(variants.previewPath()).endsWith(photo.sha256() + "-1280.jpg");
+        assertThat(dimensions(variants.thumbnailPath())).containsExactly(320, 160);
+        assertThat(dimensions(variants.previewPath())).containsExactly(1280, 640);
+    }
+
+    @Test
+    void keepsTransparencyAsPng() throws IOException {
+
+        StoredFile sticker = store(image(800, 800, BufferedImage.TYPE_INT_ARGB), "sticker.png");
+
+        ThumbnailService.ImageVariants variants = thumbnailService.render(sticker.path());
+
+        assertThat(variants.thumbnailPath()).endsWith("-320.png");
+        assertThat(variants.previewPath()).isEqualTo(sticker.path());
+    }
+
+    @Test
+    void usesOriginalForSmallImages() throws IOException {
+
+        StoredFile icon = store(image(100, 50, BufferedImage.TYPE_INT_RGB), "icon.png");
+
+        ThumbnailService.ImageVariants variants = thumbnailService.render(icon.path());
+
+        assertThat(variants.thumbnailPath()).isEqualTo(icon.path());
+        assertThat(variants.previewPath()).isEqualTo(icon.path());
+        assertThat(variants.width()).isEqualTo(100);
+    }
+
+    @Test
+    void skipsFilesThatAreNotImages() throws IOException {
+
+        StoredFile text = fileStorageService.storeStream(
+                new ByteArrayInputStream("Not a picture".getBytes(StandardCharsets.UTF_8)), "note.txt", "text/plain");
+
+        assertThat(thumbnailService.render(text.path())).isNull();
+    }
+
+    @Test
+    void deletesVariantsWithOriginal() throws IOException {
+
+        StoredFile photo = store(image(2000, 1000, BufferedImage.TYPE_INT_RGB), "photo.png");
+        ThumbnailService.ImageVariants variants = thumbnailService.render(photo.path());
+
+        fileStorageService.release(photo.path());
+
+        assertThat(uploadDir.resolve(photo.path())).doesNotExist();
+        assertThat(uploadDir.resolve(variants.thumbnailPath())).doesNotExist();
+        assertThat(uploadDir.resolve(variants.previewPath())).doesNotExist();
+    }
+
+    private StoredFile store(BufferedImage image, String fileName) throws IOException {
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", png);
+        return fileStorageService.storeStream(new ByteArrayInputStream(png.toByteArray()), fileName, "image/png");
+    }
+
+    private static BufferedImage image(int width, int height, int type) {
+        return new BufferedImage(width, height, type);
+    }
+
+    private int[] dimensions(String filePath) throws IOException {
+        BufferedImage image = ImageIO.read(uploadDir.resolve(filePath).toFile());
+        return new int[]{image.getWidth(), image.getHeight()};
+    }
+
+}
@@ -0,0 +1,40 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.dto.request.TypingIndicatorDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TypingServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private TypingService typingService;
+
+    private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
+    private final UUID vadersId = UUID.fromString("f290f384-60ba-4cdd-af96-26c88ede0264");
+    private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
+    private final UUID theGoodiesChatId = UUID.fromString("ac63914e-151e-444f-b44c-f67a3374f1f1");
+
+    @Test
+    void tracksTypistsPerChat() {
+
+        typingService.update(new TypingIndicatorDTO(theGoodiesChatId, lukesId, "Luke Skywalker", true));
+        typingService.update(new TypingIndicatorDTO(theGoodiesChatId, leiasId, "Leia Organa", true));
+        // Not a member of the chat
+        typingService.update(new TypingIndicatorDTO(theGoodiesChatId, vadersId, "Darth Vader", true));
+        assertThat(typingService.typingUserIds(theGoodiesChatId)).containsExactlyInAnyOrder(lukesId, leiasId);
+
+        typingService.publish();
+        typingService.update(new TypingIndicatorDTO(theGoodiesChatId, lukesId, "Luke Skywalker", false));
+        assertThat(typingService.typingUserIds(theGoodiesChatId)).containsExactly(leiasId);
+
+        typingService.update(new TypingIndicatorDTO(theGoodiesChatId, leiasId, "Leia Organa", false));
+        typingService.publish();
+        assertThat(typingService.typingUserIds(theGoodiesChatId)).isEmpty();
+    }
+
+}
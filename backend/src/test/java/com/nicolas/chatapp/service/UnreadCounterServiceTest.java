@@ -0,0 +1,69 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import com.nicolas.chatapp.dto.request.SendMessageRequestDTO;
+import com.nicolas.chatapp.exception.ChatException;
+import com.nicolas.chatapp.exception.MessageException;
+import com.nicolas.chatapp.exception.UserException;
+import com.nicolas.chatapp.model.Message;
+import com.nicolas.chatapp.model.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UnreadCounterServiceTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private UnreadCounterService unreadCounterService;
+
+    @Autowired
+    private MessageService messageService;
+
+    @Autowired
+    private ChatService chatService;
+
+    @Autowired
+    private UserService userService;
+
+    private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
+    private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
+    private final UUID theGoodiesChatId = UUID.fromString("ac63914e-151e-444f-b44c-f67a3374f1f1");
+    private final UUID lukesAndLeiasChatId = UUID.fromString("c40e7df3-7e67-4955-96b5-25e8769ec9bc");
+
+    @Test
+    void countsFollowSendsAndReads() throws UserException, ChatException, MessageException {
+
+        long initial = unreadCounterService.getUnreadCount(theGoodiesChatId, leiasId);
+
+        // Sends bump the other members and clear the sender
+        Message first = messageService.sendMessage(new SendMessageRequestDTO(theGoodiesChatId, "Help me"), lukesId);
+        messageService.sendMessage(new SendMessageRequestDTO(theGoodiesChatId, "You're my only hope"), lukesId);
+        assertThat(unreadCounterService.getUnreadCount(theGoodiesChatId, leiasId)).isEqualTo(initial + 2);
+        assertThat(unreadCounterService.getUnreadCount(theGoodiesChatId, lukesId)).isZero();
+
+        // Deleting an unread message takes it back out of the badge
+        User luke = userService.findUserById(lukesId);
+        messageService.deleteMessageById(first.getId(), luke);
+        assertThat(unreadCounterService.getUnreadCount(theGoodiesChatId, leiasId)).isEqualTo(initial + 1);
+
+        // Reading resets the badge
+        chatService.markAsRead(theGoodiesChatId, userService.findUserById(leiasId));
+        assertThat(unreadCounterService.getUnreadCount(theGoodiesChatId, leiasId)).isZero();
+    }
+
+    @Test
+    void loadsSeveralChatsAtOnce() throws UserException, ChatException {
+
+        messageService.sendMessage(new SendMessageRequestDTO(lukesAndLeiasChatId, "Meet me at the cantina"), lukesId);
+
+        assertThat(unreadCounterService.getUnreadCounts(List.of(theGoodiesChatId, lukesAndLeiasChatId), leiasId))
+                .containsOnlyKeys(theGoodiesChatId, lukesAndLeiasChatId)
+                .containsEntry(lukesAndLeiasChatId, unreadCounterService.getUnreadCount(lukesAndLeiasChatId, leiasId));
+        assertThat(unreadCounterService.getUnreadCount(lukesAndLeiasChatId, leiasId)).isPositive();
+    }
+
+}
@@ -0,0 +1,54 @@
+package com.nicolas.chatapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserEventBufferTest {
+
+    private final UUID lukesId = UUID.fromString("be900497-cc68-4504-9b99-4e5deaf1e6c0");
+    private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
+
+    @Test
+    void replaysEventsAfterLastSeenSequence() {
+
+        UserEventBuffer buffer = new UserEventBuffer(8, 60_000);
+        long first = buffer.append(lukesId, new byte[]{1});
+        long second = buffer.append(lukesId, new byte[]{2});
+        long third = buffer.append(lukesId, new byte[]{3});
+
+        UserEventBuffer.Replay replay = buffer.since(lukesId, first);
+        assertThat(replay.complete()).isTrue();
+        assertThat(replay.events()).extracting(UserEventBuffer.Event::seq).containsExactly(second, third);
+
+        UserEventBuffer.Replay upToDate = buffer.since(lukesId, third);
+        assertThat(upToDate.complete()).isTrue();
+        assertThat(upToDate.events()).isEmpty();
+    }
+
+    @Test
+    void reportsGapWhenEventsWereOverwritten() {
+
+        UserEventBuffer buffer = new UserEventBuffer(2, 60_000);
+        long first = buffer.append(lukesId, new byte[]{1});
+        buffer.append(lukesId, new byte[]{2});
+        buffer.append(lukesId, new byte[]{3});
+        buffer.append(lukesId, new byte[]{4});
+
+        assertThat(buffer.since(lukesId, first).complete()).isFalse();
+        assertThat(buffer.since(lukesId, first + 1).events()).hasSize(2);
+    }
+
+    @Test
+    void reportsGapForUnknownUserOrPosition() {
+
+        UserEventBuffer buffer = new UserEventBuffer(8, 60_000);
+        long seq = buffer.append(lukesId, new byte[]{1});
+
+        assertThat(buffer.since(leiasId, 0).complete()).isFalse();
+        assertThat(buffer.since(lukesId, seq + 10).complete()).isFalse();
+    }
+
+}
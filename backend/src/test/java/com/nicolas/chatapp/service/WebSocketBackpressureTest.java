@@ -0,0 +1,72 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WebSocketBackpressureTest extends AbstractIntegrationTest {
+
+    private static final int LARGE_FRAME = 300 * 1024;
+
+    @Autowired
+    private WebSocketBackpressure backpressure;
+
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+
+    private final UUID leiasId = UUID.fromString("0fb97ac1-1304-4e83-b640-f659b8679907");
+
+    @Test
+    void dropsEphemeralFramesAndHoldsBackMessagesUntilDrained() throws IOException {
+
+        WebSocketSession transport = mock(WebSocketSession.class);
+        when(transport.getId()).thenReturn("leia-phone");
+        WebSocketSession session = backpressure.track(transport);
+        sessionRegistry.register("leia-phone", leiasId);
+
+        try {
+            String topic = "/topic/" + leiasId;
+            assertThat(backpressure.admit(frame(topic, 1L, LARGE_FRAME))).isNotNull();
+
+            // Congested: typing is dropped, calls still go out, further messages wait for the resync
+            assertThat(backpressure.admit(frame(topic + "/typing", null, 64))).isNull();
+            assertThat(backpressure.admit(frame(topic + "/call", null, 64))).isNotNull();
+            assertThat(backpressure.admit(frame(topic, 2L, 64))).isNull();
+
+            session.sendMessage(new TextMessage("MESSAGE\ndestination:" + topic + "\n\n" + "a".repeat(LARGE_FRAME) + "\0"));
+
+            // Drained, the resync pass replays the held back frames and lets live ones through again
+            backpressure.resync();
+
+            assertThat(backpressure.admit(frame(topic + "/typing", null, 64))).isNotNull();
+            assertThat(backpressure.admit(frame(topic, 3L, 64))).isNotNull();
+        } finally {
+            backpressure.release("leia-phone");
+            sessionRegistry.unregister("leia-phone");
+        }
+    }
+
+    private static Message<byte[]> frame(String destination, Long seq, int size) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId("leia-phone");
+        accessor.setDestination(destination);
+        if (seq != null) {
+            accessor.setNativeHeader(WebSocketFanoutService.SEQUENCE_HEADER, seq.toString());
+        }
+        return MessageBuilder.createMessage(new byte[size], accessor.getMessageHeaders());
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.nicolas.chatapp.service;
+
+import com.nicolas.chatapp.AbstractIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WebSocketSessionRegistryTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private WebSocketSessionRegistry sessionRegistry;
+
+    @Autowired
+    private PresenceService presenceService;
+
+    private final UUID hansId = UUID.fromString("4e039f0a-5eaf-4354-ad5b-14e2889643d4");
+
+    @Test
+    void userStaysOnlineUntilLastSessionCloses() {
+
+        sessionRegistry.register("han-phone", hansId);
+        sessionRegistry.register("han-laptop", hansId);
+        assertThat(sessionRegistry.sessionCount(hansId)).isEqualTo(2);
+        assertThat(sessionRegistry.userId("han-phone")).contains(hansId);
+        assertThat(presenceService.isOnline(hansId)).isTrue();
+
+        sessionRegistry.unregister("han-phone");
+        assertThat(sessionRegistry.isConnected(hansId)).isTrue();
+        assertThat(presenceService.isOnline(hansId)).isTrue();
+
+        sessionRegistry.unregister("han-laptop");
+        assertThat(sessionRegistry.isConnected(hansId)).isFalse();
+        assertThat(presenceService.isOnline(hansId)).isFalse();
+    }
+
+    @Test
+    void reaperClosesSilentSessions() throws IOException {
+
+        WebSocketSession transport = mock(WebSocketSession.class);
+        when(transport.getId()).thenReturn("han-phone");
+        sessionRegistry.opened(transport);
+        sessionRegistry.register("han-phone", hansId);
+
+        sessionRegistry.reap(Long.MAX_VALUE);
+
+        assertThat(sessionRegistry.isConnected(hansId)).isFalse();
+        verify(transport).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+}
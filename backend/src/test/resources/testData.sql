@@ -1,5 +1,4 @@
-DELETE FROM MESSAGE_READ_BY;
-DELETE FROM CHAT_MESSAGES;
+DELETE FROM CHAT_READ_STATE;
 DELETE FROM CHAT_ADMINS;
 DELETE FROM CHAT_USERS;
 DELETE FROM MESSAGE;
@@ -50,6 +49,12 @@ VALUES ('0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4', 'f290f384-60ba-4cdd-af96-26c88ed
        ('8a3ad4c8-3c57-43c3-aed7-f3af68da5135', 'd7083ad6-9e09-453e-b7c8-65016f20ea37');
 
 
+-- Members get a read state when they join, before any of the messages below
+INSERT INTO CHAT_READ_STATE(id, chat_id, user_id, last_read_at)
+SELECT md5(chat_id::text || users_id::text)::uuid, chat_id, users_id, '2024-04-22 20:00:00'
+FROM CHAT_USERS;
+
+
 INSERT INTO MESSAGE(id, content, time_stamp, user_id, chat_id)
 VALUES ('a284a44a-7b28-45da-8463-3a35417715f0', 'I am your father', '2024-04-22 20:01:07.535241 +00:00', 'f290f384-60ba-4cdd-af96-26c88ede0264', '0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4'),
        ('37afbdc4-89b4-4961-b825-bb4d666e5442', 'Noooo', '2024-04-22 20:02:08.535241 +00:00', 'be900497-cc68-4504-9b99-4e5deaf1e6c0', '0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4'),
@@ -58,9 +63,7 @@ VALUES ('a284a44a-7b28-45da-8463-3a35417715f0', 'I am your father', '2024-04-22
        ('6bd25bf8-dba1-46b1-8821-ba838d4a84ae', 'We won!', '2024-04-22 20:05:08.535241 +00:00', 'be900497-cc68-4504-9b99-4e5deaf1e6c0', 'ac63914e-151e-444f-b44c-f67a3374f1f1');
 
 
-INSERT INTO CHAT_MESSAGES(chat_id, messages_id)
-VALUES ('0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4', 'a284a44a-7b28-45da-8463-3a35417715f0'),
-       ('0bd20a41-4d23-4c4e-a8aa-8e46743f9ee4', '37afbdc4-89b4-4961-b825-bb4d666e5442'),
-       ('c40e7df3-7e67-4955-96b5-25e8769ec9bc', '620d606a-9033-4210-b9c0-982e0f3800ef'),
-       ('c40e7df3-7e67-4955-96b5-25e8769ec9bc', '15733d9e-939d-497b-b042-fd2fe54d7430'),
-       ('ac63914e-151e-444f-b44c-f67a3374f1f1', '6bd25bf8-dba1-46b1-8821-ba838d4a84ae');
\ No newline at end of file
+UPDATE CHAT SET message_count = (SELECT COUNT(*) FROM MESSAGE m WHERE m.chat_id = CHAT.id),
+                last_message_at = (SELECT MAX(m.time_stamp) FROM MESSAGE m WHERE m.chat_id = CHAT.id),
+                last_message_preview = (SELECT m.content FROM MESSAGE m WHERE m.chat_id = CHAT.id ORDER BY m.time_stamp DESC LIMIT 1),
+                last_message_sender_id = (SELECT m.user_id FROM MESSAGE m WHERE m.chat_id = CHAT.id ORDER BY m.time_stamp DESC LIMIT 1);
@@ -1,5 +1,5 @@
 import styles from './Homepage.module.scss';
-import React, {useEffect, useState} from "react";
+import React, {useEffect, useRef, useState} from "react";
 import {NavigateFunction, useNavigate} from "react-router-dom";
 import {useDispatch, useSelector} from "react-redux";
 import {AppDispatch, RootState, store} from "../redux/Store";
@@ -11,15 +11,15 @@ import ChatIcon from '@mui/icons-material/Chat';
 import MoreVertIcon from '@mui/icons-material/MoreVert';
 import {currentUser, logoutUser} from "../redux/auth/AuthAction";
 import SearchIcon from '@mui/icons-material/Search';
-import {getUserChats, markChatAsRead} from "../redux/chat/ChatAction";
-import {ChatDTO} from "../redux/chat/ChatModel";
+import {getUserChats, markChatAsRead, updateUnreadCount} from "../redux/chat/ChatAction";
+import {ChatSummaryDTO} from "../redux/chat/ChatModel";
 import ChatCard from "./chatCard/ChatCard";
 import {getInitialsFromName} from "./utils/Utils";
 import ClearIcon from '@mui/icons-material/Clear';
 import WelcomePage from "./welcomePage/WelcomePage";
 import MessagePage from "./messagePage/MessagePage";
-import {MessageDTO, WebSocketMessageDTO} from "../redux/message/MessageModel";
-import {createMessage, getAllMessages, receiveMessage} from "../redux/message/MessageAction";
+import {MessageDTO} from "../redux/message/MessageModel";
+import {createMessage, getLatestMessages, getOlderMessages, receiveMessage} from "../redux/message/MessageAction";
 import SockJS from 'sockjs-client';
 import {Client, over, Subscription} from "stompjs";
 import {AUTHORIZATION_PREFIX} from "../redux/Constants";
@@ -29,6 +29,9 @@ import CallModal from "./call/CallModal";
 import {receiveCall, endCall} from "../redux/call/CallAction";
 import {CallSignal} from "../utils/WebRTCUtils";
 
+// About the server's replay buffer: a gap wider than that can't be replayed any more
+const MAX_PENDING_SEQS = 256;
+
 const Homepage = () => {
 
     const authState = useSelector((state: RootState) => state.auth);
@@ -45,13 +48,16 @@ const Homepage = () => {
     const [initials, setInitials] = useState<string>("");
     const [query, setQuery] = useState<string>("");
     const [focused, setFocused] = useState<boolean>(false);
-    const [currentChat, setCurrentChat] = useState<ChatDTO | null>(null);
+    const [currentChat, setCurrentChat] = useState<ChatSummaryDTO | null>(null);
     const [messages, setMessages] = useState<MessageDTO[]>([]);
     const [newMessage, setNewMessage] = useState<string>("");
     const [stompClient, setStompClient] = useState<Client | undefined>();
     const [isConnected, setIsConnected] = useState<boolean>(false);
     const [messageReceived, setMessageReceived] = useState<boolean>(false);
     const [subscribeTry, setSubscribeTry] = useState<number>(1);
+    // Every seq up to lastSeq has been seen; seqs seen beyond a gap wait in seenSeqs until the gap is filled
+    const lastSeq = useRef<number | null>(null);
+    const seenSeqs = useRef<Set<number>>(new Set());
     const open = Boolean(anchor);
 
     useEffect(() => {
@@ -85,7 +91,7 @@ const Homepage = () => {
 
     useEffect(() => {
         if (currentChat?.id && token) {
-            dispatch(getAllMessages(currentChat.id, token));
+            dispatch(getLatestMessages(currentChat.id, token));
         }
     }, [currentChat?.id, dispatch, token]);
 
@@ -93,13 +99,6 @@ const Homepage = () => {
         setMessages(messageState.messages);
     }, [messageState.messages]);
 
-    useEffect(() => {
-        if (messageState.newMessage && stompClient && currentChat && isConnected) {
-            const webSocketMessage: WebSocketMessageDTO = {...messageState.newMessage, chat: currentChat};
-            stompClient.send("/app/messages", {}, JSON.stringify(webSocketMessage));
-        }
-    }, [messageState.newMessage]);
-
     useEffect(() => {
         console.log("Attempting to subscribe to ws: ", subscribeTry);
         if (isConnected && stompClient && stompClient.connected && authState.reqUser && authState.reqUser.id) {
@@ -116,6 +115,11 @@ const Homepage = () => {
                 }
             });
 
+            // After a reconnect, ask for whatever was sent on our topic while we were away
+            if (lastSeq.current !== null) {
+                stompClient.send("/app/replay", {}, JSON.stringify({lastSeq: lastSeq.current}));
+            }
+
             return () => {
                 subscription.unsubscribe();
                 callSubscription.unsubscribe();
@@ -157,7 +161,7 @@ const Homepage = () => {
     useEffect(() => {
         if (messageReceived && currentChat?.id && token) {
             dispatch(markChatAsRead(currentChat.id, token));
-            dispatch(getAllMessages(currentChat.id, token));
+            dispatch(getLatestMessages(currentChat.id, token));
         }
         if (token) {
             dispatch(getUserChats(token));
@@ -190,8 +194,35 @@ const Homepage = () => {
 
     const onMessageReceive = (payload: any) => {
         try {
+            // Frames on our topic are numbered; a replay may repeat ones another session already delivered, and
+            // live frames may overtake the replayed ones, so anything not seen yet is taken whatever its order
+            const seq = payload.headers?.seq ? Number(payload.headers.seq) : null;
+            if (seq !== null) {
+                if ((lastSeq.current !== null && seq <= lastSeq.current) || seenSeqs.current.has(seq)) {
+                    return;
+                }
+                markSeen(seq);
+            }
+
             const message = JSON.parse(payload.body);
             console.log('Message received via WebSocket:', message);
+
+            // The missed frames are gone from the server; the chat list refetch below catches up instead
+            if (message.event === 'resync') {
+                skipGaps();
+            }
+
+            // Badge updates carry the new count, so they're applied in place rather than refetching the chat list
+            if (message.event === 'unread') {
+                dispatch(updateUnreadCount(message.chatId, message.unreadCount));
+                return;
+            }
+
+            // Resync notices share this topic too; refresh the chat list instead of adding a message
+            if (message.event) {
+                setMessageReceived(true);
+                return;
+            }
             
             // Dispatch to Redux to add message
             dispatch(receiveMessage(message));
@@ -203,6 +234,30 @@ const Homepage = () => {
         }
     };
 
+    const markSeen = (seq: number) => {
+        if (lastSeq.current === null) {
+            lastSeq.current = seq;
+        } else {
+            seenSeqs.current.add(seq);
+        }
+        while (lastSeq.current !== null && seenSeqs.current.delete(lastSeq.current + 1)) {
+            lastSeq.current++;
+        }
+        // A gap that stays open this long is not going to be filled
+        if (seenSeqs.current.size > MAX_PENDING_SEQS) {
+            skipGaps();
+        }
+    };
+
+    const skipGaps = () => {
+        seenSeqs.current.forEach(seq => {
+            if (lastSeq.current === null || seq > lastSeq.current) {
+                lastSeq.current = seq;
+            }
+        });
+        seenSeqs.current.clear();
+    };
+
     const onSendMessage = () => {
         if (currentChat?.id && token) {
             dispatch(createMessage({chatId: currentChat.id, content: newMessage}, token));
@@ -210,6 +265,12 @@ const Homepage = () => {
         }
     };
 
+    const onLoadOlderMessages = () => {
+        if (currentChat?.id && token && messageState.chatId === currentChat.id && messageState.olderCursor) {
+            dispatch(getOlderMessages(currentChat.id, messageState.olderCursor, token));
+        }
+    };
+
     const onOpenProfile = () => {
         onCloseMenu();
         setIsShowProfile(true);
@@ -249,7 +310,7 @@ const Homepage = () => {
         setQuery("");
     };
 
-    const onClickChat = (chat: ChatDTO) => {
+    const onClickChat = (chat: ChatSummaryDTO) => {
         if (token) {
             dispatch(markChatAsRead(chat.id, token));
         }
@@ -286,7 +347,7 @@ const Homepage = () => {
                                 <div className={styles.navContainer}>
                                     <div onClick={onOpenProfile} className={styles.userInfoContainer}>
                                         <Avatar 
-                                            src={authState.reqUser?.profilePicture ? `${BASE_API_URL}/uploads/${authState.reqUser.profilePicture}` : undefined}
+                                            src={authState.reqUser?.profilePicture ? `${BASE_API_URL}/uploads/${authState.reqUser.profilePictureSizes?.[128] ?? authState.reqUser.profilePicture}` : undefined}
                                             sx={{
                                                 width: '2.5rem',
                                                 height: '2.5rem',
@@ -347,13 +408,13 @@ const Homepage = () => {
                                             (x.users && x.users.length > 0 && x.users[0]?.id === authState.reqUser?.id ? 
                                                 (x.users[1]?.fullName?.toLowerCase().includes(query) || false) :
                                                 (x.users && x.users.length > 0 && x.users[0]?.fullName?.toLowerCase().includes(query) || false)))
-                                        .map((chat: ChatDTO) => (
+                                        .map((chat: ChatSummaryDTO) => (
                                             <div key={chat.id} onClick={() => onClickChat(chat)}>
                                                 <Divider/>
                                                 <ChatCard chat={chat}/>
                                             </div>
                                         ))}
-                                    {query.length === 0 && chatState.chats?.map((chat: ChatDTO) => (
+                                    {query.length === 0 && chatState.chats?.map((chat: ChatSummaryDTO) => (
                                         <div key={chat.id} onClick={() => onClickChat(chat)}>
                                             <Divider/>
                                             <ChatCard chat={chat}/>
@@ -369,6 +430,8 @@ const Homepage = () => {
                             chat={currentChat}
                             reqUser={authState.reqUser}
                             messages={messages}
+                            hasOlderMessages={messageState.hasOlder}
+                            onLoadOlderMessages={onLoadOlderMessages}
                             newMessage={newMessage}
                             setNewMessage={setNewMessage}
                             onSendMessage={onSendMessage}
@@ -2,13 +2,12 @@ import {Avatar, Badge} from "@mui/material";
 import React from "react";
 import {getChatName, getInitialsFromName, transformDateToString, getChatProfilePicture} from "../utils/Utils";
 import styles from './ChatCard.module.scss';
-import {ChatDTO} from "../../redux/chat/ChatModel";
+import {ChatSummaryDTO} from "../../redux/chat/ChatModel";
 import {useSelector} from "react-redux";
 import {RootState} from "../../redux/Store";
-import {MessageDTO} from "../../redux/message/MessageModel";
 
 interface ChatCardProps {
-    chat: ChatDTO;
+    chat: ChatSummaryDTO;
 }
 
 const ChatCard = (props: ChatCardProps) => {
@@ -18,15 +17,13 @@ const ChatCard = (props: ChatCardProps) => {
     const name: string = getChatName(props.chat, authState.reqUser);
     const initials: string = getInitialsFromName(name);
     const chatProfilePicture: string | undefined = getChatProfilePicture(props.chat, authState.reqUser);
-    const sortedMessages: MessageDTO[] = props.chat.messages.sort((a, b) => +new Date(a.timeStamp) - +new Date(b.timeStamp));
-    const lastMessage: MessageDTO | undefined = sortedMessages.length > 0 ? sortedMessages[sortedMessages.length - 1] : undefined;
-    const lastMessageContent: string = lastMessage ? lastMessage.content.length > 25 ? lastMessage.content.slice(0, 25) + "..." : lastMessage.content : "";
-    const lastMessageName: string = lastMessage ? lastMessage.user.fullName === authState.reqUser?.fullName ? "You" : lastMessage.user.fullName : "";
-    const lastMessageString: string = lastMessage ? lastMessageName + ": " + lastMessageContent : "";
-    const lastDate: string = lastMessage ? transformDateToString(new Date(lastMessage.timeStamp)) : "";
-    const numberOfReadMessages: number = props.chat.messages.filter(msg =>
-        msg.user.id === authState.reqUser?.id || (authState.reqUser?.id && msg.readBy.includes(authState.reqUser.id))).length;
-    const numberOfUnreadMessages: number = props.chat.messages.length - numberOfReadMessages;
+    const preview: string = props.chat.lastMessagePreview ?? "";
+    const lastMessageContent: string = preview.length > 25 ? preview.slice(0, 25) + "..." : preview;
+    const lastMessageSender = props.chat.users?.find(user => user.id === props.chat.lastMessageSenderId);
+    const lastMessageName: string = props.chat.lastMessageSenderId === authState.reqUser?.id ? "You" : lastMessageSender?.fullName ?? "";
+    const lastMessageString: string = props.chat.lastMessageAt ? (lastMessageName ? lastMessageName + ": " : "") + lastMessageContent : "";
+    const lastDate: string = props.chat.lastMessageAt ? transformDateToString(new Date(props.chat.lastMessageAt)) : "";
+    const numberOfUnreadMessages: number = props.chat.unreadCount ?? 0;
 
     return (
         <div className={styles.chatCardOuterContainer}>
@@ -12,12 +12,12 @@ import styles from './EditGroupChat.module.scss';
 import GroupMember from "./GroupMember";
 import SearchIcon from "@mui/icons-material/Search";
 import ClearIcon from "@mui/icons-material/Clear";
-import {ChatDTO} from "../../redux/chat/ChatModel";
+import {ChatSummaryDTO} from "../../redux/chat/ChatModel";
 import {addUserToGroupChat, removeUserFromGroupChat, uploadGroupPicture, getUserChats} from "../../redux/chat/ChatAction";
 
 interface CreateGroupProps {
     setIsShowEditGroupChat: (showCreateGroup: boolean) => void;
-    currentChat: ChatDTO | null;
+    currentChat: ChatSummaryDTO | null;
 }
 
 const EditGroupChat = (props: CreateGroupProps) => {
@@ -106,7 +106,7 @@ const EditGroupChat = (props: CreateGroupProps) => {
                 <div style={{display: 'flex', justifyContent: 'center', marginBottom: '1rem'}}>
                     <div style={{position: 'relative'}}>
                         <Avatar
-                            src={props.currentChat.groupProfilePicture ? `${BASE_API_URL}/uploads/${props.currentChat.groupProfilePicture}` : undefined}
+                            src={props.currentChat.groupProfilePicture ? `${BASE_API_URL}/uploads/${props.currentChat.groupProfilePictureSizes?.[256] ?? props.currentChat.groupProfilePicture}` : undefined}
                             sx={{width: 100, height: 100}}
                         >
                             {props.currentChat.chatName?.charAt(0).toUpperCase()}
@@ -2,11 +2,10 @@ import {MessageDTO} from "../../redux/message/MessageModel";
 import {UserDTO} from "../../redux/auth/AuthModel";
 import styles from './MessageCard.module.scss';
 import {Chip, Button, Box} from "@mui/material";
-import React from "react";
+import React, {useEffect, useState} from "react";
 import {getDateFormat} from "../utils/Utils";
-import {BASE_API_URL} from "../../config/Config";
 import {TOKEN} from "../../config/Config";
-import {downloadFile} from "../../redux/message/MessageAction";
+import {downloadFile, fetchThumbnailObjectUrl} from "../../redux/message/MessageAction";
 import DownloadIcon from '@mui/icons-material/Download';
 import ImageIcon from '@mui/icons-material/Image';
 import PictureAsPdfIcon from '@mui/icons-material/PictureAsPdf';
@@ -31,7 +30,30 @@ const MessageCard = (props: MessageCardProps) => {
     const hasFile = props.message.filePath && props.message.fileName;
     const isImage = props.message.fileType?.startsWith('image/');
     const isPdf = props.message.fileType === 'application/pdf';
-    const fileUrl = hasFile ? `${BASE_API_URL}/uploads/${props.message.filePath}` : null;
+    const [imageUrl, setImageUrl] = useState<string | null>(null);
+
+    useEffect(() => {
+        const token = localStorage.getItem(TOKEN);
+        if (!hasFile || !isImage || !token) {
+            return;
+        }
+
+        let objectUrl: string | null = null;
+        let cancelled = false;
+        // Shown at most 300px wide, so the thumbnail is enough
+        fetchThumbnailObjectUrl(props.message.id, token).then(url => {
+            if (cancelled) {
+                if (url) window.URL.revokeObjectURL(url);
+                return;
+            }
+            objectUrl = url;
+            setImageUrl(url);
+        });
+        return () => {
+            cancelled = true;
+            if (objectUrl) window.URL.revokeObjectURL(objectUrl);
+        };
+    }, [props.message.id, hasFile, isImage]);
     
     // Check for YouTube links
     const content = props.message.content || '';
@@ -106,10 +128,10 @@ const MessageCard = (props: MessageCardProps) => {
             
             {hasFile && (
                 <Box sx={{mb: 1, p: 1, backgroundColor: 'rgba(0,0,0,0.05)', borderRadius: 1}}>
-                    {isImage && fileUrl ? (
+                    {isImage && imageUrl ? (
                         <Box>
                             <img 
-                                src={fileUrl} 
+                                src={imageUrl} 
                                 alt={props.message.fileName}
                                 style={{maxWidth: '300px', maxHeight: '300px', borderRadius: '8px', marginBottom: '8px'}}
                                 onError={(e) => {
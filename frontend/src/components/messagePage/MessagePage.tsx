@@ -1,7 +1,7 @@
 import {Avatar, IconButton, InputAdornment, Menu, MenuItem, TextField} from "@mui/material";
 import {getChatName, getInitialsFromName, getChatProfilePicture} from "../utils/Utils";
-import React, {useEffect, useRef, useState} from "react";
-import {ChatDTO} from "../../redux/chat/ChatModel";
+import React, {useEffect, useLayoutEffect, useRef, useState} from "react";
+import {ChatSummaryDTO} from "../../redux/chat/ChatModel";
 import {UserDTO} from "../../redux/auth/AuthModel";
 import styles from './MesaggePage.module.scss';
 import MoreVertIcon from "@mui/icons-material/MoreVert";
@@ -26,16 +26,21 @@ import {useSelector} from "react-redux";
 import {RootState} from "../../redux/Store";
 
 interface MessagePageProps {
-    chat: ChatDTO;
+    chat: ChatSummaryDTO;
     reqUser: UserDTO | null;
     messages: MessageDTO[];
+    hasOlderMessages: boolean;
+    onLoadOlderMessages: () => void;
     newMessage: string;
     setNewMessage: (newMessage: string) => void;
     onSendMessage: () => void;
     setIsShowEditGroupChat: (isShowEditGroupChat: boolean) => void;
-    setCurrentChat: (chat: ChatDTO | null) => void;
+    setCurrentChat: (chat: ChatSummaryDTO | null) => void;
 }
 
+// Distance from the top of the history at which the next older page is requested
+const LOAD_OLDER_THRESHOLD_PX = 80;
+
 const MessagePage = (props: MessagePageProps) => {
 
     const [messageQuery, setMessageQuery] = useState<string>("");
@@ -46,13 +51,39 @@ const MessagePage = (props: MessagePageProps) => {
     const [selectedFile, setSelectedFile] = useState<File | null>(null);
     const fileInputRef = useRef<HTMLInputElement>(null);
     const lastMessageRef = useRef<null | HTMLDivElement>(null);
+    const contentRef = useRef<null | HTMLDivElement>(null);
+    // Scroll height when an older page was requested, to keep the visible messages in place once it's prepended
+    const loadingOlderFrom = useRef<number | null>(null);
     const dispatch: AppDispatch = useDispatch();
     const open = Boolean(anchor);
     const token: string | null = localStorage.getItem(TOKEN);
 
+    const lastMessageId = props.messages.length > 0 ? props.messages[props.messages.length - 1].id : null;
+
     useEffect(() => {
         scrollToBottom();
-    }, [props]);
+    }, [lastMessageId, props.chat.id]);
+
+    useEffect(() => {
+        loadingOlderFrom.current = null;
+    }, [props.chat.id]);
+
+    useLayoutEffect(() => {
+        const container = contentRef.current;
+        if (container && loadingOlderFrom.current !== null) {
+            container.scrollTop += container.scrollHeight - loadingOlderFrom.current;
+            loadingOlderFrom.current = null;
+        }
+    }, [props.messages]);
+
+    const onScrollMessages = (e: React.UIEvent<HTMLDivElement>) => {
+        const container = e.currentTarget;
+        if (container.scrollTop < LOAD_OLDER_THRESHOLD_PX && props.hasOlderMessages && messageQuery.length === 0
+            && loadingOlderFrom.current === null) {
+            loadingOlderFrom.current = container.scrollHeight;
+            props.onLoadOlderMessages();
+        }
+    };
 
     const scrollToBottom = () => {
         if (lastMessageRef.current) {
@@ -271,7 +302,8 @@ const MessagePage = (props: MessagePageProps) => {
             </div>
 
             {/*Message Page Content*/}
-            <div className={styles.messageContentContainer} onClick={onCloseEmojiPicker}>
+            <div className={styles.messageContentContainer} onClick={onCloseEmojiPicker} onScroll={onScrollMessages}
+                 ref={contentRef}>
                 {messageQuery.length > 0 &&
                     props.messages.filter(x => x.content.toLowerCase().includes(messageQuery))
                         .map(message => getMessageCard(message))}
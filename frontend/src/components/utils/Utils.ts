@@ -1,4 +1,4 @@
-import {ChatDTO} from "../../redux/chat/ChatModel";
+import {ChatSummaryDTO} from "../../redux/chat/ChatModel";
 import {UserDTO} from "../../redux/auth/AuthModel";
 import {BASE_API_URL} from "../../config/Config";
 
@@ -23,7 +23,7 @@ export const transformDateToString = (date: Date): string => {
     return hours + ":" + minutes;
 };
 
-export const getChatName = (chat: ChatDTO, reqUser: UserDTO | null): string => {
+export const getChatName = (chat: ChatSummaryDTO, reqUser: UserDTO | null): string => {
     if (chat.isGroup) {
         return chat.chatName || 'Group Chat';
     }
@@ -49,14 +49,17 @@ export const getImageUrl = (imagePath: string | null | undefined): string | unde
     return `${BASE_API_URL}/uploads/${imagePath}`;
 };
 
-export const getChatProfilePicture = (chat: ChatDTO, reqUser: UserDTO | null): string | undefined => {
+// Chat list avatars render at 40px, so the smallest rendered size is enough
+const CHAT_LIST_AVATAR_SIZE = 64;
+
+export const getChatProfilePicture = (chat: ChatSummaryDTO, reqUser: UserDTO | null): string | undefined => {
     if (chat.isGroup) {
-        return getImageUrl(chat.groupProfilePicture);
+        return getImageUrl(chat.groupProfilePictureSizes?.[CHAT_LIST_AVATAR_SIZE] ?? chat.groupProfilePicture);
     }
     if (!chat.users || chat.users.length === 0) {
         return undefined;
     }
     // For single chat, show the other user's profile picture
     const otherUser = chat.users[0]?.id === reqUser?.id ? chat.users[1] : chat.users[0];
-    return getImageUrl(otherUser?.profilePicture);
+    return getImageUrl(otherUser?.profilePictureSizes?.[CHAT_LIST_AVATAR_SIZE] ?? otherUser?.profilePicture);
 };
\ No newline at end of file
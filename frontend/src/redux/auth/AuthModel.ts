@@ -29,6 +29,7 @@ export interface UserDTO {
     fullName: string,
     bio?: string,
     profilePicture?: string,
+    profilePictureSizes?: Record<number, string>,
     isOnline?: boolean,
     lastSeen?: string,
     otpVerified?: boolean,
@@ -1,7 +1,7 @@
 import {BASE_API_URL} from "../../config/Config";
 import * as actionTypes from './ChatActionType';
 import {UUID} from "node:crypto";
-import {ChatDTO, GroupChatRequestDTO} from "./ChatModel";
+import {ChatSummaryDTO, GroupChatRequestDTO} from "./ChatModel";
 import {AUTHORIZATION_PREFIX} from "../Constants";
 import {AppDispatch} from "../Store";
 import {ApiResponseDTO} from "../auth/AuthModel";
@@ -19,7 +19,7 @@ export const createChat = (userId: UUID, token: string) => async (dispatch: AppD
             body: JSON.stringify(userId),
         });
 
-        const resData: ChatDTO = await res.json();
+        const resData: ChatSummaryDTO = await res.json();
         console.log('Created single chat: ', resData);
         dispatch({type: actionTypes.CREATE_CHAT, payload: JSON.parse(JSON.stringify(resData))});
     } catch (error: any) {
@@ -38,7 +38,7 @@ export const createGroupChat = (data: GroupChatRequestDTO, token: string) => asy
             body: JSON.stringify(data),
         });
 
-        const resData: ChatDTO = await res.json();
+        const resData: ChatSummaryDTO = await res.json();
         console.log('Created group chat: ', resData);
         dispatch({type: actionTypes.CREATE_GROUP, payload: JSON.parse(JSON.stringify(resData))});
     } catch (error: any) {
@@ -48,7 +48,7 @@ export const createGroupChat = (data: GroupChatRequestDTO, token: string) => asy
 
 export const getUserChats = (token: string) => async (dispatch: AppDispatch): Promise<void> => {
     try {
-        const res: Response = await fetch(`${BASE_API_URL}/${CHAT_PATH}/user`, {
+        const res: Response = await fetch(`${BASE_API_URL}/${CHAT_PATH}/user?view=summary`, {
             method: 'GET',
             headers: {
                 'Content-Type': 'application/json',
@@ -56,7 +56,7 @@ export const getUserChats = (token: string) => async (dispatch: AppDispatch): Pr
             }
         });
 
-        const resData: ChatDTO[] = await res.json();
+        const resData: ChatSummaryDTO[] = await res.json();
         console.log('Getting user chats: ', resData);
         // Clone data to prevent reference sharing with Redux state
         dispatch({type: actionTypes.GET_ALL_CHATS, payload: JSON.parse(JSON.stringify(resData))});
@@ -93,7 +93,7 @@ export const addUserToGroupChat = (chatId: UUID, userId: UUID, token: string) =>
             }
         });
 
-        const resData: ChatDTO = await res.json();
+        const resData: ChatSummaryDTO = await res.json();
         console.log('Added user to group chat: ', resData);
         dispatch({type: actionTypes.ADD_MEMBER_TO_GROUP, payload: JSON.parse(JSON.stringify(resData))});
     } catch (error: any) {
@@ -111,7 +111,7 @@ export const removeUserFromGroupChat = (chatId: UUID, userId: UUID, token: strin
             }
         });
 
-        const resData: ChatDTO = await res.json();
+        const resData: ChatSummaryDTO = await res.json();
         console.log('Removed user from group chat: ', resData);
         dispatch({type: actionTypes.REMOVE_MEMBER_FROM_GROUP, payload: JSON.parse(JSON.stringify(resData))});
     } catch (error: any) {
@@ -129,7 +129,7 @@ export const markChatAsRead = (chatId: UUID, token: string) => async (dispatch:
             }
         });
 
-        const resData: ChatDTO = await res.json();
+        const resData: ChatSummaryDTO = await res.json();
         console.log('Marked chat as read: ', resData);
         dispatch({type: actionTypes.MARK_CHAT_AS_READ, payload: JSON.parse(JSON.stringify(resData))});
     } catch (error: any) {
@@ -159,4 +159,9 @@ export const uploadGroupPicture = (chatId: UUID, file: File, token: string) => a
     } catch (error: any) {
         console.error('Uploading group picture failed: ', error);
     }
-};
\ No newline at end of file
+};
+
+export const updateUnreadCount = (chatId: UUID, unreadCount: number) => ({
+    type: actionTypes.UPDATE_UNREAD_COUNT,
+    payload: {chatId, unreadCount}
+});
\ No newline at end of file
@@ -4,4 +4,5 @@ export const GET_ALL_CHATS = "GET_ALL_CHATS";
 export const DELETE_CHAT = "DELETE_CHAT";
 export const ADD_MEMBER_TO_GROUP = "ADD_MEMBER_TO_GROUP";
 export const REMOVE_MEMBER_FROM_GROUP = "REMOVE_MEMBER_FROM_GROUP";
-export const MARK_CHAT_AS_READ = "MARK_CHAT_AS_READ";
\ No newline at end of file
+export const MARK_CHAT_AS_READ = "MARK_CHAT_AS_READ";
+export const UPDATE_UNREAD_COUNT = "UPDATE_UNREAD_COUNT";
\ No newline at end of file
@@ -12,18 +12,38 @@ export interface ChatDTO {
     chatName: string;
     isGroup: boolean;
     groupProfilePicture?: string;
+    groupProfilePictureSizes?: Record<number, string>;
     groupDescription?: string;
     admins: UserDTO[];
     users: UserDTO[];
     createdBy: UserDTO;
     messages: MessageDTO[];
+    unreadCount?: number;
+}
+
+/** Chat metadata without message history, returned by the chat list and chat mutations. */
+export interface ChatSummaryDTO {
+    id: UUID;
+    chatName: string;
+    isGroup: boolean;
+    groupProfilePicture?: string;
+    groupProfilePictureSizes?: Record<number, string>;
+    groupDescription?: string;
+    adminIds: UUID[];
+    users: UserDTO[];
+    createdById?: UUID;
+    lastMessageAt?: string;
+    lastMessagePreview?: string;
+    lastMessageSenderId?: UUID;
+    messageCount: number;
+    unreadCount?: number;
 }
 
 export type ChatReducerState = {
-    chats: ChatDTO[];
-    createdGroup: ChatDTO | null;
-    createdChat: ChatDTO | null;
+    chats: ChatSummaryDTO[];
+    createdGroup: ChatSummaryDTO | null;
+    createdChat: ChatSummaryDTO | null;
     deletedChat: ApiResponseDTO | null;
-    editedGroup: ChatDTO | null;
-    markedAsReadChat: ChatDTO | null;
+    editedGroup: ChatSummaryDTO | null;
+    markedAsReadChat: ChatSummaryDTO | null;
 }
\ No newline at end of file
@@ -27,6 +27,13 @@ const chatReducer = (state: ChatReducerState = initialState, action: Action): Ch
             return {...state, editedGroup: action.payload};
         case actionTypes.MARK_CHAT_AS_READ:
             return {...state, markedAsReadChat: action.payload};
+        case actionTypes.UPDATE_UNREAD_COUNT:
+            return {
+                ...state,
+                chats: state.chats.map(chat => chat.id === action.payload.chatId
+                    ? {...chat, unreadCount: action.payload.unreadCount}
+                    : chat)
+            };
     }
     return state;
 };
@@ -1,4 +1,4 @@
-import {MessageDTO, SendMessageRequestDTO} from "./MessageModel";
+import {MessageDTO, MessagePageDTO, SendMessageRequestDTO} from "./MessageModel";
 import {AppDispatch} from "../Store";
 import {BASE_API_URL} from "../../config/Config";
 import {AUTHORIZATION_PREFIX} from "../Constants";
@@ -6,6 +6,7 @@ import * as actionTypes from './MessageActionType';
 import {UUID} from "node:crypto";
 
 const MESSAGE_PATH = 'api/messages';
+const MESSAGE_PAGE_SIZE = 50;
 
 export const createMessage = (data: SendMessageRequestDTO, token: string) => async (dispatch: AppDispatch): Promise<void> => {
     try {
@@ -26,24 +27,43 @@ export const createMessage = (data: SendMessageRequestDTO, token: string) => asy
     }
 };
 
-export const getAllMessages = (chatId: UUID, token: string) => async (dispatch: AppDispatch): Promise<void> => {
-    try {
-        const res: Response = await fetch(`${BASE_API_URL}/${MESSAGE_PATH}/chat/${chatId}`, {
-            method: 'GET',
-            headers: {
-                'Content-Type': 'application/json',
-                Authorization: `${AUTHORIZATION_PREFIX}${token}`,
-            }
-        });
+const getMessagePage = async (chatId: UUID, before: string | null, token: string): Promise<MessagePageDTO> => {
+    const params = new URLSearchParams({limit: String(MESSAGE_PAGE_SIZE)});
+    if (before) {
+        params.set('before', before);
+    }
+    const res: Response = await fetch(`${BASE_API_URL}/${MESSAGE_PATH}/chat/${chatId}/page?${params}`, {
+        method: 'GET',
+        headers: {
+            'Content-Type': 'application/json',
+            Authorization: `${AUTHORIZATION_PREFIX}${token}`,
+        }
+    });
+    return res.json();
+};
 
-        const resData: MessageDTO[] = await res.json();
-        console.log('Getting messages: ', resData);
-        dispatch({type: actionTypes.GET_ALL_MESSAGES, payload: JSON.parse(JSON.stringify(resData))});
+/**
+ * Loads the newest page of a chat. Older messages already loaded for the same chat are kept.
+ */
+export const getLatestMessages = (chatId: UUID, token: string) => async (dispatch: AppDispatch): Promise<void> => {
+    try {
+        const page: MessagePageDTO = await getMessagePage(chatId, null, token);
+        console.log('Getting messages: ', page);
+        dispatch({type: actionTypes.GET_LATEST_MESSAGES, payload: {chatId, page}});
     } catch (error: any) {
         console.error('Getting messages failed: ', error);
     }
 };
 
+export const getOlderMessages = (chatId: UUID, before: string, token: string) => async (dispatch: AppDispatch): Promise<void> => {
+    try {
+        const page: MessagePageDTO = await getMessagePage(chatId, before, token);
+        dispatch({type: actionTypes.GET_OLDER_MESSAGES, payload: {chatId, page}});
+    } catch (error: any) {
+        console.error('Getting older messages failed: ', error);
+    }
+};
+
 export const receiveMessage = (message: MessageDTO) => ({
     type: actionTypes.RECEIVE_MESSAGE,
     payload: message
@@ -75,6 +95,25 @@ export const uploadFileMessage = (file: File, chatId: UUID, content: string, tok
     }
 };
 
+/**
+ * Attachments are only served to chat members, so images are fetched with the token and shown from an object URL.
+ * The caller revokes the URL once it's no longer displayed.
+ */
+export const fetchThumbnailObjectUrl = async (messageId: UUID, token: string): Promise<string | null> => {
+    try {
+        const res: Response = await fetch(`${BASE_API_URL}/${MESSAGE_PATH}/download/${messageId}/thumbnail`, {
+            method: 'GET',
+            headers: {
+                Authorization: `${AUTHORIZATION_PREFIX}${token}`,
+            }
+        });
+        return res.ok ? window.URL.createObjectURL(await res.blob()) : null;
+    } catch (error: any) {
+        console.error('Loading file failed', error);
+        return null;
+    }
+};
+
 export const downloadFile = async (messageId: UUID, fileName: string, token: string): Promise<void> => {
     try {
         const res: Response = await fetch(`${BASE_API_URL}/${MESSAGE_PATH}/download/${messageId}`, {
@@ -1,3 +1,4 @@
 export const CREATE_NEW_MESSAGE = "CREATE_NEW_MESSAGE";
-export const GET_ALL_MESSAGES = "GET_ALL_MESSAGES";
+export const GET_LATEST_MESSAGES = "GET_LATEST_MESSAGES";
+export const GET_OLDER_MESSAGES = "GET_OLDER_MESSAGES";
 export const RECEIVE_MESSAGE = "RECEIVE_MESSAGE";
\ No newline at end of file
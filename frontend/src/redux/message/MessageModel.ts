@@ -1,6 +1,5 @@
 import {UUID} from "node:crypto";
 import {UserDTO} from "../auth/AuthModel";
-import {ChatDTO} from "../chat/ChatModel";
 
 export interface MessageDTO {
     id: UUID;
@@ -12,14 +11,19 @@ export interface MessageDTO {
     fileName?: string;
     fileType?: string;
     fileSize?: number;
+    fileChecksum?: string;
+    imageWidth?: number;
+    imageHeight?: number;
+    thumbnailPath?: string;
+    previewPath?: string;
 }
 
-export interface WebSocketMessageDTO {
-    id: UUID;
-    content: string;
-    timeStamp: string;
-    user: UserDTO;
-    chat: ChatDTO;
+export interface MessagePageDTO {
+    messages: MessageDTO[];
+    olderCursor?: string;
+    newerCursor?: string;
+    hasOlder: boolean;
+    hasNewer: boolean;
 }
 
 export interface SendMessageRequestDTO {
@@ -28,6 +32,9 @@ export interface SendMessageRequestDTO {
 }
 
 export type MessageReducerState = {
+    chatId: UUID | null;
     messages: MessageDTO[];
+    olderCursor: string | null;
+    hasOlder: boolean;
     newMessage: MessageDTO | null;
 }
\ No newline at end of file
@@ -1,18 +1,50 @@
-import {MessageReducerState} from "./MessageModel";
+import {MessageDTO, MessageReducerState} from "./MessageModel";
 import {Action} from "../CommonModel";
 import * as actionTypes from './MessageActionType';
 
 const initialState: MessageReducerState = {
+    chatId: null,
     messages: [],
+    olderCursor: null,
+    hasOlder: false,
     newMessage: null,
 };
 
+const isBefore = (message: MessageDTO, other: MessageDTO): boolean =>
+    new Date(message.timeStamp).getTime() < new Date(other.timeStamp).getTime();
+
 const messageReducer = (state: MessageReducerState = initialState, action: Action): MessageReducerState => {
     switch (action.type) {
         case actionTypes.CREATE_NEW_MESSAGE:
             return {...state, newMessage: action.payload};
-        case actionTypes.GET_ALL_MESSAGES:
-            return {...state, messages: action.payload};
+        case actionTypes.GET_LATEST_MESSAGES: {
+            const {chatId, page} = action.payload;
+            const first: MessageDTO | undefined = page.messages[0];
+            // A refresh of the open chat keeps the older pages already scrolled in
+            const kept: MessageDTO[] = chatId === state.chatId && first
+                ? state.messages.filter((m: MessageDTO) => isBefore(m, first))
+                : [];
+            return {
+                ...state,
+                chatId,
+                messages: [...kept, ...page.messages],
+                olderCursor: kept.length > 0 ? state.olderCursor : page.olderCursor ?? null,
+                hasOlder: kept.length > 0 ? state.hasOlder : page.hasOlder,
+            };
+        }
+        case actionTypes.GET_OLDER_MESSAGES: {
+            const {chatId, page} = action.payload;
+            if (chatId !== state.chatId) {
+                return state;
+            }
+            const loaded = new Set(state.messages.map((m: MessageDTO) => m.id));
+            return {
+                ...state,
+                messages: [...page.messages.filter((m: MessageDTO) => !loaded.has(m.id)), ...state.messages],
+                olderCursor: page.olderCursor ?? null,
+                hasOlder: page.hasOlder,
+            };
+        }
         case actionTypes.RECEIVE_MESSAGE:
             // Add received message to messages array if not already present
             const messageExists = state.messages.some((m: any) => m.id === action.payload.id);
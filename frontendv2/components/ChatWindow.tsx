@@ -12,7 +12,7 @@ import {
   CheckCheck,
 } from "lucide-react";
 import type { Contact, Message } from "./ChatInterface";
-import { BASE_API_URL } from "../config/Config";
+import { AUTHORIZATION_PREFIX, BASE_API_URL, TOKEN } from "../config/Config";
 
 interface ChatWindowProps {
   contact: Contact | null;
@@ -196,13 +196,10 @@ export function ChatWindow({
                   <div className="mb-2 bg-[#182229] rounded-md p-2">
                     {message.fileType?.startsWith('image/') ? (
                       <div>
-                        <img 
-                          src={`${BASE_API_URL}/uploads/${message.filePath}`}
+                        <AuthorizedImage
+                          messageId={message.id}
                           alt={message.fileName}
                           className="max-w-[300px] max-h-[300px] rounded-md mb-2"
-                          onError={(e) => {
-                            (e.target as HTMLImageElement).style.display = 'none';
-                          }}
                         />
                         <a
                           href={`${BASE_API_URL}/api/messages/download/${message.id}`}
@@ -312,6 +309,47 @@ export function ChatWindow({
   );
 }
 
+/**
+ * Attachments are only served to chat members, so the image is fetched with the token and shown from an
+ * object URL instead of pointing the img tag at a public path.
+ */
+function AuthorizedImage({
+  messageId,
+  alt,
+  className,
+}: {
+  messageId: string;
+  alt?: string;
+  className?: string;
+}) {
+  const [url, setUrl] = useState<string | null>(null);
+
+  useEffect(() => {
+    const token = localStorage.getItem(TOKEN);
+    if (!token) return;
+
+    let objectUrl: string | null = null;
+    let cancelled = false;
+    fetch(`${BASE_API_URL}/api/messages/download/${messageId}/thumbnail`, {
+      headers: { Authorization: `${AUTHORIZATION_PREFIX}${token}` },
+    })
+      .then((res) => (res.ok ? res.blob() : null))
+      .then((blob) => {
+        if (!blob || cancelled) return;
+        objectUrl = URL.createObjectURL(blob);
+        setUrl(objectUrl);
+      })
+      .catch((error) => console.error("Loading image failed", error));
+
+    return () => {
+      cancelled = true;
+      if (objectUrl) URL.revokeObjectURL(objectUrl);
+    };
+  }, [messageId]);
+
+  return url ? <img src={url} alt={alt} className={className} /> : null;
+}
+
 function MessageSquare({
   size,
   className,